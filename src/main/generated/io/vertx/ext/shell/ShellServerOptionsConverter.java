@@ -15,11 +15,41 @@ public class ShellServerOptionsConverter {
   public static void fromJson(Iterable<java.util.Map.Entry<String, Object>> json, ShellServerOptions obj) {
     for (java.util.Map.Entry<String, Object> member : json) {
       switch (member.getKey()) {
+        case "contextPolicy":
+          if (member.getValue() instanceof String) {
+            obj.setContextPolicy(io.vertx.ext.shell.system.ContextPolicy.valueOf((String)member.getValue()));
+          }
+          break;
+        case "detachedSessionTimeout":
+          if (member.getValue() instanceof Number) {
+            obj.setDetachedSessionTimeout(((Number)member.getValue()).longValue());
+          }
+          break;
+        case "jobOutputBufferSize":
+          if (member.getValue() instanceof Number) {
+            obj.setJobOutputBufferSize(((Number)member.getValue()).intValue());
+          }
+          break;
+        case "processTimeout":
+          if (member.getValue() instanceof Number) {
+            obj.setProcessTimeout(((Number)member.getValue()).longValue());
+          }
+          break;
         case "reaperInterval":
           if (member.getValue() instanceof Number) {
             obj.setReaperInterval(((Number)member.getValue()).longValue());
           }
           break;
+        case "serverOutputBufferLimit":
+          if (member.getValue() instanceof Number) {
+            obj.setServerOutputBufferLimit(((Number)member.getValue()).longValue());
+          }
+          break;
+        case "sessionOutputBufferLimit":
+          if (member.getValue() instanceof Number) {
+            obj.setSessionOutputBufferLimit(((Number)member.getValue()).longValue());
+          }
+          break;
         case "sessionTimeout":
           if (member.getValue() instanceof Number) {
             obj.setSessionTimeout(((Number)member.getValue()).longValue());
@@ -39,7 +69,15 @@ public class ShellServerOptionsConverter {
   }
 
   public static void toJson(ShellServerOptions obj, java.util.Map<String, Object> json) {
+    if (obj.getContextPolicy() != null) {
+      json.put("contextPolicy", obj.getContextPolicy().name());
+    }
+    json.put("detachedSessionTimeout", obj.getDetachedSessionTimeout());
+    json.put("jobOutputBufferSize", obj.getJobOutputBufferSize());
+    json.put("processTimeout", obj.getProcessTimeout());
     json.put("reaperInterval", obj.getReaperInterval());
+    json.put("serverOutputBufferLimit", obj.getServerOutputBufferLimit());
+    json.put("sessionOutputBufferLimit", obj.getSessionOutputBufferLimit());
     json.put("sessionTimeout", obj.getSessionTimeout());
     if (obj.getWelcomeMessage() != null) {
       json.put("welcomeMessage", obj.getWelcomeMessage());
@@ -25,6 +25,11 @@ public class HttpTermOptionsConverter {
             obj.setCharset((String)member.getValue());
           }
           break;
+        case "instances":
+          if (member.getValue() instanceof Number) {
+            obj.setInstances(((Number)member.getValue()).intValue());
+          }
+          break;
         case "intputrc":
           if (member.getValue() instanceof String) {
             obj.setIntputrc((String)member.getValue());
@@ -70,6 +75,7 @@ public class HttpTermOptionsConverter {
     if (obj.getCharset() != null) {
       json.put("charset", obj.getCharset());
     }
+    json.put("instances", obj.getInstances());
     if (obj.getIntputrc() != null) {
       json.put("intputrc", obj.getIntputrc());
     }
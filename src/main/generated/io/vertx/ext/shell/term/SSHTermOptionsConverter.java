@@ -25,6 +25,11 @@ public class SSHTermOptionsConverter {
             obj.setDefaultCharset((String)member.getValue());
           }
           break;
+        case "eventLoopPoolSize":
+          if (member.getValue() instanceof Number) {
+            obj.setEventLoopPoolSize(((Number)member.getValue()).intValue());
+          }
+          break;
         case "host":
           if (member.getValue() instanceof String) {
             obj.setHost((String)member.getValue());
@@ -70,6 +75,7 @@ public class SSHTermOptionsConverter {
     if (obj.getDefaultCharset() != null) {
       json.put("defaultCharset", obj.getDefaultCharset());
     }
+    json.put("eventLoopPoolSize", obj.getEventLoopPoolSize());
     if (obj.getHost() != null) {
       json.put("host", obj.getHost());
     }
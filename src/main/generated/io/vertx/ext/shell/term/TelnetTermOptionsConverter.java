@@ -25,6 +25,11 @@ public class TelnetTermOptionsConverter {
             obj.setInBinary((Boolean)member.getValue());
           }
           break;
+        case "instances":
+          if (member.getValue() instanceof Number) {
+            obj.setInstances(((Number)member.getValue()).intValue());
+          }
+          break;
         case "intputrc":
           if (member.getValue() instanceof String) {
             obj.setIntputrc((String)member.getValue());
@@ -48,6 +53,7 @@ public class TelnetTermOptionsConverter {
       json.put("charset", obj.getCharset());
     }
     json.put("inBinary", obj.getInBinary());
+    json.put("instances", obj.getInstances());
     if (obj.getIntputrc() != null) {
       json.put("intputrc", obj.getIntputrc());
     }
@@ -417,6 +417,22 @@ public class ShellExamples {
     });
   }
 
+  public void blockingCommand(CommandBuilder command) {
+    command.blockingProcessHandler(process -> {
+
+      // Block the thread
+      try {
+        Thread.sleep(1000);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+
+      // Write and end the command
+      process.write("done\n");
+      process.end();
+    });
+  }
+
   public void interruptHandler(CommandBuilder command) {
     command.processHandler(process -> {
       Vertx vertx = process.vertx();
@@ -34,6 +34,7 @@ package io.vertx.ext.shell;
 
 import io.vertx.codegen.annotations.DataObject;
 import io.vertx.core.json.JsonObject;
+import io.vertx.ext.shell.system.ContextPolicy;
 
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
@@ -56,6 +57,45 @@ public class ShellServerOptions {
    */
   public static final long DEFAULT_SESSION_TIMEOUT = 30 * 60 * 1000; // 30 minutes
 
+  /**
+   * Default time, in ms, that a detached shell session lasts for before expiring: {@code 0}, i.e the sessions
+   * are not detached.
+   */
+  public static final long DEFAULT_DETACHED_SESSION_TIMEOUT = 0;
+
+  /**
+   * Default size, in bytes, of the output buffer of a job: {@code 0}, i.e the output of the background jobs
+   * is not buffered.
+   */
+  public static final int DEFAULT_JOB_OUTPUT_BUFFER_SIZE = 0;
+
+  /**
+   * Size, in bytes, of the output buffer of a job when detached sessions are enabled and no job output buffer size
+   * is set: {@code 64KB}.
+   */
+  public static final int DEFAULT_DETACHED_JOB_OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * Default maximum number of bytes of job output buffers allocated by a shell session: {@code 1MB}.
+   */
+  public static final long DEFAULT_SESSION_OUTPUT_BUFFER_LIMIT = 1024 * 1024;
+
+  /**
+   * Default maximum number of bytes of job output buffers allocated by the shell server: {@code 64MB}.
+   */
+  public static final long DEFAULT_SERVER_OUTPUT_BUFFER_LIMIT = 64 * 1024 * 1024;
+
+  /**
+   * Default time, in ms, a process can run before it is terminated: {@code 0}, i.e the processes run without time
+   * limit.
+   */
+  public static final long DEFAULT_PROCESS_TIMEOUT = 0;
+
+  /**
+   * Default policy used to choose the context of a process: {@link ContextPolicy#CREATION}
+   */
+  public static final ContextPolicy DEFAULT_CONTEXT_POLICY = ContextPolicy.CREATION;
+
   public static final String DEFAULT_WELCOME_MESSAGE;
 
   static {
@@ -83,17 +123,35 @@ public class ShellServerOptions {
   private String welcomeMessage;
   private long sessionTimeout;
   private long reaperInterval;
+  private ContextPolicy contextPolicy;
+  private long detachedSessionTimeout;
+  private int jobOutputBufferSize;
+  private long sessionOutputBufferLimit;
+  private long serverOutputBufferLimit;
+  private long processTimeout;
 
   public ShellServerOptions() {
     welcomeMessage = DEFAULT_WELCOME_MESSAGE;
     sessionTimeout = DEFAULT_SESSION_TIMEOUT;
     reaperInterval = DEFAULT_REAPER_INTERVAL;
+    contextPolicy = DEFAULT_CONTEXT_POLICY;
+    detachedSessionTimeout = DEFAULT_DETACHED_SESSION_TIMEOUT;
+    jobOutputBufferSize = DEFAULT_JOB_OUTPUT_BUFFER_SIZE;
+    sessionOutputBufferLimit = DEFAULT_SESSION_OUTPUT_BUFFER_LIMIT;
+    serverOutputBufferLimit = DEFAULT_SERVER_OUTPUT_BUFFER_LIMIT;
+    processTimeout = DEFAULT_PROCESS_TIMEOUT;
   }
 
   public ShellServerOptions(ShellServerOptions that) {
     welcomeMessage = that.welcomeMessage;
     sessionTimeout = that.sessionTimeout;
     reaperInterval = that.reaperInterval;
+    contextPolicy = that.contextPolicy;
+    detachedSessionTimeout = that.detachedSessionTimeout;
+    jobOutputBufferSize = that.jobOutputBufferSize;
+    sessionOutputBufferLimit = that.sessionOutputBufferLimit;
+    serverOutputBufferLimit = that.serverOutputBufferLimit;
+    processTimeout = that.processTimeout;
   }
 
   public ShellServerOptions(JsonObject json) {
@@ -145,7 +203,8 @@ public class ShellServerOptions {
   }
 
   /**
-   * Set the repear interval, i.e the period at which session eviction is performed.
+   * Set the repear interval, i.e the minimum delay between two session evictions, a value {@code <= 0} disables
+   * the eviction.
    *
    * @param reaperInterval the new repeat interval
    * @return a reference to this, so the API can be used fluently
@@ -154,4 +213,127 @@ public class ShellServerOptions {
     this.reaperInterval = reaperInterval;
     return this;
   }
+
+  /**
+   * @return the context policy
+   */
+  public ContextPolicy getContextPolicy() {
+    return contextPolicy;
+  }
+
+  /**
+   * Set the default policy choosing the context on which a process executes, commands can override it
+   * with {@link io.vertx.ext.shell.command.CommandBuilder#contextPolicy}.
+   *
+   * @param contextPolicy the context policy
+   * @return a reference to this, so the API can be used fluently
+   */
+  public ShellServerOptions setContextPolicy(ContextPolicy contextPolicy) {
+    this.contextPolicy = contextPolicy;
+    return this;
+  }
+
+  /**
+   * @return the detached session timeout
+   */
+  public long getDetachedSessionTimeout() {
+    return detachedSessionTimeout;
+  }
+
+  /**
+   * Set the detached session timeout, i.e how long a session detached from its terminal keeps its jobs running
+   * before it is closed, a value {@code <= 0} disables the detached sessions.<p/>
+   *
+   * A session is detached with the {@literal detach} command or when the connection is lost while jobs are running,
+   * the {@literal attach} command attaches it to another terminal. The output of the jobs of a detached session is
+   * retained in the job output buffers, when no {@link #setJobOutputBufferSize job output buffer size} is set,
+   * enabling detached sessions gives each job a buffer of {@link #DEFAULT_DETACHED_JOB_OUTPUT_BUFFER_SIZE} bytes.
+   *
+   * @param detachedSessionTimeout the new detached session timeout in ms
+   * @return a reference to this, so the API can be used fluently
+   */
+  public ShellServerOptions setDetachedSessionTimeout(long detachedSessionTimeout) {
+    this.detachedSessionTimeout = detachedSessionTimeout;
+    return this;
+  }
+
+  /**
+   * @return the job output buffer size
+   */
+  public int getJobOutputBufferSize() {
+    return jobOutputBufferSize;
+  }
+
+  /**
+   * Set the size of the output buffer of a job, the output of a job running in background or of a detached session
+   * is written to this buffer instead of the terminal. When the job is brought back to foreground, the buffered
+   * output is written to the terminal. The buffer keeps the most recent output, a value {@code <= 0} disables the
+   * buffering.<p/>
+   *
+   * The buffers are allocated outside of the heap within the limits of {@link #setSessionOutputBufferLimit} and
+   * {@link #setServerOutputBufferLimit}, a job created when a limit is reached does not buffer its output.
+   *
+   * @param jobOutputBufferSize the new job output buffer size in bytes
+   * @return a reference to this, so the API can be used fluently
+   */
+  public ShellServerOptions setJobOutputBufferSize(int jobOutputBufferSize) {
+    this.jobOutputBufferSize = jobOutputBufferSize;
+    return this;
+  }
+
+  /**
+   * @return the session output buffer limit
+   */
+  public long getSessionOutputBufferLimit() {
+    return sessionOutputBufferLimit;
+  }
+
+  /**
+   * Set the maximum number of bytes of the job output buffers allocated by a shell session.
+   *
+   * @param sessionOutputBufferLimit the new session output buffer limit in bytes
+   * @return a reference to this, so the API can be used fluently
+   */
+  public ShellServerOptions setSessionOutputBufferLimit(long sessionOutputBufferLimit) {
+    this.sessionOutputBufferLimit = sessionOutputBufferLimit;
+    return this;
+  }
+
+  /**
+   * @return the server output buffer limit
+   */
+  public long getServerOutputBufferLimit() {
+    return serverOutputBufferLimit;
+  }
+
+  /**
+   * Set the maximum number of bytes of the job output buffers allocated by all the sessions of the shell server.
+   *
+   * @param serverOutputBufferLimit the new server output buffer limit in bytes
+   * @return a reference to this, so the API can be used fluently
+   */
+  public ShellServerOptions setServerOutputBufferLimit(long serverOutputBufferLimit) {
+    this.serverOutputBufferLimit = serverOutputBufferLimit;
+    return this;
+  }
+
+  /**
+   * @return the process timeout
+   */
+  public long getProcessTimeout() {
+    return processTimeout;
+  }
+
+  /**
+   * Set the default time a process can run before it is interrupted and then terminated, commands can override it
+   * with {@link io.vertx.ext.shell.command.CommandBuilder#timeout}. A value {@code <= 0} lets processes run without
+   * time limit.
+   *
+   * @param processTimeout the new process timeout in ms
+   * @return a reference to this, so the API can be used fluently
+   */
+  public ShellServerOptions setProcessTimeout(long processTimeout) {
+    this.processTimeout = processTimeout;
+    return this;
+  }
 }
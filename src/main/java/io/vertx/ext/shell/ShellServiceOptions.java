@@ -34,6 +34,7 @@ package io.vertx.ext.shell;
 
 import io.vertx.codegen.annotations.DataObject;
 import io.vertx.core.json.JsonObject;
+import io.vertx.ext.shell.system.ContextPolicy;
 import io.vertx.ext.shell.term.SSHTermOptions;
 import io.vertx.ext.shell.term.TelnetTermOptions;
 import io.vertx.ext.shell.term.HttpTermOptions;
@@ -81,6 +82,36 @@ public class ShellServiceOptions extends ShellServerOptions {
     return (ShellServiceOptions) super.setReaperInterval(reaperInterval);
   }
 
+  @Override
+  public ShellServiceOptions setContextPolicy(ContextPolicy contextPolicy) {
+    return (ShellServiceOptions) super.setContextPolicy(contextPolicy);
+  }
+
+  @Override
+  public ShellServiceOptions setDetachedSessionTimeout(long detachedSessionTimeout) {
+    return (ShellServiceOptions) super.setDetachedSessionTimeout(detachedSessionTimeout);
+  }
+
+  @Override
+  public ShellServiceOptions setJobOutputBufferSize(int jobOutputBufferSize) {
+    return (ShellServiceOptions) super.setJobOutputBufferSize(jobOutputBufferSize);
+  }
+
+  @Override
+  public ShellServiceOptions setSessionOutputBufferLimit(long sessionOutputBufferLimit) {
+    return (ShellServiceOptions) super.setSessionOutputBufferLimit(sessionOutputBufferLimit);
+  }
+
+  @Override
+  public ShellServiceOptions setServerOutputBufferLimit(long serverOutputBufferLimit) {
+    return (ShellServiceOptions) super.setServerOutputBufferLimit(serverOutputBufferLimit);
+  }
+
+  @Override
+  public ShellServiceOptions setProcessTimeout(long processTimeout) {
+    return (ShellServiceOptions) super.setProcessTimeout(processTimeout);
+  }
+
   /**
    * @return the Telnet options
    */
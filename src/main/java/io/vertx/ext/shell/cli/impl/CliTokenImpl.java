@@ -32,20 +32,30 @@
 
 package io.vertx.ext.shell.cli.impl;
 
-import io.termd.core.readline.LineStatus;
 import io.vertx.ext.shell.cli.CliToken;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
+ * A token of a command line.<p/>
+ *
+ * Tokens created by {@link #tokenize(String)} record their offsets in the tokenized line, the raw and value
+ * strings are materialized on demand: the value is unescaped only when the token contains quotes or
+ * escapes, otherwise it is the raw string. An unquoted and unescaped operator is a token of its own: {@literal |}
+ * separates the commands of a pipeline, {@literal >} and {@literal >>} redirect the output of a command to a file.
+ *
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
  */
 public class CliTokenImpl implements CliToken {
 
   final boolean text;
-  final String raw;
-  final String value;
+  private final String line;
+  private final int start;
+  private final int end;
+  private final boolean escaped;
+  private String raw;
+  private String value;
 
   public CliTokenImpl(boolean text, String value) {
     this(text, value, value);
@@ -55,6 +65,18 @@ public class CliTokenImpl implements CliToken {
     this.text = text;
     this.raw = raw;
     this.value = value;
+    this.line = null;
+    this.start = 0;
+    this.end = 0;
+    this.escaped = false;
+  }
+
+  private CliTokenImpl(boolean text, String line, int start, int end, boolean escaped) {
+    this.text = text;
+    this.line = line;
+    this.start = start;
+    this.end = end;
+    this.escaped = escaped;
   }
 
   @Override
@@ -68,16 +90,22 @@ public class CliTokenImpl implements CliToken {
   }
 
   public String raw() {
+    if (raw == null) {
+      raw = line.substring(start, end);
+    }
     return raw;
   }
 
   public String value() {
+    if (value == null) {
+      value = escaped ? unescape(line, start, end) : raw();
+    }
     return value;
   }
 
   @Override
   public int hashCode() {
-    return value.hashCode();
+    return value().hashCode();
   }
 
   @Override
@@ -86,74 +114,120 @@ public class CliTokenImpl implements CliToken {
       return true;
     } else if (obj instanceof CliTokenImpl) {
       CliTokenImpl that = (CliTokenImpl) obj;
-      return text == that.text && value.equals(that.value);
+      return text == that.text && value().equals(that.value());
     }
     return false;
   }
 
   @Override
   public String toString() {
-    return "CliToken[text=" + text + ",value=" + value + "]";
+    return "CliToken[text=" + text + ",value=" + value() + "]";
   }
 
   public static List<CliToken> tokenize(String s) {
-
-    List<CliToken> tokens = new LinkedList<>();
-
-    tokenize(s, 0, tokens);
-
-    return tokens;
-
-  }
-
-  private static void tokenize(String s, int index, List<CliToken> builder) {
-    while (index < s.length()) {
-      char c = s.charAt(index);
-      switch (c) {
-        case ' ':
-        case '\t':
-          index = blankToken(s, index, builder);
-          break;
-        default:
-          index = textToken(s, index, builder);
-          break;
+    List<CliToken> tokens = new ArrayList<>();
+    int index = 0;
+    int len = s.length();
+    while (index < len) {
+      if (isBlank(s.charAt(index))) {
+        int from = index;
+        while (index < len && isBlank(s.charAt(index))) {
+          index++;
+        }
+        tokens.add(new CliTokenImpl(false, s, from, index, false));
+      } else if (s.charAt(index) == '|') {
+        tokens.add(new CliTokenImpl(true, s, index, ++index, false));
+      } else if (s.charAt(index) == '>') {
+        int from = index++;
+        if (index < len && s.charAt(index) == '>') {
+          index++;
+        }
+        tokens.add(new CliTokenImpl(true, s, from, index, false));
+      } else {
+        index = textToken(s, index, tokens);
       }
     }
+    return tokens;
   }
 
-  // Todo use code points and not chars
-  private static int textToken(String s, int index, List<CliToken> builder) {
-    LineStatus quoter = new LineStatus();
+  /**
+   * Scan a text token, a blank or an operator ends the token unless it is quoted or escaped.
+   */
+  private static int textToken(String s, int index, List<CliToken> tokens) {
     int from = index;
-    StringBuilder value = new StringBuilder();
-    while (index < s.length()) {
-      char c = s.charAt(index);
-      quoter.accept(c);
-      if (!quoter.isQuoted() && !quoter.isEscaped() && isBlank(c)) {
-        break;
-      }
-      if (quoter.isCodePoint()) {
-        if (quoter.isEscaped() && quoter.isWeaklyQuoted() && c != '"') {
-          value.append('\\');
+    int len = s.length();
+    int quote = 0;
+    boolean escaping = false;
+    boolean escaped = false;
+    while (index < len) {
+      int cp = s.codePointAt(index);
+      if (escaping) {
+        escaping = false;
+      } else if (quote == '\'') {
+        if (cp == '\'') {
+          quote = 0;
+        }
+      } else if (cp == '\\') {
+        escaping = true;
+        escaped = true;
+      } else if (quote == '"') {
+        if (cp == '"') {
+          quote = 0;
         }
-        value.append(c);
+      } else if (cp == '"' || cp == '\'') {
+        quote = cp;
+        escaped = true;
+      } else if (isBlank(cp) || cp == '|' || cp == '>') {
+        break;
       }
-      index++;
+      index += Character.charCount(cp);
     }
-    builder.add(new CliTokenImpl(true, s.substring(from, index), value.toString()));
+    tokens.add(new CliTokenImpl(true, s, from, index, escaped));
     return index;
   }
 
-  private static int blankToken(String s, int index, List<CliToken> builder) {
-    int from = index;
-    while (index < s.length() && isBlank(s.charAt(index))) {
-      index++;
+  /**
+   * Compute the value of a token: quotes are removed, a backslash escapes the next code point except within
+   * single quotes, within double quotes it only escapes a double quote.
+   */
+  private static String unescape(String s, int start, int end) {
+    StringBuilder value = new StringBuilder(end - start);
+    int quote = 0;
+    boolean escaping = false;
+    int index = start;
+    while (index < end) {
+      int cp = s.codePointAt(index);
+      index += Character.charCount(cp);
+      if (escaping) {
+        escaping = false;
+        if (quote == '"' && cp != '"') {
+          value.append('\\');
+        }
+        value.appendCodePoint(cp);
+      } else if (quote == '\'') {
+        if (cp == '\'') {
+          quote = 0;
+        } else {
+          value.appendCodePoint(cp);
+        }
+      } else if (cp == '\\') {
+        escaping = true;
+      } else if (quote == '"') {
+        if (cp == '"') {
+          quote = 0;
+        } else {
+          value.appendCodePoint(cp);
+        }
+      } else if (cp == '"' || cp == '\'') {
+        quote = cp;
+      } else {
+        value.appendCodePoint(cp);
+      }
     }
-    builder.add(new CliTokenImpl(false, s.substring(from, index)));
-    return index;
+    return value.toString();
   }
 
-  private static boolean isBlank(char c) {
+  private static boolean isBlank(int c) {
     return c == ' ' || c == '\t';
   }
 }
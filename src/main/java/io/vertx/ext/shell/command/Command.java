@@ -35,6 +35,7 @@ package io.vertx.ext.shell.command;
 import io.vertx.codegen.annotations.GenIgnore;
 import io.vertx.codegen.annotations.VertxGen;
 import io.vertx.core.Context;
+import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import io.vertx.core.cli.CLI;
 import io.vertx.core.cli.Option;
@@ -57,8 +58,10 @@ import java.util.List;
 public interface Command {
 
   /**
-   * Create a command from a Java class, annotated with Vert.x Core CLI annotations.
+   * Create a command from a Java class, annotated with Vert.x Core CLI annotations.<p/>
    *
+   * The class is introspected once by this method, each process or completion then creates a new instance of the class.
+   * The process method of a class annotated with {@link Blocking} is called with a thread of its own.
    *
    * @param vertx the vertx instance
    * @param clazz the class of the command
@@ -67,8 +70,9 @@ public interface Command {
   @GenIgnore
   static Command create(Vertx vertx, Class<? extends AnnotatedCommand> clazz) {
     Context context = vertx.getOrCreateContext();
-    CLI cli = CLIConfigurator.define(clazz);
-    cli.addOption(new Option().setArgName("help").setFlag(true).setShortName("h").setLongName("help").setDescription("this help").setHelp(true));
+    AnnotatedCommandFactory factory = AnnotatedCommandFactory.create(clazz);
+    CLI defined = CLIConfigurator.define(clazz);
+    defined.addOption(new Option().setArgName("help").setFlag(true).setShortName("h").setLongName("help").setDescription("this help").setHelp(true));
 
     boolean tmp = false;
     try {
@@ -86,55 +90,65 @@ public interface Command {
     }
     boolean overridesCli = tmp;
 
-    return new Command() {
-
-      @Override
-      public String name() {
+    // Resolve the overridden name and cli once
+    String name = defined.getName();
+    CLI cli = defined;
+    if (overridesName || overridesCli) {
+      AnnotatedCommand prototype = factory.newInstance();
+      if (prototype != null) {
         if (overridesName) {
           try {
-            return clazz.newInstance().name();
+            name = prototype.name();
           } catch (Exception ignore) {
             // Use cli.getName() instead
           }
         }
-        return cli.getName();
-      }
-
-      @Override
-      public CLI cli() {
         if (overridesCli) {
           try {
-            return clazz.newInstance().cli();
+            cli = prototype.cli();
           } catch (Exception ignore) {
             // Use cli instead
           }
         }
-        return cli;
+      }
+    }
+    String resolvedName = name;
+    CLI resolvedCli = cli;
+    Handler<CommandProcess> processHandler = process -> {
+      AnnotatedCommand instance = factory.newInstance();
+      if (instance == null) {
+        process.end();
+        return;
+      }
+      factory.inject(process.commandLine(), instance);
+      instance.process(process);
+    };
+    if (clazz.isAnnotationPresent(Blocking.class)) {
+      processHandler = BlockingExecutor.processHandler(processHandler);
+    }
+    Handler<CommandProcess> resolvedProcessHandler = processHandler;
+
+    return new Command() {
+
+      @Override
+      public String name() {
+        return resolvedName;
       }
 
-      private void process(CommandProcess process) {
-        AnnotatedCommand instance;
-        try {
-          instance = clazz.newInstance();
-        } catch (Exception e) {
-          process.end();
-          return;
-        }
-        CLIConfigurator.inject(process.commandLine(), instance);
-        instance.process(process);
+      @Override
+      public CLI cli() {
+        return resolvedCli;
       }
 
       @Override
       public Process createProcess(List<CliToken> args) {
-        return new ProcessImpl(vertx, context, this, args, this::process);
+        return new ProcessImpl(vertx, context, this, args, resolvedProcessHandler);
       }
 
       @Override
       public void complete(Completion completion) {
-        AnnotatedCommand instance;
-        try {
-          instance = clazz.newInstance();
-        } catch (Exception e) {
+        AnnotatedCommand instance = factory.newInstance();
+        if (instance == null) {
           Command.super.complete(completion);
           return;
         }
@@ -39,6 +39,7 @@ import io.vertx.core.Vertx;
 import io.vertx.core.cli.CLI;
 import io.vertx.ext.shell.cli.Completion;
 import io.vertx.ext.shell.command.impl.CommandBuilderImpl;
+import io.vertx.ext.shell.system.ContextPolicy;
 
 /**
  * A build for Vert.x Shell command.
@@ -79,6 +80,19 @@ public interface CommandBuilder {
   @Fluent
   CommandBuilder processHandler(Handler<CommandProcess> handler);
 
+  /**
+   * Set a blocking command process handler, the process handler is called when the command is executed with a thread
+   * of its own, a virtual thread when the JVM supports them, instead of the process context: it can block and write
+   * to the process synchronously. The other process handlers are still called on the process context.<p/>
+   *
+   * This replaces the {@link #processHandler process handler}.
+   *
+   * @param handler the process handler
+   * @return this command object
+   */
+  @Fluent
+  CommandBuilder blockingProcessHandler(Handler<CommandProcess> handler);
+
   /**
    * Set the command completion handler, the completion handler when the user asks for contextual command line
    * completion, usually hitting the <i>tab</i> key.
@@ -89,6 +103,27 @@ public interface CommandBuilder {
   @Fluent
   CommandBuilder completionHandler(Handler<Completion> handler);
 
+  /**
+   * Set the policy choosing the context on which the command processes execute, when it is not set the shell server
+   * {@link io.vertx.ext.shell.ShellServerOptions#setContextPolicy default policy} applies.
+   *
+   * @param policy the context policy
+   * @return this command object
+   */
+  @Fluent
+  CommandBuilder contextPolicy(ContextPolicy policy);
+
+  /**
+   * Set the time the command processes can run, when it expires the process is interrupted and then terminated. When
+   * it is not set the shell server {@link io.vertx.ext.shell.ShellServerOptions#setProcessTimeout default timeout}
+   * applies, a value {@code <= 0} lets the processes run without time limit.
+   *
+   * @param timeout the timeout in ms
+   * @return this command object
+   */
+  @Fluent
+  CommandBuilder timeout(long timeout);
+
   /**
    * Build the command
    *
@@ -35,6 +35,7 @@ package io.vertx.ext.shell.command;
 import io.vertx.codegen.annotations.Fluent;
 import io.vertx.codegen.annotations.VertxGen;
 import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.Vertx;
 import io.vertx.core.cli.CommandLine;
 import io.vertx.ext.shell.session.Session;
@@ -84,6 +85,21 @@ public interface CommandProcess extends Tty {
   @Fluent
   CommandProcess stdinHandler(Handler<String> handler);
 
+  /**
+   * Set a stream handler on the standard input to read the raw bytes, the handler replaces the handler set by
+   * {@link #stdinHandler}. The input is delivered as received when the terminal transport supports it, e.g
+   * telnet, otherwise it is encoded with the charset of the terminal. The interrupt and suspend keys are still
+   * delivered to the {@link #interruptHandler interrupt} and {@link #suspendHandler suspend} handlers.
+   *
+   * @param handler the standard input handler
+   * @return this command
+   */
+  @Fluent
+  CommandProcess stdinBufferHandler(Handler<Buffer> handler);
+
+  @Fluent
+  CommandProcess stdinEndHandler(Handler<Void> handler);
+
   /**
    * Set an interrupt handler, this handler is called when the command is interrupted, for instance user
    * press <code>Ctrl-C</code>.
@@ -133,6 +149,15 @@ public interface CommandProcess extends Tty {
   @Fluent
   CommandProcess write(String data);
 
+  /**
+   * Write some bytes to the standard output, the bytes bypass the charset encoding when the terminal supports it.
+   *
+   * @param data the bytes
+   * @return a reference to this, so the API can be used fluently
+   */
+  @Fluent
+  CommandProcess write(Buffer data);
+
   /**
    * Set a background handler, this handler is called when the command is running and put to background.
    *
@@ -154,6 +179,19 @@ public interface CommandProcess extends Tty {
   @Override
   CommandProcess resizehandler(Handler<Void> handler);
 
+  /**
+   * Set a drain handler, this handler is called when the output of the process is ready to accept more data
+   * after {@link #writeQueueFull()} returned {@code true}.
+   *
+   * @param handler the drain handler
+   * @return this command
+   */
+  @Override
+  CommandProcess drainHandler(Handler<Void> handler);
+
+  @Override
+  CommandProcess setWriteQueueMaxSize(int maxSize);
+
   /**
    * End the process with the exit status {@literal 0}
    */
@@ -36,16 +36,19 @@ import io.vertx.codegen.annotations.GenIgnore;
 import io.vertx.core.Vertx;
 import io.vertx.ext.shell.command.AnnotatedCommand;
 import io.vertx.ext.shell.command.Command;
-import io.vertx.ext.shell.command.CommandResolver;
+import io.vertx.ext.shell.command.impl.VersionedCommandResolver;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
  */
-public class BaseCommandPack implements CommandResolver {
+public class BaseCommandPack implements VersionedCommandResolver {
 
   /**
    * @return the list of base command classes
@@ -70,10 +73,17 @@ public class BaseCommandPack implements CommandResolver {
     list.add(VerticleDeploy.class);
     list.add(VerticleUndeploy.class);
     list.add(VerticleFactories.class);
+    list.add(Grep.class);
+    list.add(Head.class);
+    list.add(Tail.class);
+    list.add(WordCount.class);
+    list.add(Uniq.class);
     return list;
   }
 
   final Vertx vertx;
+  private volatile List<Command> commands;
+  private volatile Map<String, Command> commandMap;
 
   public BaseCommandPack(Vertx vertx) {
     this.vertx = vertx;
@@ -81,9 +91,29 @@ public class BaseCommandPack implements CommandResolver {
 
   @Override
   public List<Command> commands() {
-    return baseCommandClasses().
-        stream().
-        map(clazz -> Command.create(vertx, clazz)).
-        collect(Collectors.toList());
+    List<Command> list = commands;
+    if (list == null) {
+      list = Collections.unmodifiableList(baseCommandClasses().
+          stream().
+          map(clazz -> Command.create(vertx, clazz)).
+          collect(Collectors.toList()));
+      Map<String, Command> map = new HashMap<>();
+      for (Command command : list) {
+        map.putIfAbsent(command.name(), command);
+      }
+      commandMap = map;
+      commands = list;
+    }
+    return list;
+  }
+
+  @Override
+  public Command getCommand(String name) {
+    Map<String, Command> map = commandMap;
+    if (map == null) {
+      commands();
+      map = commandMap;
+    }
+    return map.get(name);
   }
 }
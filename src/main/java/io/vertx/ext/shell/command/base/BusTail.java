@@ -47,8 +47,8 @@ import io.vertx.core.eventbus.MessageConsumer;
 import io.vertx.ext.shell.command.AnnotatedCommand;
 import io.vertx.ext.shell.command.CommandProcess;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
@@ -82,7 +82,8 @@ public class BusTail extends AnnotatedCommand {
   @Override
   public void process(CommandProcess process) {
     EventBus eb = process.vertx().eventBus();
-    List<MessageConsumer<Object>> consumers = addresses.stream().map(address -> {
+    List<MessageConsumer<Object>> consumers = new ArrayList<>();
+    for (String address : addresses) {
       Handler<Message<Object>> handler = msg -> {
         Object body = msg.body();
         String bodyString;
@@ -102,9 +103,16 @@ public class BusTail extends AnnotatedCommand {
         } else {
           process.write(address + ":" + bodyString + "\n");
         }
+        if (process.writeQueueFull()) {
+          // Stop consuming until the output is drained
+          consumers.forEach(MessageConsumer::pause);
+        }
       };
-      return local ? eb.localConsumer(address, handler) : eb.consumer(address, handler);
-    }).collect(Collectors.toList());
+      consumers.add(local ? eb.localConsumer(address, handler) : eb.consumer(address, handler));
+    }
+    process.drainHandler(v -> {
+      consumers.forEach(MessageConsumer::resume);
+    });
     process.interruptHandler(done -> {
       process.end();
     });
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.command.base;
+
+import io.vertx.ext.shell.session.Session;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * A per session cache of directory listings used by the file system completion.<p/>
+ *
+ * A listing is used as is during its time to live, after that it is revalidated against the directory last
+ * modification time and read again only when the directory changed. The least recently used listings are evicted
+ * when the cache holds too many directories or too many entries.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+class DirectoryCache {
+
+  /**
+   * The session key of the cache.
+   */
+  static final String SESSION_KEY = "vert.x-fs-completion-cache";
+
+  static final long DEFAULT_TTL = 2000;
+  static final int DEFAULT_MAX_DIRECTORIES = 32;
+  static final int DEFAULT_MAX_ENTRIES = 200_000;
+
+  /**
+   * The resolution of the directory modification time can be coarse, a listing read less than this delay after
+   * the directory was modified might miss a later modification with the same time and is always read again.
+   */
+  private static final long MTIME_RESOLUTION = 1000;
+
+  static DirectoryCache get(Session session) {
+    DirectoryCache cache = session.get(SESSION_KEY);
+    if (cache == null) {
+      cache = new DirectoryCache(DEFAULT_TTL, DEFAULT_MAX_DIRECTORIES, DEFAULT_MAX_ENTRIES);
+      session.put(SESSION_KEY, cache);
+    }
+    return cache;
+  }
+
+  /**
+   * The entries of a directory sorted by name.
+   */
+  static class Listing {
+
+    final String[] names;
+    final boolean[] directories;
+    final boolean[] regularFiles;
+    final long lastModified;
+    final boolean trusted;
+    volatile long validatedAt;
+
+    private Listing(String[] names, boolean[] directories, boolean[] regularFiles, long lastModified, long readAt) {
+      this.names = names;
+      this.directories = directories;
+      this.regularFiles = regularFiles;
+      this.lastModified = lastModified;
+      this.trusted = readAt - lastModified >= MTIME_RESOLUTION;
+      this.validatedAt = readAt;
+    }
+
+    /**
+     * @return the index of the first name greater or equal than the {@code prefix}
+     */
+    int lowerBound(String prefix) {
+      int index = Arrays.binarySearch(names, prefix);
+      return index < 0 ? -(index + 1) : index;
+    }
+  }
+
+  private static class Entry {
+
+    final String name;
+    final boolean directory;
+    final boolean regularFile;
+
+    Entry(String name, boolean directory, boolean regularFile) {
+      this.name = name;
+      this.directory = directory;
+      this.regularFile = regularFile;
+    }
+  }
+
+  private final long ttl;
+  private final int maxDirectories;
+  private final int maxEntries;
+  private final LinkedHashMap<Path, Listing> listings = new LinkedHashMap<>(16, 0.75f, true);
+  private int entries;
+
+  DirectoryCache(long ttl, int maxDirectories, int maxEntries) {
+    this.ttl = ttl;
+    this.maxDirectories = maxDirectories;
+    this.maxEntries = maxEntries;
+  }
+
+  /**
+   * @return the listing of the directory when it is still within its time to live, without any file system access
+   */
+  synchronized Listing get(Path dir) {
+    Listing listing = listings.get(dir);
+    if (listing != null && System.currentTimeMillis() - listing.validatedAt < ttl) {
+      return listing;
+    }
+    return null;
+  }
+
+  /**
+   * Revalidate or read the listing of a directory, this method blocks.
+   */
+  Listing load(FsHelper helper, Path dir) throws IOException {
+    long now = System.currentTimeMillis();
+    long lastModified = Files.getLastModifiedTime(dir).toMillis();
+    Listing listing;
+    synchronized (this) {
+      listing = listings.get(dir);
+    }
+    if (listing != null && listing.trusted && listing.lastModified == lastModified) {
+      listing.validatedAt = now;
+      return listing;
+    }
+    List<Entry> read = new ArrayList<>();
+    helper.list(dir, (path, attrs) -> {
+      boolean directory = attrs.isDirectory();
+      boolean regularFile = attrs.isRegularFile();
+      if (attrs.isSymbolicLink()) {
+        // A link is completed like its target
+        directory = Files.isDirectory(path);
+        regularFile = Files.isRegularFile(path);
+      }
+      read.add(new Entry(path.getFileName().toString(), directory, regularFile));
+      return true;
+    });
+    read.sort(Comparator.comparing(entry -> entry.name));
+    String[] sorted = new String[read.size()];
+    boolean[] directories = new boolean[sorted.length];
+    boolean[] regularFiles = new boolean[sorted.length];
+    for (int i = 0;i < sorted.length;i++) {
+      Entry entry = read.get(i);
+      sorted[i] = entry.name;
+      directories[i] = entry.directory;
+      regularFiles[i] = entry.regularFile;
+    }
+    listing = new Listing(sorted, directories, regularFiles, lastModified, now);
+    put(dir, listing);
+    return listing;
+  }
+
+  private synchronized void put(Path dir, Listing listing) {
+    Listing previous = listings.remove(dir);
+    if (previous != null) {
+      entries -= previous.names.length;
+    }
+    if (listing.names.length > maxEntries) {
+      return;
+    }
+    listings.put(dir, listing);
+    entries += listing.names.length;
+    Iterator<Listing> it = listings.values().iterator();
+    while (listings.size() > maxDirectories || entries > maxEntries) {
+      entries -= it.next().names.length;
+      it.remove();
+    }
+  }
+
+  synchronized int size() {
+    return listings.size();
+  }
+}
@@ -38,27 +38,48 @@ import io.vertx.core.cli.annotations.Description;
 import io.vertx.core.cli.annotations.Name;
 import io.vertx.core.cli.annotations.Option;
 import io.vertx.core.cli.annotations.Summary;
-import io.vertx.core.file.FileProps;
 import io.vertx.ext.shell.cli.Completion;
 import io.vertx.ext.shell.command.AnnotatedCommand;
 import io.vertx.ext.shell.command.CommandProcess;
+import io.vertx.ext.shell.command.impl.BlockingExecutor;
 
-import java.util.AbstractMap;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.Date;
-import java.util.Map;
-import java.util.function.Function;
-import java.util.stream.Stream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
+ * List a directory, the entries are read with their attributes in a single pass and written page by page as they
+ * are read. Without sort the listing is in the directory order and uses a single page of memory, with a sort and a
+ * limit only the first {@code limit} entries are retained. The listing does not hold a thread while the process
+ * is suspended or its output is full.
+ *
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
  */
 @Name("ls")
 @Summary("List directory content")
 public class FileSystemLs extends AnnotatedCommand {
 
+  static final int PAGE_SIZE = 1024;
+
   private boolean ell;
   private String file;
   private boolean all;
+  private int limit = -1;
+  private String sort;
+  private boolean reverse;
 
   @Option(shortName = "l", flag = true)
   @Description("list in long format")
@@ -79,58 +100,289 @@ public class FileSystemLs extends AnnotatedCommand {
     this.all = all;
   }
 
+  @Option(longName = "limit", argName = "count")
+  @Description("list at most count entries")
+  public void setLimit(int limit) {
+    this.limit = limit;
+  }
+
+  @Option(longName = "sort", argName = "key")
+  @Description("sort by name, size (largest first) or time (newest first), the directory order is used otherwise")
+  public void setSort(String sort) {
+    this.sort = sort;
+  }
+
+  @Option(longName = "reverse", shortName = "r", flag = true)
+  @Description("reverse the sort order")
+  public void setReverse(boolean reverse) {
+    this.reverse = reverse;
+  }
+
+  private static class Entry {
+
+    final String name;
+    final BasicFileAttributes attrs;
+
+    Entry(String name, BasicFileAttributes attrs) {
+      this.name = name;
+      this.attrs = attrs;
+    }
+  }
+
   @Override
   public void process(CommandProcess process) {
-    new FsHelper().ls(process.vertx(),
-        process.session().get("cwd"),
-        file,
-        ar -> {
-          if (ar.succeeded()) {
-            Map<String, FileProps> result = ar.result();
-            if (result.size() > 0) {
-              Stream<Map.Entry<String, FileProps>> entries = result.entrySet().stream();
-
-              // Keep only name
-              entries = entries.map(entry -> new AbstractMap.SimpleEntry<>(entry.getKey().substring(entry.getKey().lastIndexOf('/') + 1), entry.getValue()));
-
-              // Filter -a option
-              if (!all) {
-                entries = entries.filter(entry -> !entry.getKey().startsWith("."));
-              }
+    Comparator<Entry> comparator;
+    if (sort == null) {
+      comparator = null;
+    } else {
+      switch (sort) {
+        case "name":
+          comparator = Comparator.comparing(entry -> entry.name);
+          break;
+        case "size":
+          comparator = Comparator.<Entry>comparingLong(entry -> entry.attrs.size()).reversed();
+          break;
+        case "time":
+          comparator = Comparator.<Entry>comparingLong(entry -> entry.attrs.lastModifiedTime().toMillis()).reversed();
+          break;
+        default:
+          process.write("ls: invalid sort key " + sort + ", expected name, size or time\n");
+          process.end(1);
+          return;
+      }
+      if (reverse) {
+        comparator = comparator.reversed();
+      }
+    }
+    FsHelper helper = new FsHelper();
+    Path dir = helper.resolve(process.session().get("cwd"), file);
+    new Listing(process, helper, dir, comparator).schedule();
+  }
 
-              // Format name
-              Function<Map.Entry<String, FileProps>, String> formatter;
-              if (ell) {
-                int width = result.values().stream().map(FileProps::size).max(Long::compare).get().toString().length();
-                String format = "%1$s %2$" + width + "s %3$tb %3$2te %3$tH:%3$tM %4$s";
-                formatter = entry -> {
-                  FileProps props = entry.getValue();
-                  String a;
-                  if (props.isDirectory()) {
-                    a = "d";
-                  } else if (props.isSymbolicLink()) {
-                    a = "l";
-                  } else {
-                    a = "-";
-                  }
-                  return String.format(format, a, props.size(), new Date(props.lastModifiedTime()), entry.getKey());
-                };
-              } else {
-                formatter = Map.Entry::getKey;
-              }
+  /**
+   * The state of a listing. The listing runs with a blocking thread and writes the entries page by page, it returns
+   * the thread when the process write queue is full or the process is suspended and it is continued by the drain
+   * and resume handlers. It stops when the process is interrupted or terminated.
+   */
+  private class Listing {
+
+    private final CommandProcess process;
+    private final FsHelper helper;
+    private final Path dir;
+    private final Comparator<Entry> comparator;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicInteger resumes = new AtomicInteger();
+    private volatile boolean interrupted;
+    private volatile int suspendedAt = -1; // The resume count when a write failed because of a suspension
+    private DirectoryStream<Path> stream;
+    private Iterator<Entry> entries;
+    private String pending;
+    private int count;
+
+    Listing(CommandProcess process, FsHelper helper, Path dir, Comparator<Entry> comparator) {
+      this.process = process;
+      this.helper = helper;
+      this.dir = dir;
+      this.comparator = comparator;
+      process.drainHandler(v -> schedule());
+      process.resumeHandler(v -> {
+        resumes.incrementAndGet();
+        schedule();
+      });
+      process.interruptHandler(v -> {
+        interrupted = true;
+        schedule();
+      });
+      process.endHandler(v -> {
+        interrupted = true;
+        schedule();
+      });
+    }
+
+    void schedule() {
+      if (running.compareAndSet(false, true)) {
+        try {
+          BlockingExecutor.execute(process.vertx(), this::run);
+        } catch (RejectedExecutionException e) {
+          process.write("ls: too many blocking commands running\n");
+          process.end(1);
+        }
+      }
+    }
+
+    private boolean blocked() {
+      return process.writeQueueFull() || suspendedAt == resumes.get();
+    }
 
-              // Here we go
-              entries.map(formatter).forEach(file -> {
-                process.write(file + "\n");
-              });
-            } else {
-              process.write("ls:" + ar.cause().getMessage() + "\n");
+    private void run() {
+      try {
+        if (entries == null) {
+          entries = open();
+        }
+        while (true) {
+          if (interrupted) {
+            break;
+          }
+          if (blocked()) {
+            running.set(false);
+            // Continue when a drain or a resume happened before the listing was released
+            if ((interrupted || !blocked()) && running.compareAndSet(false, true)) {
+              continue;
+            }
+            return;
+          }
+          if (pending == null) {
+            pending = nextPage();
+            if (pending == null) {
+              break;
+            }
+          }
+          int resumed = resumes.get();
+          try {
+            process.write(pending);
+            pending = null;
+          } catch (IllegalStateException e) {
+            // Suspended or terminated meanwhile, the write is retried on resume
+            suspendedAt = resumed;
+          }
+        }
+      } catch (IOException e) {
+        error(e);
+      } catch (DirectoryIteratorException e) {
+        error(e.getCause());
+      }
+      close();
+      process.end();
+    }
+
+    private void error(IOException e) {
+      try {
+        process.write("ls: " + e.getMessage() + "\n");
+      } catch (IllegalStateException ignore) {
+        // Terminated
+      }
+    }
+
+    /**
+     * Open the listing: without sort the entries are read as they are written, otherwise they are all read and
+     * sorted, with a limit only the first {@code limit} entries are retained.
+     */
+    private Iterator<Entry> open() throws IOException {
+      stream = helper.open(dir);
+      Iterator<Path> paths = stream.iterator();
+      if (comparator == null) {
+        return new Iterator<Entry>() {
+          Entry next;
+          @Override
+          public boolean hasNext() {
+            while (next == null && (limit < 0 || count < limit) && paths.hasNext()) {
+              Path path = paths.next();
+              String name = path.getFileName().toString();
+              BasicFileAttributes attrs;
+              if ((all || !name.startsWith(".")) && (attrs = helper.attributes(path)) != null) {
+                next = new Entry(name, attrs);
+                count++;
+              }
             }
+            return next != null;
+          }
+          @Override
+          public Entry next() {
+            if (!hasNext()) {
+              throw new NoSuchElementException();
+            }
+            Entry entry = next;
+            next = null;
+            return entry;
+          }
+        };
+      }
+      Collection<Entry> read;
+      if (limit >= 0) {
+        // Keep the first entries in a heap ordered from the last to the first one
+        PriorityQueue<Entry> heap = new PriorityQueue<>(Math.max(1, limit + 1), comparator.reversed());
+        read = heap;
+        while (!interrupted && paths.hasNext()) {
+          Entry entry = read(paths.next());
+          if (entry != null) {
+            heap.add(entry);
+            if (heap.size() > limit) {
+              heap.poll();
+            }
+          }
+        }
+      } else {
+        read = new ArrayList<>();
+        while (!interrupted && paths.hasNext()) {
+          Entry entry = read(paths.next());
+          if (entry != null) {
+            read.add(entry);
+          }
+        }
+      }
+      close();
+      List<Entry> sorted = new ArrayList<>(read);
+      sorted.sort(comparator);
+      return sorted.iterator();
+    }
+
+    private Entry read(Path path) {
+      String name = path.getFileName().toString();
+      if (!all && name.startsWith(".")) {
+        return null;
+      }
+      BasicFileAttributes attrs = helper.attributes(path);
+      return attrs != null ? new Entry(name, attrs) : null;
+    }
+
+    private void close() {
+      if (stream != null) {
+        try {
+          stream.close();
+        } catch (IOException ignore) {
+          // Ignore
+        }
+        stream = null;
+      }
+    }
+
+    /**
+     * @return the next page or {@code null} when the listing is done
+     */
+    private String nextPage() {
+      List<Entry> page = new ArrayList<>();
+      while (page.size() < PAGE_SIZE && entries.hasNext()) {
+        page.add(entries.next());
+      }
+      if (page.isEmpty()) {
+        return null;
+      }
+      StringBuilder buffer = new StringBuilder();
+      if (ell) {
+        long max = 0;
+        for (Entry entry : page) {
+          max = Math.max(max, entry.attrs.size());
+        }
+        String format = "%1$s %2$" + Long.toString(max).length() + "s %3$tb %3$2te %3$tH:%3$tM %4$s\n";
+        for (Entry entry : page) {
+          BasicFileAttributes attrs = entry.attrs;
+          String a;
+          if (attrs.isDirectory()) {
+            a = "d";
+          } else if (attrs.isSymbolicLink()) {
+            a = "l";
           } else {
-            process.write("ls: " + ar.cause().getMessage() + "\n");
+            a = "-";
           }
-          process.end();
-        });
+          buffer.append(String.format(format, a, attrs.size(), new Date(attrs.lastModifiedTime().toMillis()), entry.name));
+        }
+      } else {
+        for (Entry entry : page) {
+          buffer.append(entry.name).append('\n');
+        }
+      }
+      return buffer.toString();
+    }
   }
 
   @Override
@@ -36,17 +36,25 @@ import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
-import io.vertx.core.file.FileProps;
 import io.vertx.core.file.FileSystem;
 import io.vertx.ext.shell.cli.Completion;
+import io.vertx.ext.shell.command.impl.BlockingExecutor;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.BiPredicate;
 
 /**
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
@@ -75,21 +83,60 @@ class FsHelper {
     });
   }
 
-  void ls(Vertx vertx, String currentFile, String pathArg, Handler<AsyncResult<Map<String, FileProps>>> filesHandler) {
-    Path base = currentFile != null ? new File(currentFile).toPath() : rootDir;
-    String path = base.resolve(pathArg).toAbsolutePath().normalize().toString();
-    vertx.executeBlocking(fut -> {
-      FileSystem fs = vertx.fileSystem();
-      if (fs.propsBlocking(path).isDirectory()) {
-        LinkedHashMap<String, FileProps> result = new LinkedHashMap<>();
-        for (String file : fs.readDirBlocking(path)) {
-          result.put(file, fs.propsBlocking(file));
-        }
-        fut.complete(result);
-      } else {
-        throw new RuntimeException(path + ": No such file or directory");
+  Path resolve(String currentPath, String pathArg) {
+    Path base = currentPath != null ? new File(currentPath).toPath() : rootDir;
+    return base.resolve(pathArg).toAbsolutePath().normalize();
+  }
+
+  /**
+   * List the entries of a directory in a single pass, the attributes of an entry are read along with the entry
+   * and symbolic links are not followed. This method blocks.
+   *
+   * @param dir the directory
+   * @param visitor the entry visitor, returns {@code false} to stop the listing
+   */
+  void list(Path dir, BiPredicate<Path, BasicFileAttributes> visitor) throws IOException {
+    if (!Files.isDirectory(dir)) {
+      throw new NoSuchFileException(dir.toString(), null, "No such file or directory");
+    }
+    Files.walkFileTree(dir, Collections.emptySet(), 1, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+        return visitor.test(file, attrs) ? FileVisitResult.CONTINUE : FileVisitResult.TERMINATE;
       }
-    }, filesHandler);
+      @Override
+      public FileVisitResult visitFileFailed(Path file, IOException exc) {
+        // Skip the entries we cannot read
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  /**
+   * Open a directory to list its entries incrementally, the stream must be closed. This method blocks.
+   *
+   * @param dir the directory
+   * @return the directory stream
+   */
+  DirectoryStream<Path> open(Path dir) throws IOException {
+    if (!Files.isDirectory(dir)) {
+      throw new NoSuchFileException(dir.toString(), null, "No such file or directory");
+    }
+    return Files.newDirectoryStream(dir);
+  }
+
+  /**
+   * Read the attributes of a directory entry, symbolic links are not followed. This method blocks.
+   *
+   * @param path the entry
+   * @return the attributes or {@code null} when the entry cannot be read
+   */
+  BasicFileAttributes attributes(Path path) {
+    try {
+      return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+    } catch (IOException e) {
+      return null;
+    }
   }
 
   Handler<Completion> completionHandler() {
@@ -101,7 +148,8 @@ class FsHelper {
       } else {
         last = "";
       }
-      complete(completion.vertx(), completion.session().get("path"), last, result -> {
+      DirectoryCache cache = DirectoryCache.get(completion.session());
+      complete(completion.vertx(), cache, completion.session().get("cwd"), last, result -> {
         if (result.succeeded()) {
           Map<String, Boolean> matches = result.result();
           switch (matches.size()) {
@@ -123,50 +171,53 @@ class FsHelper {
     };
   }
 
-  void complete(Vertx vertx, String currentPath, String _prefix, Handler<AsyncResult<Map<String, Boolean>>> handler) {
-    vertx.executeBlocking(fut -> {
+  void complete(Vertx vertx, String currentPath, String prefix, Handler<AsyncResult<Map<String, Boolean>>> handler) {
+    complete(vertx, new DirectoryCache(0, 1, DirectoryCache.DEFAULT_MAX_ENTRIES), currentPath, prefix, handler);
+  }
 
-      FileSystem fs = vertx.fileSystem();
-      Path base = (currentPath != null ? new File(currentPath).toPath() : rootDir);
+  /**
+   * Complete a path, the directory listing is read from the {@code cache} when possible.
+   */
+  void complete(Vertx vertx, DirectoryCache cache, String currentPath, String _prefix, Handler<AsyncResult<Map<String, Boolean>>> handler) {
+    Path base = (currentPath != null ? new File(currentPath).toPath() : rootDir);
+    int index = _prefix.lastIndexOf('/');
+    String prefix;
+    if (index == 0) {
+      handler.handle(Future.failedFuture("todo"));
+      return;
+    } else if (index > 0) {
+      base = base.resolve(_prefix.substring(0, index));
+      prefix = _prefix.substring(index + 1);
+    } else {
+      prefix = _prefix;
+    }
+    Path dir = base.toAbsolutePath().normalize();
+    DirectoryCache.Listing listing = cache.get(dir);
+    if (listing != null) {
+      handler.handle(Future.succeededFuture(matches(listing, prefix)));
+    } else {
+      BlockingExecutor.executeBlocking(vertx.getOrCreateContext(), () -> matches(cache.load(this, dir), prefix), handler);
+    }
+  }
 
-      int index = _prefix.lastIndexOf('/');
-      String prefix;
-      if (index == 0) {
-        handler.handle(Future.failedFuture("todo"));
-        return;
-      } else if (index > 0) {
-        base = base.resolve(_prefix.substring(0, index));
-        prefix = _prefix.substring(index + 1);
+  private static Map<String, Boolean> matches(DirectoryCache.Listing listing, String prefix) {
+    Map<String, Boolean> matches = new LinkedHashMap<>();
+    for (int i = listing.lowerBound(prefix);i < listing.names.length && listing.names[i].startsWith(prefix);i++) {
+      matches.put(listing.names[i].substring(prefix.length()) + (listing.directories[i] ? "/" : ""), listing.regularFiles[i]);
+    }
+    if (matches.size() > 1) {
+      String common = Completion.findLongestCommonPrefix(matches.keySet());
+      if (common.length() > 0) {
+        matches.clear();
+        matches.put(common, false);
       } else {
-        prefix = _prefix;
-      }
-
-      LinkedHashMap<String, Boolean> matches = new LinkedHashMap<>();
-      for (String path : fs.readDirBlocking(base.toAbsolutePath().normalize().toString())) {
-        String name = path.substring(path.lastIndexOf('/') + 1);
-        if (name.startsWith(prefix)) {
-          FileProps props = fs.propsBlocking(path);
-          matches.put(name.substring(prefix.length()) + (props.isDirectory() ? "/" : ""), props.isRegularFile());
-        }
-      }
-
-      if (matches.size() > 1) {
-        String common = Completion.findLongestCommonPrefix(matches.keySet());
-        if (common.length() > 0) {
-          matches.clear();
-          matches.put(common, false);
-        } else {
-          LinkedHashMap<String, Boolean> tmp = new LinkedHashMap<>();
-          matches.forEach((suffix, terminal) -> {
-            tmp.put(prefix + suffix, terminal);
-          });
-          matches = tmp;
-        }
+        Map<String, Boolean> tmp = new LinkedHashMap<>();
+        matches.forEach((suffix, terminal) -> {
+          tmp.put(prefix + suffix, terminal);
+        });
+        matches = tmp;
       }
-
-      fut.complete(matches);
-    }, handler);
-
-
+    }
+    return matches;
   }
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.command.base;
+
+import io.vertx.core.cli.annotations.Argument;
+import io.vertx.core.cli.annotations.Description;
+import io.vertx.core.cli.annotations.Name;
+import io.vertx.core.cli.annotations.Option;
+import io.vertx.core.cli.annotations.Summary;
+import io.vertx.ext.shell.command.CommandProcess;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+@Name("grep")
+@Summary("Print the lines of the standard input matching a regular expression")
+public class Grep extends LineFilter {
+
+  private String pattern;
+  private boolean invert;
+  private boolean ignoreCase;
+  private Matcher matcher;
+  private boolean selected;
+
+  @Argument(index = 0, argName = "pattern")
+  @Description("the regular expression")
+  public void setPattern(String pattern) {
+    this.pattern = pattern;
+  }
+
+  @Option(longName = "invert-match", shortName = "v", flag = true)
+  @Description("select the non matching lines")
+  public void setInvert(boolean invert) {
+    this.invert = invert;
+  }
+
+  @Option(longName = "ignore-case", shortName = "i", flag = true)
+  @Description("ignore case distinctions")
+  public void setIgnoreCase(boolean ignoreCase) {
+    this.ignoreCase = ignoreCase;
+  }
+
+  @Override
+  public void process(CommandProcess process) {
+    try {
+      matcher = Pattern.compile(pattern, ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0).matcher("");
+    } catch (PatternSyntaxException e) {
+      process.write(e.getMessage() + "\n");
+      process.end(2);
+      return;
+    }
+    super.process(process);
+  }
+
+  @Override
+  protected boolean line(CommandProcess process, String line) {
+    if (matcher.reset(line).find() != invert) {
+      selected = true;
+      process.write(line).write("\n");
+    }
+    return true;
+  }
+
+  @Override
+  protected int end(CommandProcess process) {
+    return selected ? 0 : 1;
+  }
+}
@@ -35,13 +35,9 @@ package io.vertx.ext.shell.command.base;
 import io.vertx.core.cli.annotations.Name;
 import io.vertx.core.cli.annotations.Summary;
 import io.vertx.ext.shell.command.AnnotatedCommand;
-import io.vertx.ext.shell.command.Command;
 import io.vertx.ext.shell.command.CommandProcess;
 import io.vertx.ext.shell.system.impl.InternalCommandManager;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
 /**
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
  */
@@ -52,10 +48,9 @@ public class Help extends AnnotatedCommand {
   @Override
   public void process(CommandProcess process) {
     InternalCommandManager mgr = process.session().get("vert.x-command-manager");
-    List<Command> commands = mgr.getResolvers().stream().flatMap(r -> r.commands().stream()).distinct().collect(Collectors.toList());
     process.write("available commands:\n");
-    for (Command command : commands) {
-      process.write(command.name()).write("\n");
+    for (String name : mgr.commandNames()) {
+      process.write(name).write("\n");
     }
     process.end();
   }
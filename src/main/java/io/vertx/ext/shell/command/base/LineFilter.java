@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.command.base;
+
+import io.vertx.ext.shell.command.AnnotatedCommand;
+import io.vertx.ext.shell.command.CommandProcess;
+
+/**
+ * Base class of the commands filtering their standard input line by line, the input is usually the output of the
+ * previous command of a pipeline. A line ends with {@literal \n}, {@literal \r} or {@literal \r\n} and the last line
+ * may not be terminated.<p/>
+ *
+ * The command terminates when the input ends or when the filter does not accept more lines, interrupting the command
+ * terminates it without calling {@link #end}.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+abstract class LineFilter extends AnnotatedCommand {
+
+  private final StringBuilder pending = new StringBuilder();
+  private boolean cr;
+  private boolean done;
+
+  @Override
+  public void process(CommandProcess process) {
+    process.stdinHandler(data -> {
+      int len = data.length();
+      for (int i = 0;i < len && !done;i++) {
+        char c = data.charAt(i);
+        if (c == '\n' || c == '\r') {
+          if (c == '\r' || !cr) {
+            accept(process);
+          }
+          cr = c == '\r';
+        } else {
+          cr = false;
+          pending.append(c);
+        }
+      }
+    });
+    process.stdinEndHandler(v -> {
+      if (pending.length() > 0) {
+        accept(process);
+      }
+      finish(process);
+    });
+    process.interruptHandler(v -> {
+      done = true;
+      process.end();
+    });
+  }
+
+  private void accept(CommandProcess process) {
+    String line = pending.toString();
+    pending.setLength(0);
+    if (!done && !line(process, line)) {
+      finish(process);
+    }
+  }
+
+  private void finish(CommandProcess process) {
+    if (!done) {
+      done = true;
+      process.end(end(process));
+    }
+  }
+
+  /**
+   * Filter a line of the input.
+   *
+   * @param process the process
+   * @param line the line without its terminator
+   * @return true when the filter accepts more lines
+   */
+  protected abstract boolean line(CommandProcess process, String line);
+
+  /**
+   * Called once when no more lines will be filtered, unless the command is interrupted.
+   *
+   * @param process the process
+   * @return the exit code of the command
+   */
+  protected int end(CommandProcess process) {
+    return 0;
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.command.base;
+
+import io.vertx.core.cli.annotations.DefaultValue;
+import io.vertx.core.cli.annotations.Description;
+import io.vertx.core.cli.annotations.Name;
+import io.vertx.core.cli.annotations.Option;
+import io.vertx.core.cli.annotations.Summary;
+import io.vertx.ext.shell.command.CommandProcess;
+
+/**
+ * Print the last lines of the standard input, the lines are retained in a ring buffer and printed when the input
+ * ends.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+@Name("tail")
+@Summary("Print the last lines of the standard input")
+public class Tail extends LineFilter {
+
+  private int lines;
+  private String[] ring;
+  private long count;
+
+  @Option(longName = "lines", shortName = "n", argName = "count")
+  @Description("print the last count lines")
+  @DefaultValue("10")
+  public void setLines(int lines) {
+    this.lines = lines;
+  }
+
+  @Override
+  public void process(CommandProcess process) {
+    ring = new String[Math.max(lines, 0)];
+    super.process(process);
+  }
+
+  @Override
+  protected boolean line(CommandProcess process, String line) {
+    if (ring.length > 0) {
+      ring[(int) (count++ % ring.length)] = line;
+    }
+    return true;
+  }
+
+  @Override
+  protected int end(CommandProcess process) {
+    int size = (int) Math.min(count, ring.length);
+    StringBuilder buffer = new StringBuilder();
+    for (long i = count - size;i < count;i++) {
+      buffer.append(ring[(int) (i % ring.length)]).append('\n');
+    }
+    if (buffer.length() > 0) {
+      process.write(buffer.toString());
+    }
+    return 0;
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.command.base;
+
+import io.vertx.core.cli.annotations.Description;
+import io.vertx.core.cli.annotations.Name;
+import io.vertx.core.cli.annotations.Option;
+import io.vertx.core.cli.annotations.Summary;
+import io.vertx.ext.shell.command.CommandProcess;
+
+/**
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+@Name("uniq")
+@Summary("Print the standard input omitting the repeated adjacent lines")
+public class Uniq extends LineFilter {
+
+  private boolean count;
+  private String previous;
+  private long occurrences;
+
+  @Option(longName = "count", shortName = "c", flag = true)
+  @Description("prefix the lines by their number of occurrences")
+  public void setCount(boolean count) {
+    this.count = count;
+  }
+
+  @Override
+  protected boolean line(CommandProcess process, String line) {
+    if (line.equals(previous)) {
+      occurrences++;
+    } else {
+      print(process);
+      previous = line;
+      occurrences = 1;
+    }
+    return true;
+  }
+
+  @Override
+  protected int end(CommandProcess process) {
+    print(process);
+    return 0;
+  }
+
+  private void print(CommandProcess process) {
+    if (previous != null) {
+      if (count) {
+        process.write(String.format("%7d %s\n", occurrences, previous));
+      } else {
+        process.write(previous).write("\n");
+      }
+    }
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.command.base;
+
+import io.vertx.core.cli.annotations.Description;
+import io.vertx.core.cli.annotations.Name;
+import io.vertx.core.cli.annotations.Option;
+import io.vertx.core.cli.annotations.Summary;
+import io.vertx.ext.shell.command.AnnotatedCommand;
+import io.vertx.ext.shell.command.CommandProcess;
+
+/**
+ * Count the lines, words and chars of the standard input, the counts are printed when the input ends. The input is
+ * counted as it is received without being split in lines.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+@Name("wc")
+@Summary("Print the line, word and char counts of the standard input")
+public class WordCount extends AnnotatedCommand {
+
+  private boolean showLines;
+  private boolean showWords;
+  private boolean showChars;
+  private long lines;
+  private long words;
+  private long chars;
+  private boolean word;
+  private boolean cr;
+
+  @Option(longName = "lines", shortName = "l", flag = true)
+  @Description("print the line count")
+  public void setShowLines(boolean showLines) {
+    this.showLines = showLines;
+  }
+
+  @Option(longName = "words", shortName = "w", flag = true)
+  @Description("print the word count")
+  public void setShowWords(boolean showWords) {
+    this.showWords = showWords;
+  }
+
+  @Option(longName = "chars", shortName = "m", flag = true)
+  @Description("print the char count")
+  public void setShowChars(boolean showChars) {
+    this.showChars = showChars;
+  }
+
+  @Override
+  public void process(CommandProcess process) {
+    if (!showLines && !showWords && !showChars) {
+      showLines = showWords = showChars = true;
+    }
+    process.stdinHandler(data -> {
+      int len = data.length();
+      chars += len;
+      for (int i = 0;i < len;i++) {
+        char c = data.charAt(i);
+        if (c == '\n' || c == '\r') {
+          if (c == '\r' || !cr) {
+            lines++;
+          }
+          cr = c == '\r';
+          word = false;
+        } else {
+          cr = false;
+          if (Character.isWhitespace(c)) {
+            word = false;
+          } else if (!word) {
+            word = true;
+            words++;
+          }
+        }
+      }
+    });
+    process.stdinEndHandler(v -> {
+      StringBuilder counts = new StringBuilder();
+      append(counts, showLines, lines);
+      append(counts, showWords, words);
+      append(counts, showChars, chars);
+      process.write(counts.append('\n').toString());
+      process.end();
+    });
+    process.interruptHandler(v -> process.end());
+  }
+
+  private static void append(StringBuilder counts, boolean show, long count) {
+    if (show) {
+      if (counts.length() > 0) {
+        counts.append(' ');
+      }
+      counts.append(count);
+    }
+  }
+}
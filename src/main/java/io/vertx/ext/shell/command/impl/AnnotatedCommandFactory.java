@@ -0,0 +1,206 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.command.impl;
+
+import io.vertx.core.cli.CLI;
+import io.vertx.core.cli.CLIException;
+import io.vertx.core.cli.CommandLine;
+import io.vertx.core.cli.annotations.Argument;
+import io.vertx.core.cli.annotations.CLIConfigurator;
+import io.vertx.core.cli.annotations.Option;
+import io.vertx.ext.shell.command.AnnotatedCommand;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Creates and configures the instances of an {@link AnnotatedCommand} class.<p/>
+ *
+ * The reflective work is done once when the factory is created: the constructor and the annotated setters are
+ * resolved to method handles, so creating and injecting an instance does the same as {@code clazz.newInstance()}
+ * followed by {@link CLIConfigurator#inject} without walking the class annotations again.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+public class AnnotatedCommandFactory {
+
+  private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(AnnotatedCommand.class);
+  private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, AnnotatedCommand.class, Object.class);
+
+  /**
+   * Create the factory of a command class.
+   *
+   * @param clazz the command class
+   * @return the factory
+   */
+  public static AnnotatedCommandFactory create(Class<? extends AnnotatedCommand> clazz) {
+    MethodHandles.Lookup lookup = MethodHandles.lookup();
+    MethodHandle constructor;
+    try {
+      Constructor<? extends AnnotatedCommand> ctor = clazz.getDeclaredConstructor();
+      ctor.setAccessible(true);
+      constructor = lookup.unreflectConstructor(ctor).asType(CONSTRUCTOR_TYPE);
+    } catch (Exception e) {
+      // Instances cannot be created, same as when newInstance() fails
+      constructor = null;
+    }
+    List<Injector> injectors = new ArrayList<>();
+    for (Method method : clazz.getMethods()) {
+      Option option = method.getAnnotation(Option.class);
+      Argument argument = method.getAnnotation(Argument.class);
+      if (option == null && argument == null) {
+        continue;
+      }
+      if (method.getParameterCount() != 1) {
+        continue;
+      }
+      MethodHandle setter;
+      try {
+        method.setAccessible(true);
+        setter = lookup.unreflect(method).asType(SETTER_TYPE);
+      } catch (Exception e) {
+        throw new IllegalArgumentException("Cannot access setter " + method, e);
+      }
+      Class<?> type = method.getParameterTypes()[0];
+      if (option != null) {
+        String name = option.longName();
+        if (name.equals(Option.NO_NAME)) {
+          name = option.shortName();
+        }
+        injectors.add(new Injector(setter, type, name, -1));
+      }
+      if (argument != null) {
+        injectors.add(new Injector(setter, type, null, argument.index()));
+      }
+    }
+    return new AnnotatedCommandFactory(constructor, injectors.toArray(new Injector[0]));
+  }
+
+  private final MethodHandle constructor;
+  private final Injector[] injectors;
+
+  private AnnotatedCommandFactory(MethodHandle constructor, Injector[] injectors) {
+    this.constructor = constructor;
+    this.injectors = injectors;
+  }
+
+  /**
+   * @return a new command instance or {@code null} when the class cannot be instantiated
+   */
+  public AnnotatedCommand newInstance() {
+    if (constructor == null) {
+      return null;
+    }
+    try {
+      return (AnnotatedCommand) constructor.invokeExact();
+    } catch (Throwable t) {
+      return null;
+    }
+  }
+
+  /**
+   * Inject the values of the command line in the command, like {@link CLIConfigurator#inject} does.
+   *
+   * @param commandLine the command line
+   * @param command the command
+   */
+  public void inject(CommandLine commandLine, AnnotatedCommand command) throws CLIException {
+    CLI cli = commandLine.cli();
+    for (Injector injector : injectors) {
+      injector.inject(cli, commandLine, command);
+    }
+  }
+
+  private static class Injector {
+
+    private final MethodHandle setter;
+    private final Class<?> type;
+    private final boolean multiple;
+    private final String optionName;
+    private final int argumentIndex;
+
+    private Injector(MethodHandle setter, Class<?> type, String optionName, int argumentIndex) {
+      this.setter = setter;
+      this.type = type;
+      this.multiple = type.isArray() || Collection.class.isAssignableFrom(type);
+      this.optionName = optionName;
+      this.argumentIndex = argumentIndex;
+    }
+
+    private void inject(CLI cli, CommandLine commandLine, AnnotatedCommand command) {
+      Object value;
+      if (optionName != null) {
+        if (cli.getOption(optionName) == null) {
+          return;
+        }
+        value = multiple ? container(commandLine.getOptionValues(optionName)) : commandLine.getOptionValue(optionName);
+      } else {
+        if (cli.getArgument(argumentIndex) == null) {
+          return;
+        }
+        value = multiple ? container(commandLine.getArgumentValues(argumentIndex)) : commandLine.getArgumentValue(argumentIndex);
+      }
+      if (value != null) {
+        try {
+          setter.invokeExact(command, value);
+        } catch (Throwable t) {
+          String target = optionName != null ? "option '" + optionName + "'" : "argument '" + argumentIndex + "'";
+          throw new CLIException("Cannot inject value for " + target, t instanceof Exception ? (Exception) t : new Exception(t));
+        }
+      }
+    }
+
+    private Object container(List<?> values) {
+      if (type.isArray()) {
+        Object array = Array.newInstance(type.getComponentType(), values.size());
+        for (int i = 0;i < values.size();i++) {
+          Array.set(array, i, values.get(i));
+        }
+        return array;
+      }
+      if (Set.class.isAssignableFrom(type)) {
+        return new LinkedHashSet<>(values);
+      }
+      return values;
+    }
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.command.impl;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Closeable;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.impl.VertxInternal;
+import io.vertx.ext.shell.command.CommandProcess;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executes the blocking code of the shell outside of the Vert.x worker pool, so slow commands do not starve the
+ * workers the application relies on.<p/>
+ *
+ * Each task runs on a virtual thread when the JVM provides them (Java 21+), otherwise on a daemon thread of its own,
+ * idle threads are reused. The tasks are never queued behind long running tasks, instead a task is rejected when
+ * {@link #MAX_THREADS} threads are busy. There is a pool per Vert.x instance, it is shutdown when the Vert.x instance
+ * is closed.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+public class BlockingExecutor {
+
+  /**
+   * The maximum number of threads used when the JVM does not provide virtual threads, configured with the
+   * {@code vertx.shell.blockingThreads} system property, {@code 1000} by default.
+   */
+  public static final int MAX_THREADS = Integer.getInteger("vertx.shell.blockingThreads", 1000);
+
+  private static final Executor virtualThreadExecutor = createVirtualThreadExecutor();
+  private static final Map<Vertx, BlockingExecutor> executors = new ConcurrentHashMap<>();
+
+  private static Executor createVirtualThreadExecutor() {
+    try {
+      Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (Executor) method.invoke(null);
+    } catch (Exception ignore) {
+      // Not supported by this JVM
+      return null;
+    }
+  }
+
+  private static Executor executor(Vertx vertx) {
+    if (virtualThreadExecutor != null) {
+      return virtualThreadExecutor;
+    }
+    return executors.computeIfAbsent(vertx, v -> new BlockingExecutor((VertxInternal) vertx)).pool;
+  }
+
+  private final ExecutorService pool;
+
+  private BlockingExecutor(VertxInternal vertx) {
+    AtomicInteger count = new AtomicInteger();
+    this.pool = new ThreadPoolExecutor(0, MAX_THREADS, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+      Thread thread = new Thread(runnable, "vert.x-shell-blocking-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    Closeable hook = completionHandler -> {
+      executors.remove(vertx);
+      pool.shutdownNow();
+      completionHandler.handle(Future.succeededFuture());
+    };
+    vertx.addCloseHook(hook);
+  }
+
+  /**
+   * Execute a task.
+   *
+   * @param vertx the Vert.x instance
+   * @param task the task
+   * @throws RejectedExecutionException when too many tasks are running
+   */
+  public static void execute(Vertx vertx, Runnable task) {
+    executor(vertx).execute(task);
+  }
+
+  /**
+   * Execute blocking code and call the result handler on the {@code context}.
+   *
+   * @param context the context of the result handler
+   * @param blockingCode the blocking code
+   * @param resultHandler the result handler
+   */
+  public static <T> void executeBlocking(Context context, Callable<T> blockingCode, Handler<AsyncResult<T>> resultHandler) {
+    try {
+      executor(context.owner()).execute(() -> {
+        AsyncResult<T> result;
+        try {
+          result = Future.succeededFuture(blockingCode.call());
+        } catch (Throwable t) {
+          result = Future.failedFuture(t);
+        }
+        AsyncResult<T> res = result;
+        context.runOnContext(v -> resultHandler.handle(res));
+      });
+    } catch (RejectedExecutionException e) {
+      context.runOnContext(v -> resultHandler.handle(Future.failedFuture(e)));
+    }
+  }
+
+  /**
+   * Wrap a process handler so it is called with a blocking thread, the process ends with the status {@code 1}
+   * when the handler throws or when too many blocking threads are busy.
+   *
+   * @param handler the handler
+   * @return the wrapped handler
+   */
+  public static Handler<CommandProcess> processHandler(Handler<CommandProcess> handler) {
+    return process -> {
+      try {
+        executor(process.vertx()).execute(() -> {
+          try {
+            handler.handle(process);
+          } catch (RuntimeException | Error e) {
+            process.end(1);
+            throw e;
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        process.write("Too many blocking commands running\n");
+        process.end(1);
+      }
+    };
+  }
+}
@@ -41,6 +41,7 @@ import io.vertx.ext.shell.cli.Completion;
 import io.vertx.ext.shell.command.Command;
 import io.vertx.ext.shell.command.CommandBuilder;
 import io.vertx.ext.shell.command.CommandProcess;
+import io.vertx.ext.shell.system.ContextPolicy;
 import io.vertx.ext.shell.system.Process;
 
 import java.util.Collections;
@@ -55,6 +56,8 @@ public class CommandBuilderImpl implements CommandBuilder {
   final CLI cli;
   public Handler<CommandProcess> processHandler;
   public Handler<Completion> completeHandler;
+  public ContextPolicy contextPolicy;
+  public Long timeout;
 
   public CommandBuilderImpl(String name, CLI cli) {
     this.name = name;
@@ -67,15 +70,35 @@ public class CommandBuilderImpl implements CommandBuilder {
     return this;
   }
 
+  @Override
+  public CommandBuilderImpl blockingProcessHandler(Handler<CommandProcess> handler) {
+    processHandler = handler != null ? BlockingExecutor.processHandler(handler) : null;
+    return this;
+  }
+
   @Override
   public CommandBuilderImpl completionHandler(Handler<Completion> handler) {
     completeHandler = handler;
     return this;
   }
 
+  @Override
+  public CommandBuilderImpl contextPolicy(ContextPolicy policy) {
+    contextPolicy = policy;
+    return this;
+  }
+
+  @Override
+  public CommandBuilderImpl timeout(long timeout) {
+    this.timeout = timeout;
+    return this;
+  }
+
   @Override
   public Command build(Vertx vertx) {
     Context context = vertx.getOrCreateContext();
+    ContextPolicy contextPolicy = this.contextPolicy;
+    Long timeout = this.timeout;
     return new Command() {
       @Override
       public String name() {
@@ -88,7 +111,7 @@ public class CommandBuilderImpl implements CommandBuilder {
 
       @Override
       public Process createProcess(List<CliToken> args) {
-        return new ProcessImpl(vertx, context, this, args, processHandler);
+        return new ProcessImpl(vertx, context, contextPolicy, timeout, this, args, processHandler);
       }
 
       @Override
@@ -50,12 +50,13 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
  */
-public class CommandRegistryImpl implements CommandRegistry {
+public class CommandRegistryImpl implements CommandRegistry, VersionedCommandResolver {
 
   private static Map<Vertx, CommandRegistryImpl> registries = new ConcurrentHashMap<>();
 
@@ -66,6 +67,7 @@ public class CommandRegistryImpl implements CommandRegistry {
   final VertxInternal vertx;
   final ConcurrentHashMap<String, CommandRegistration> commandMap = new ConcurrentHashMap<>();
   final Closeable hook;
+  private final AtomicLong version = new AtomicLong();
   private volatile boolean closed;
 
   public CommandRegistryImpl(VertxInternal vertx) {
@@ -92,7 +94,22 @@ public class CommandRegistryImpl implements CommandRegistry {
   }
 
   public List<Command> commands() {
-    return new ArrayList<>(commandMap.values().stream().map(reg -> reg.command).collect(Collectors.toList()));
+    List<Command> commands = new ArrayList<>(commandMap.size());
+    for (CommandRegistration reg : commandMap.values()) {
+      commands.add(reg.command);
+    }
+    return commands;
+  }
+
+  @Override
+  public Command getCommand(String name) {
+    CommandRegistration reg = commandMap.get(name);
+    return reg != null ? reg.command : null;
+  }
+
+  @Override
+  public long version() {
+    return version.get();
   }
 
   @Override
@@ -151,12 +168,15 @@ public class CommandRegistryImpl implements CommandRegistry {
           newReg.put(name, registration);
         }
         commandMap.putAll(newReg);
+        version.incrementAndGet();
       }
 
       @Override
       public void stop() throws Exception {
         String deploymentId = deploymentID();
-        commandMap.values().removeIf(reg -> deploymentId.equals(reg.deploymendID));
+        if (commandMap.values().removeIf(reg -> deploymentId.equals(reg.deploymendID))) {
+          version.incrementAndGet();
+        }
       }
     }, ar -> {
       if (ar.succeeded()) {
@@ -187,6 +207,7 @@ public class CommandRegistryImpl implements CommandRegistry {
     }
     CommandRegistration registration = commandMap.remove(name);
     if (registration != null) {
+      version.incrementAndGet();
       String deploymendID = registration.deploymendID;
       if (deploymendID != null) {
         if (commandMap.values().stream().noneMatch(reg -> deploymendID.equals(reg.deploymendID))) {
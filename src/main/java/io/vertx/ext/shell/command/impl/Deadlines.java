@@ -0,0 +1,90 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.command.impl;
+
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.vertx.core.Closeable;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.impl.VertxInternal;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The deadlines of the processes, they are all scheduled on a single hashed wheel timer instead of a timer per
+ * process: scheduling and cancelling a deadline take constant time and a deadline expires within a tick after
+ * its due time. There is a timer per Vert.x instance, it is stopped when the Vert.x instance is closed.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+class Deadlines {
+
+  /**
+   * The duration of a tick of the wheel in ms.
+   */
+  static final long TICK_DURATION = 100;
+
+  private static final int TICKS_PER_WHEEL = 512;
+
+  private static final Map<Vertx, Deadlines> deadlines = new ConcurrentHashMap<>();
+
+  private final HashedWheelTimer timer;
+
+  private Deadlines(VertxInternal vertx) {
+    HashedWheelTimer timer = new HashedWheelTimer(new DefaultThreadFactory("vert.x-shell-deadlines", true), TICK_DURATION, TimeUnit.MILLISECONDS, TICKS_PER_WHEEL);
+    this.timer = timer;
+    Closeable hook = completionHandler -> {
+      deadlines.remove(vertx);
+      timer.stop();
+      completionHandler.handle(Future.succeededFuture());
+    };
+    vertx.addCloseHook(hook);
+  }
+
+  /**
+   * Schedule a task, the task is executed by the timer thread and must not block.
+   *
+   * @param vertx the Vert.x instance
+   * @param delay the delay in ms
+   * @param task the task
+   * @return the timeout for cancelling the task
+   */
+  static Timeout schedule(Vertx vertx, long delay, Runnable task) {
+    HashedWheelTimer timer = deadlines.computeIfAbsent(vertx, v -> new Deadlines((VertxInternal) vertx)).timer;
+    return timer.newTimeout(timeout -> task.run(), delay, TimeUnit.MILLISECONDS);
+  }
+}
@@ -32,11 +32,14 @@
 
 package io.vertx.ext.shell.command.impl;
 
+import io.netty.util.Timeout;
 import io.vertx.core.Context;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.cli.CLIException;
 import io.vertx.core.cli.CommandLine;
+import io.vertx.core.impl.VertxInternal;
 import io.vertx.ext.shell.cli.CliToken;
 import io.vertx.ext.shell.command.Command;
 import io.vertx.ext.shell.command.CommandProcess;
@@ -45,82 +48,204 @@ import io.vertx.ext.shell.system.*;
 import io.vertx.ext.shell.system.Process;
 import io.vertx.ext.shell.term.Tty;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
+ * The process status is an immutable {@link State} updated with compare-and-set, the process handlers are an
+ * immutable snapshot replaced on each update, so neither the transitions nor the write path take a lock.<p/>
+ *
+ * Each new state links to the state it replaced, the effects of the transitions (wiring the tty handlers
+ * and calling the process handlers) are applied in order by a single thread at a time draining this chain.
+ *
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
  */
 public class ProcessImpl implements Process {
 
+  private static final int INTERRUPT_HANDLER = 0;
+  private static final int SUSPEND_HANDLER = 1;
+  private static final int RESUME_HANDLER = 2;
+  private static final int END_HANDLER = 3;
+  private static final int BACKGROUND_HANDLER = 4;
+  private static final int FOREGROUND_HANDLER = 5;
+
+  private static class State {
+
+    final ExecStatus status;
+    final boolean foreground;
+    final Integer exitCode;
+    final int handler;
+    final Handler<Void> completionHandler;
+    final boolean expired;
+
+    // The state this state replaced, cleared once the transition is applied
+    State previous;
+
+    State(ExecStatus status, boolean foreground, Integer exitCode, int handler, Handler<Void> completionHandler, boolean expired, State previous) {
+      this.status = status;
+      this.foreground = foreground;
+      this.exitCode = exitCode;
+      this.handler = handler;
+      this.completionHandler = completionHandler;
+      this.expired = expired;
+      this.previous = previous;
+    }
+  }
+
+  /**
+   * The session key of the default {@link ContextPolicy} of the session processes.
+   */
+  public static final String CONTEXT_POLICY_KEY = "vert.x-context-policy";
+
+  /**
+   * The session key of the context shared by the session processes with the {@link ContextPolicy#SESSION} policy.
+   */
+  public static final String SESSION_CONTEXT_KEY = "vert.x-session-context";
+
+  /**
+   * The session key of the default timeout in ms of the session processes.
+   */
+  public static final String TIMEOUT_KEY = "vert.x-process-timeout";
+
+  /**
+   * The exit code of a process terminated because its timeout expired.
+   */
+  public static final int TIMEOUT_EXIT_CODE = 124;
+
+  /**
+   * The time in ms an interrupted process has to end before it is terminated when its timeout expired.
+   */
+  static final long INTERRUPT_GRACE_PERIOD = 1000;
+
   private final Vertx vertx;
-  private final Context context;
+  private final Context creationContext;
+  private final ContextPolicy contextPolicy;
+  private final Long timeout;
+  private volatile Context context;
   private final Context processContext;
   private final Command commandContext;
   private final Handler<CommandProcess> handler;
   private final List<CliToken> args;
-  private Tty tty;
-  private Session session;
-  private Handler<Void> interruptHandler;
-  private Handler<Void> suspendHandler;
-  private Handler<Void> resumeHandler;
-  private Handler<Void> endHandler;
-  private Handler<Void> backgroundHandler;
-  private Handler<Void> foregroundHandler;
-  private Handler<Integer> terminatedHandler;
+  private volatile Tty tty;
+  private volatile ProcessOutput output;
+  private volatile Session session;
+  private final AtomicReference<Handler<Void>[]> handlers = new AtomicReference<>(newHandlers());
+  private volatile Handler<Integer> terminatedHandler;
+  private volatile Timeout deadline;
 
   // State exposed to the command, updated on the command context
-  private boolean foreground;
+  private volatile boolean foreground;
 
   // Internal state used by the process
-  private ExecStatus processStatus;
-  private boolean processForeground;
-  private Handler<String> stdinHandler;
-  private Handler<Void> resizeHandler;
-  private Integer exitCode;
+  private final AtomicReference<State> state;
+  private final AtomicInteger wip = new AtomicInteger();
+  private State applied;
+  private volatile Handler<String> stdinHandler;
+  private volatile Handler<Buffer> stdinBufferHandler;
+  private volatile Handler<Void> resizeHandler;
 
   public ProcessImpl(Vertx vertx, Context context, Command commandContext, List<CliToken> args, Handler<CommandProcess> handler) {
+    this(vertx, context, null, commandContext, args, handler);
+  }
+
+  public ProcessImpl(Vertx vertx, Context context, ContextPolicy contextPolicy, Command commandContext, List<CliToken> args, Handler<CommandProcess> handler) {
+    this(vertx, context, contextPolicy, null, commandContext, args, handler);
+  }
+
+  public ProcessImpl(Vertx vertx, Context context, ContextPolicy contextPolicy, Long timeout, Command commandContext, List<CliToken> args, Handler<CommandProcess> handler) {
     this.vertx = vertx;
+    this.creationContext = context;
+    this.contextPolicy = contextPolicy;
+    this.timeout = timeout;
     this.context = context;
     this.commandContext = commandContext;
     this.handler = handler;
     this.args = args;
     processContext = vertx.getOrCreateContext();
-    processStatus = ExecStatus.READY;
+    applied = new State(ExecStatus.READY, false, null, -1, null, false, null);
+    state = new AtomicReference<>(applied);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Handler<Void>[] newHandlers() {
+    return new Handler[FOREGROUND_HANDLER + 1];
+  }
+
+  private void setHandler(int index, Handler<Void> handler) {
+    handlers.updateAndGet(current -> {
+      Handler<Void>[] copy = current.clone();
+      copy[index] = handler;
+      return copy;
+    });
   }
 
   @Override
   public Integer exitCode() {
-    return exitCode;
+    return state.get().exitCode;
   }
 
   @Override
   public ExecStatus status() {
-    return processStatus;
+    return state.get().status;
   }
 
   @Override
-  public synchronized Process setTty(Tty tty) {
+  public Process setTty(Tty tty) {
     this.tty = tty;
     return this;
   }
 
   @Override
-  public synchronized Tty getTty() {
+  public Tty getTty() {
     return tty;
   }
 
   @Override
-  public synchronized Process setSession(Session session) {
+  public Process setSession(Session session) {
     this.session = session;
     return this;
   }
 
   @Override
-  public synchronized Session getSession() {
+  public Session getSession() {
     return session;
   }
 
+  /**
+   * @return the number of frames written to the tty by the process
+   */
+  public long outputFrames() {
+    ProcessOutput out = output;
+    return out != null ? out.frames() : 0;
+  }
+
+  /**
+   * @return the number of chars written to the tty by the process
+   */
+  public long outputChars() {
+    ProcessOutput out = output;
+    return out != null ? out.chars() : 0;
+  }
+
+  /**
+   * @return the achieved rate of frames per second written to the tty by the process
+   */
+  public double outputFramesPerSecond() {
+    ProcessOutput out = output;
+    return out != null ? out.framesPerSecond() : 0;
+  }
+
+  /**
+   * @return the achieved rate of chars per second written to the tty by the process
+   */
+  public double outputCharsPerSecond() {
+    ProcessOutput out = output;
+    return out != null ? out.charsPerSecond() : 0;
+  }
+
   @Override
   public Process terminatedHandler(Handler<Integer> handler) {
     terminatedHandler = handler;
@@ -129,8 +254,9 @@ public class ProcessImpl implements Process {
 
   @Override
   public boolean interrupt(Handler<Void> completionHandler) {
-    if (processStatus == ExecStatus.RUNNING || processStatus == ExecStatus.STOPPED) {
-      Handler<Void> handler = interruptHandler;
+    ExecStatus status = state.get().status;
+    if (status == ExecStatus.RUNNING || status == ExecStatus.STOPPED) {
+      Handler<Void> handler = handlers.get()[INTERRUPT_HANDLER];
       processContext.runOnContext(v -> {
         try {
           if (handler != null) {
@@ -144,71 +270,59 @@ public class ProcessImpl implements Process {
       });
       return handler != null;
     } else {
-      throw new IllegalStateException("Cannot interrupt process in " + processStatus + " state");
+      throw new IllegalStateException("Cannot interrupt process in " + status + " state");
     }
   }
 
   @Override
-  public synchronized void resume(boolean fg, Handler<Void> completionHandler) {
-    if (processStatus == ExecStatus.STOPPED) {
-      updateStatus(
-          ExecStatus.RUNNING,
-          null,
-          fg,
-          resumeHandler,
-          terminatedHandler,
-          completionHandler);
-    } else {
-      throw new IllegalStateException("Cannot resume process in " + processStatus + " state");
+  public void resume(boolean fg, Handler<Void> completionHandler) {
+    while (true) {
+      State current = state.get();
+      if (current.status != ExecStatus.STOPPED) {
+        throw new IllegalStateException("Cannot resume process in " + current.status + " state");
+      }
+      if (update(current, ExecStatus.RUNNING, fg, null, RESUME_HANDLER, completionHandler)) {
+        return;
+      }
     }
   }
 
   @Override
-  public synchronized void suspend(Handler<Void> completionHandler) {
-    if (processStatus == ExecStatus.RUNNING) {
-      updateStatus(
-          ExecStatus.STOPPED,
-          null,
-          false,
-          suspendHandler,
-          terminatedHandler,
-          completionHandler);
-    } else {
-      throw new IllegalStateException("Cannot suspend process in " + processStatus + " state");
+  public void suspend(Handler<Void> completionHandler) {
+    while (true) {
+      State current = state.get();
+      if (current.status != ExecStatus.RUNNING) {
+        throw new IllegalStateException("Cannot suspend process in " + current.status + " state");
+      }
+      if (update(current, ExecStatus.STOPPED, false, null, SUSPEND_HANDLER, completionHandler)) {
+        return;
+      }
     }
   }
 
   @Override
   public void toBackground(Handler<Void> completionHandler) {
-    if (processStatus == ExecStatus.RUNNING) {
-      if (processForeground) {
-        updateStatus(
-            ExecStatus.RUNNING,
-            null,
-            false,
-            backgroundHandler,
-            terminatedHandler,
-            completionHandler);
+    while (true) {
+      State current = state.get();
+      if (current.status != ExecStatus.RUNNING) {
+        throw new IllegalStateException("Cannot set to background a process in " + current.status + " state");
+      }
+      if (!current.foreground || update(current, ExecStatus.RUNNING, false, null, BACKGROUND_HANDLER, completionHandler)) {
+        return;
       }
-    } else {
-      throw new IllegalStateException("Cannot set to background a process in " + processStatus + " state");
     }
   }
 
   @Override
   public void toForeground(Handler<Void> completionHandler) {
-    if (processStatus == ExecStatus.RUNNING) {
-      if (!processForeground) {
-        updateStatus(
-            ExecStatus.RUNNING,
-            null,
-            true,
-            foregroundHandler,
-            terminatedHandler,
-            completionHandler);
+    while (true) {
+      State current = state.get();
+      if (current.status != ExecStatus.RUNNING) {
+        throw new IllegalStateException("Cannot set to foreground a process in " + current.status + " state");
+      }
+      if (current.foreground || update(current, ExecStatus.RUNNING, true, null, FOREGROUND_HANDLER, completionHandler)) {
+        return;
       }
-    } else {
-      throw new IllegalStateException("Cannot set to foreground a process in " + processStatus + " state");
     }
   }
 
@@ -219,45 +333,113 @@ public class ProcessImpl implements Process {
     }
   }
 
-  private synchronized boolean terminate(int exitCode, Handler<Void> completionHandler) {
-    if (processStatus != ExecStatus.TERMINATED) {
-      updateStatus(
-          ExecStatus.TERMINATED,
-          exitCode,
-          false,
-          endHandler,
-          terminatedHandler,
-          completionHandler);
-      return true;
-    } else {
-      return false;
+  private boolean terminate(int exitCode, Handler<Void> completionHandler) {
+    while (true) {
+      State current = state.get();
+      if (current.status == ExecStatus.TERMINATED) {
+        return false;
+      }
+      if (update(current, ExecStatus.TERMINATED, false, current.expired ? TIMEOUT_EXIT_CODE : exitCode, END_HANDLER, completionHandler)) {
+        Timeout deadline = this.deadline;
+        if (deadline != null) {
+          deadline.cancel();
+        }
+        return true;
+      }
     }
   }
 
-  private void updateStatus(ExecStatus statusUpdate, Integer exitCodeUpdate, boolean foregroundUpdate, Handler<Void> handler, Handler<Integer> terminatedHandler, Handler<Void> completionHandler) {
-    processStatus = statusUpdate;
-    exitCode = exitCodeUpdate;
-    if (!foregroundUpdate) {
-      if (processForeground) {
-        processForeground = false;
-        if (stdinHandler != null) {
-          tty.stdinHandler(null);
-        }
-        if (resizeHandler != null) {
-          tty.resizehandler(null);
-        }
+  /**
+   * Called by the deadline timer when the process timeout expires: the process is interrupted and terminated if it
+   * does not end within the grace period, a process without interrupt handler is terminated immediately.
+   * The expiration is recorded by a state transition so a process ending before it keeps its own exit code.
+   */
+  private void expire() {
+    while (true) {
+      State current = state.get();
+      if (current.status == ExecStatus.TERMINATED) {
+        return;
+      }
+      if (state.compareAndSet(current, new State(current.status, current.foreground, null, -1, null, true, current))) {
+        drain();
+        break;
       }
+    }
+    boolean interrupted;
+    try {
+      interrupted = interrupt(null);
+    } catch (IllegalStateException e) {
+      // Already terminated
+      return;
+    }
+    if (interrupted) {
+      deadline = Deadlines.schedule(vertx, INTERRUPT_GRACE_PERIOD, () -> terminate(TIMEOUT_EXIT_CODE, null));
     } else {
-      if (!processForeground) {
-        processForeground = true;
-        if (stdinHandler != null) {
-          tty.stdinHandler(stdinHandler);
-        }
-        if (resizeHandler != null) {
-          tty.resizehandler(resizeHandler);
-        }
+      terminate(TIMEOUT_EXIT_CODE, null);
+    }
+  }
+
+  /**
+   * Attempt to move from the {@code current} state to a new state and then apply the pending transitions.
+   *
+   * @return whether the state was updated
+   */
+  private boolean update(State current, ExecStatus status, boolean fg, Integer exitCode, int handler, Handler<Void> completionHandler) {
+    if (state.compareAndSet(current, new State(status, fg, exitCode, handler, completionHandler, current.expired, current))) {
+      drain();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Apply the pending transitions in order, only one thread drains at a time, a thread updating the state
+   * while another one is draining leaves the transition to the draining thread.
+   */
+  private void drain() {
+    if (wip.getAndIncrement() != 0) {
+      return;
+    }
+    ArrayDeque<State> transitions = new ArrayDeque<>();
+    do {
+      State head = state.get();
+      for (State s = head;s != applied;s = s.previous) {
+        transitions.push(s);
+      }
+      while (!transitions.isEmpty()) {
+        State next = transitions.pop();
+        apply(applied, next);
+        applied = next;
       }
+      applied.previous = null;
+    } while (wip.decrementAndGet() != 0);
+  }
+
+  private void apply(State from, State to) {
+    if (from.foreground && !to.foreground) {
+      if (stdinHandler != null || stdinBufferHandler != null) {
+        tty.stdinHandler(null);
+      }
+      if (resizeHandler != null) {
+        tty.resizehandler(null);
+      }
+    } else if (!from.foreground && to.foreground) {
+      if (stdinBufferHandler != null) {
+        tty.stdinBufferHandler(stdinBufferHandler);
+      } else if (stdinHandler != null) {
+        tty.stdinHandler(stdinHandler);
+      }
+      if (resizeHandler != null) {
+        tty.resizehandler(resizeHandler);
+      }
+    }
+    if (to.handler == -1) {
+      // Started by run or expired
+      return;
     }
+    Handler<Void> handler = handlers.get()[to.handler];
+    Handler<Void> completionHandler = to.completionHandler;
+    boolean foregroundUpdate = to.foreground;
     context.runOnContext(v -> {
       foreground = foregroundUpdate;
       try {
@@ -270,30 +452,42 @@ public class ProcessImpl implements Process {
         }
       }
     });
-    if (terminatedHandler != null && statusUpdate == ExecStatus.TERMINATED) {
+    Handler<Integer> terminatedHandler = this.terminatedHandler;
+    if (terminatedHandler != null && to.status == ExecStatus.TERMINATED) {
+      Integer exitCode = to.exitCode;
       processContext.runOnContext(v -> {
-        terminatedHandler.handle(exitCodeUpdate);
+        terminatedHandler.handle(exitCode);
       });
     }
   }
 
   @Override
-  public synchronized void run(boolean fg) {
-    if (processStatus != ExecStatus.READY) {
-      throw new IllegalStateException("Cannot run proces in " + processStatus + " state");
+  public void run(boolean fg) {
+    State ready = state.get();
+    if (ready.status != ExecStatus.READY) {
+      throw new IllegalStateException("Cannot run proces in " + ready.status + " state");
     }
-    processStatus = ExecStatus.RUNNING;
-    processForeground = fg;
-    foreground = fg;
 
     // Make a local copy
     Tty tty = this.tty;
     if (tty == null) {
       throw new IllegalStateException("Cannot execute process without a TTY set");
     }
+    foreground = fg;
+    context = resolveContext();
+    if (!update(ready, ExecStatus.RUNNING, fg, null, -1, null)) {
+      throw new IllegalStateException("Cannot run proces in " + state.get().status + " state");
+    }
+    ProcessOutput output = new ProcessOutput(processContext, tty);
+    this.output = output;
 
     CommandLine cl;
-    final List<String> args2 = args.stream().filter(CliToken::isText).map(CliToken::value).collect(Collectors.toList());
+    final List<String> args2 = new ArrayList<>(args.size());
+    for (CliToken arg : args) {
+      if (arg.isText()) {
+        args2.add(arg.value());
+      }
+    }
     if (commandContext.cli() != null) {
 
       //
@@ -367,27 +561,80 @@ public class ProcessImpl implements Process {
 
       @Override
       public CommandProcess stdinHandler(Handler<String> handler) {
+        stdinBufferHandler = null;
         if (handler != null) {
           stdinHandler = data -> context.runOnContext(v -> handler.handle(data));
         } else {
           stdinHandler = null;
         }
-        if (processForeground && stdinHandler != null) {
+        if (state.get().foreground && stdinHandler != null) {
           tty.stdinHandler(stdinHandler);
         }
         return this;
       }
 
+      @Override
+      public CommandProcess stdinBufferHandler(Handler<Buffer> handler) {
+        stdinHandler = null;
+        if (handler != null) {
+          stdinBufferHandler = data -> context.runOnContext(v -> handler.handle(data));
+        } else {
+          stdinBufferHandler = null;
+        }
+        if (state.get().foreground && stdinBufferHandler != null) {
+          tty.stdinBufferHandler(stdinBufferHandler);
+        }
+        return this;
+      }
+
+      @Override
+      public CommandProcess stdinEndHandler(Handler<Void> handler) {
+        if (handler != null) {
+          tty.stdinEndHandler(v -> context.runOnContext(handler::handle));
+        } else {
+          tty.stdinEndHandler(null);
+        }
+        return this;
+      }
+
       @Override
       public CommandProcess write(String data) {
-        synchronized (ProcessImpl.this) {
-          if (processStatus != ExecStatus.RUNNING) {
-            throw new IllegalStateException("Cannot write to standard output when " + status().name().toLowerCase());
-          }
+        ExecStatus status = state.get().status;
+        if (status != ExecStatus.RUNNING) {
+          throw new IllegalStateException("Cannot write to standard output when " + status.name().toLowerCase());
         }
-        processContext.runOnContext(v -> {
-          tty.write(data);
-        });
+        output.write(data);
+        return this;
+      }
+
+      @Override
+      public CommandProcess write(Buffer data) {
+        ExecStatus status = state.get().status;
+        if (status != ExecStatus.RUNNING) {
+          throw new IllegalStateException("Cannot write to standard output when " + status.name().toLowerCase());
+        }
+        output.write(data);
+        return this;
+      }
+
+      @Override
+      public boolean writeQueueFull() {
+        // The tty flow control applies in background too, the output of a background job is not unbounded
+        return output.writeQueueFull() || tty.writeQueueFull();
+      }
+
+      @Override
+      public CommandProcess drainHandler(Handler<Void> handler) {
+        Handler<Void> drainHandler = handler != null ? v -> context.runOnContext(handler::handle) : null;
+        output.drainHandler(drainHandler);
+        tty.drainHandler(drainHandler);
+        return this;
+      }
+
+      @Override
+      public CommandProcess setWriteQueueMaxSize(int maxSize) {
+        output.setWriteQueueMaxSize(maxSize);
+        tty.setWriteQueueMaxSize(maxSize);
         return this;
       }
 
@@ -404,49 +651,37 @@ public class ProcessImpl implements Process {
 
       @Override
       public CommandProcess interruptHandler(Handler<Void> handler) {
-        synchronized (ProcessImpl.this) {
-          interruptHandler = handler;
-        }
+        setHandler(INTERRUPT_HANDLER, handler);
         return this;
       }
 
       @Override
       public CommandProcess suspendHandler(Handler<Void> handler) {
-        synchronized (ProcessImpl.this) {
-          suspendHandler = handler;
-        }
+        setHandler(SUSPEND_HANDLER, handler);
         return this;
       }
 
       @Override
       public CommandProcess resumeHandler(Handler<Void> handler) {
-        synchronized (ProcessImpl.this) {
-          resumeHandler = handler;
-        }
+        setHandler(RESUME_HANDLER, handler);
         return this;
       }
 
       @Override
       public CommandProcess endHandler(Handler<Void> handler) {
-        synchronized (ProcessImpl.this) {
-          endHandler = handler;
-        }
+        setHandler(END_HANDLER, handler);
         return this;
       }
 
       @Override
       public CommandProcess backgroundHandler(Handler<Void> handler) {
-        synchronized (ProcessImpl.this) {
-          backgroundHandler = handler;
-        }
+        setHandler(BACKGROUND_HANDLER, handler);
         return this;
       }
 
       @Override
       public CommandProcess foregroundHandler(Handler<Void> handler) {
-        synchronized (ProcessImpl.this) {
-          foregroundHandler = handler;
-        }
+        setHandler(FOREGROUND_HANDLER, handler);
         return this;
       }
 
@@ -462,6 +697,11 @@ public class ProcessImpl implements Process {
 
     };
 
+    long timeout = resolveTimeout();
+    if (timeout > 0) {
+      deadline = Deadlines.schedule(vertx, timeout, this::expire);
+    }
+
     //
     context.runOnContext(v -> {
       try {
@@ -472,4 +712,49 @@ public class ProcessImpl implements Process {
       }
     });
   }
+
+  /**
+   * Resolve the timeout of the process from the timeout of the command or the default timeout of the session.
+   */
+  private long resolveTimeout() {
+    Long timeout = this.timeout;
+    if (timeout == null && session != null) {
+      timeout = session.get(TIMEOUT_KEY);
+    }
+    return timeout != null ? timeout : 0;
+  }
+
+  /**
+   * Resolve the context on which the process executes according to the context policy of the command or
+   * the default policy of the session.
+   */
+  private Context resolveContext() {
+    ContextPolicy policy = contextPolicy;
+    if (policy == null && session != null) {
+      policy = session.get(CONTEXT_POLICY_KEY);
+    }
+    if (policy == null) {
+      return creationContext;
+    }
+    VertxInternal vertxInternal = (VertxInternal) vertx;
+    ClassLoader tccl = Thread.currentThread().getContextClassLoader();
+    switch (policy) {
+      case SESSION:
+        if (session == null) {
+          return creationContext;
+        }
+        Context sessionContext = session.get(SESSION_CONTEXT_KEY);
+        if (sessionContext == null) {
+          sessionContext = vertxInternal.createEventLoopContext(vertxInternal.getEventLoopGroup().next(), null, null, tccl);
+          session.put(SESSION_CONTEXT_KEY, sessionContext);
+        }
+        return sessionContext;
+      case EVENT_LOOP:
+        return vertxInternal.createEventLoopContext(vertxInternal.getEventLoopGroup().next(), null, null, tccl);
+      case WORKER:
+        return vertxInternal.createWorkerContext(null, null, null, tccl);
+      default:
+        return creationContext;
+    }
+  }
 }
@@ -0,0 +1,287 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.command.impl;
+
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.shell.term.Tty;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Accumulates the output of a process and coalesces the writes performed during the same event loop turn
+ * in a single {@link Tty#write}, a batch is split when it reaches the maximum batch size, including a single
+ * write larger than the maximum batch size. Text and bytes are
+ * batched separately and written in order, a byte counts as a char.<p/>
+ *
+ * The writers never lock: a write is appended to a lock-free queue and a flush is scheduled on the output context
+ * when none is pending, the flush coalesces the queued writes. The queue is considered full when the number of chars
+ * not yet written to the tty reaches the write queue max size, the drain handler is called once the queue is flushed.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+class ProcessOutput {
+
+  /**
+   * The default maximum number of chars of a batch.
+   */
+  static final int DEFAULT_MAX_BATCH_SIZE = 8 * 1024;
+
+  /**
+   * The default maximum number of chars of the write queue.
+   */
+  static final int DEFAULT_WRITE_QUEUE_MAX_SIZE = 64 * 1024;
+
+  private final Context context;
+  private final Tty tty;
+  private final int maxBatchSize;
+  private final ConcurrentLinkedQueue<Object> writes = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+  private final AtomicInteger queued = new AtomicInteger();
+  private final AtomicBoolean full = new AtomicBoolean();
+  private volatile int writeQueueMaxSize = DEFAULT_WRITE_QUEUE_MAX_SIZE;
+  private volatile Handler<Void> drainHandler;
+
+  // Updated by the flush only
+  private volatile long frames;
+  private volatile long chars;
+  private volatile long firstFrameTime;
+  private volatile long lastFrameTime;
+
+  ProcessOutput(Context context, Tty tty) {
+    this(context, tty, DEFAULT_MAX_BATCH_SIZE);
+  }
+
+  ProcessOutput(Context context, Tty tty, int maxBatchSize) {
+    this.context = context;
+    this.tty = tty;
+    this.maxBatchSize = maxBatchSize;
+  }
+
+  void write(String data) {
+    writes.add(data);
+    queued(data.length());
+  }
+
+  void write(Buffer data) {
+    writes.add(data);
+    queued(data.length());
+  }
+
+  /**
+   * Account {@code len} queued chars and schedule a flush when none is pending.
+   */
+  private void queued(int len) {
+    if (queued.addAndGet(len) >= writeQueueMaxSize) {
+      full.set(true);
+    }
+    if (scheduled.compareAndSet(false, true)) {
+      context.runOnContext(v -> flush());
+    }
+  }
+
+  /**
+   * Write the queued writes to the tty in batches, it must be called from the output context.
+   */
+  void flush() {
+    // Reset before polling, a write queued after the last poll schedules another flush
+    scheduled.set(false);
+    StringBuilder text = null;
+    Buffer bytes = null;
+    Object data;
+    while ((data = writes.poll()) != null) {
+      if (data instanceof String) {
+        if (bytes != null) {
+          send(bytes);
+          bytes = null;
+        }
+        String s = (String) data;
+        if (text == null) {
+          text = new StringBuilder(Math.min(Math.max(s.length(), 64), maxBatchSize));
+        }
+        text.append(s);
+        if (text.length() >= maxBatchSize) {
+          text = split(text);
+        }
+      } else {
+        if (text != null) {
+          send(text.toString());
+          text = null;
+        }
+        Buffer b = (Buffer) data;
+        if (bytes == null) {
+          bytes = Buffer.buffer(Math.min(Math.max(b.length(), 64), maxBatchSize));
+        }
+        bytes.appendBuffer(b);
+        if (bytes.length() >= maxBatchSize) {
+          bytes = split(bytes);
+        }
+      }
+    }
+    if (text != null) {
+      send(text.toString());
+    } else if (bytes != null) {
+      send(bytes);
+    }
+    if (queued.get() < writeQueueMaxSize / 2 && full.getAndSet(false)) {
+      if (queued.get() >= writeQueueMaxSize) {
+        // A concurrent write filled the queue again, the next flush drains it
+        full.set(true);
+      }
+      Handler<Void> handler = drainHandler;
+      if (handler != null) {
+        handler.handle(null);
+      }
+    }
+  }
+
+  /**
+   * Split the text in batches of the maximum batch size, a surrogate pair is not split.
+   *
+   * @return the remaining text or {@code null}
+   */
+  private StringBuilder split(StringBuilder text) {
+    int len = text.length();
+    int from = 0;
+    while (len - from >= maxBatchSize) {
+      int to = from + maxBatchSize;
+      if (to - 1 > from && Character.isHighSurrogate(text.charAt(to - 1))) {
+        to--;
+      }
+      send(text.substring(from, to));
+      from = to;
+    }
+    if (from == len) {
+      return null;
+    }
+    return new StringBuilder(maxBatchSize).append(text, from, len);
+  }
+
+  /**
+   * Split the bytes in batches of the maximum batch size, a batch does not end in the middle of
+   * a {@literal UTF-8} sequence so it can be decoded on its own.
+   *
+   * @return the remaining bytes or {@code null}
+   */
+  private Buffer split(Buffer bytes) {
+    int len = bytes.length();
+    int from = 0;
+    while (len - from >= maxBatchSize) {
+      int to = from + maxBatchSize;
+      // Move back before the continuation bytes of a sequence, at most 3 bytes
+      for (int i = 0;i < 3 && to < len && to - 1 > from && (bytes.getByte(to) & 0xC0) == 0x80;i++) {
+        to--;
+      }
+      send(bytes.getBuffer(from, to));
+      from = to;
+    }
+    if (from == len) {
+      return null;
+    }
+    return Buffer.buffer(maxBatchSize).appendBuffer(bytes, from, len - from);
+  }
+
+  private void send(String batch) {
+    sent(batch.length());
+    tty.write(batch);
+  }
+
+  private void send(Buffer batch) {
+    sent(batch.length());
+    tty.write(batch);
+  }
+
+  private void sent(int len) {
+    queued.addAndGet(-len);
+    long now = System.nanoTime();
+    if (frames++ == 0) {
+      firstFrameTime = now;
+    }
+    lastFrameTime = now;
+    chars += len;
+  }
+
+  boolean writeQueueFull() {
+    return queued.get() >= writeQueueMaxSize;
+  }
+
+  void setWriteQueueMaxSize(int maxSize) {
+    writeQueueMaxSize = maxSize;
+  }
+
+  void drainHandler(Handler<Void> handler) {
+    drainHandler = handler;
+  }
+
+  /**
+   * @return the number of frames written to the tty
+   */
+  long frames() {
+    return frames;
+  }
+
+  /**
+   * @return the number of chars written to the tty
+   */
+  long chars() {
+    return chars;
+  }
+
+  /**
+   * @return the rate of frames written to the tty per second
+   */
+  double framesPerSecond() {
+    return rate(frames);
+  }
+
+  /**
+   * @return the rate of chars written to the tty per second
+   */
+  double charsPerSecond() {
+    return rate(chars);
+  }
+
+  private double rate(long count) {
+    long elapsed = lastFrameTime - firstFrameTime;
+    if (count == 0) {
+      return 0;
+    }
+    if (elapsed <= 0) {
+      return Double.POSITIVE_INFINITY;
+    }
+    return count * 1_000_000_000D / elapsed;
+  }
+}
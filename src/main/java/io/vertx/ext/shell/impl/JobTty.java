@@ -0,0 +1,373 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.impl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.shell.term.Tty;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The tty of a job, it delegates to the term of the shell while the job runs in foreground.<p/>
+ *
+ * When the job runs in background or when the shell is detached, the output is retained in a bounded ring buffer
+ * that keeps the most recent bytes. The buffer is allocated outside of the heap from a pool and it is returned to
+ * the pool when the job tty is released. The retained output is written to the term when the job is brought back
+ * to foreground. Without buffer, the output of a background job is written to the term and the output of a detached
+ * shell is lost.<p/>
+ *
+ * The handlers of the job are set again on the term the shell is attached to, except the drain handler that is called
+ * by the shell when the term drains.<p/>
+ *
+ * The output written to the term does not lock the job tty, it uses the term published in a volatile field whenever
+ * the output is not retained.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+class JobTty implements Tty {
+
+  private int capacity;
+  private OutputBufferQuota quota;
+  private Tty tty;
+  private boolean background;
+  private boolean terminated;
+  private String type;
+  private int width;
+  private int height;
+  private Handler<String> stdinHandler;
+  private Handler<Buffer> stdinBufferHandler;
+  private Handler<Void> resizeHandler;
+  private Handler<Void> drainHandler;
+  private ByteBuf ring;
+  private long written;
+
+  // The term the output is written to, null when the output is retained
+  private volatile Tty output;
+
+  JobTty(Tty tty) {
+    this(tty, 0, null);
+  }
+
+  /**
+   * Create a job tty with an output buffer of {@code capacity} bytes acquired from the {@code quota}, when the quota
+   * is exhausted the job tty has no buffer.
+   *
+   * @param tty the term
+   * @param capacity the buffer capacity
+   * @param quota the quota
+   */
+  JobTty(Tty tty, int capacity, OutputBufferQuota quota) {
+    if (capacity > 0 && quota != null && !quota.acquire(capacity)) {
+      capacity = 0;
+    }
+    this.tty = tty;
+    this.capacity = capacity;
+    this.quota = quota;
+    this.output = tty;
+  }
+
+  /**
+   * @return the capacity of the output buffer
+   */
+  synchronized int capacity() {
+    return capacity;
+  }
+
+  /**
+   * The job runs in background, the output is now retained.
+   */
+  synchronized void toBackground() {
+    background = true;
+    updateOutput();
+  }
+
+  /**
+   * The job runs in foreground, the retained output is written to the term.
+   */
+  synchronized void toForeground() {
+    background = false;
+    if (tty != null) {
+      flush();
+    }
+    updateOutput();
+  }
+
+  /**
+   * Detach from the term, the output is now retained.
+   */
+  synchronized void detach() {
+    if (tty != null) {
+      type = tty.type();
+      width = tty.width();
+      height = tty.height();
+      tty = null;
+    }
+    updateOutput();
+  }
+
+  /**
+   * Attach to a term, the job handlers are set on the term. The retained output is written to the term when the job
+   * runs in foreground.
+   *
+   * @param term the term
+   */
+  synchronized void attach(Tty term) {
+    tty = term;
+    if (!background) {
+      flush();
+    }
+    updateOutput();
+    if (terminated) {
+      release();
+      return;
+    }
+    if (stdinBufferHandler != null) {
+      term.stdinBufferHandler(stdinBufferHandler);
+    } else if (stdinHandler != null) {
+      term.stdinHandler(stdinHandler);
+    }
+    if (resizeHandler != null) {
+      term.resizehandler(resizeHandler);
+    }
+  }
+
+  /**
+   * Called when the term drains, the term is shared by the jobs of the shell so the shell calls the drain handler of
+   * every job.
+   */
+  void drain() {
+    Handler<Void> handler;
+    synchronized (this) {
+      handler = drainHandler;
+    }
+    if (handler != null) {
+      handler.handle(null);
+    }
+  }
+
+  /**
+   * The job terminated, the retained output is written to the term and the output buffer is released. When the
+   * shell is detached, the output is kept until the job tty is attached to a term.
+   *
+   * @return whether the output buffer is released
+   */
+  synchronized boolean terminate() {
+    terminated = true;
+    background = false;
+    if (tty != null) {
+      flush();
+      release();
+      return true;
+    }
+    updateOutput();
+    return false;
+  }
+
+  /**
+   * Release the output buffer.
+   */
+  synchronized void release() {
+    if (quota != null && capacity > 0) {
+      quota.release(capacity);
+    }
+    quota = null;
+    capacity = 0;
+    if (ring != null) {
+      ring.release();
+      ring = null;
+    }
+    written = 0;
+    updateOutput();
+  }
+
+  private void flush() {
+    String retained = retained();
+    written = 0;
+    if (retained.length() > 0) {
+      tty.write(retained);
+    }
+  }
+
+  /**
+   * @return the retained output
+   */
+  synchronized String retained() {
+    if (ring == null || written == 0) {
+      return "";
+    }
+    int len = (int) Math.min(written, capacity);
+    int start = (int) ((written - len) % capacity);
+    byte[] bytes = new byte[len];
+    int first = Math.min(len, capacity - start);
+    ring.getBytes(start, bytes, 0, first);
+    ring.getBytes(0, bytes, first, len - first);
+    int from = 0;
+    if (written > capacity) {
+      // Skip the continuation bytes of a char partially overwritten
+      while (from < len && (bytes[from] & 0xC0) == 0x80) {
+        from++;
+      }
+    }
+    return new String(bytes, from, len - from, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * @return whether the output is retained instead of being written to the term
+   */
+  private boolean retaining() {
+    return tty == null || (background && capacity > 0);
+  }
+
+  private void updateOutput() {
+    output = retaining() ? null : tty;
+  }
+
+  private void retain(byte[] bytes) {
+    if (capacity <= 0) {
+      return;
+    }
+    if (ring == null) {
+      ring = PooledByteBufAllocator.DEFAULT.directBuffer(capacity, capacity);
+    }
+    int off = Math.max(0, bytes.length - capacity);
+    written += off;
+    while (off < bytes.length) {
+      int pos = (int) (written % capacity);
+      int len = Math.min(bytes.length - off, capacity - pos);
+      ring.setBytes(pos, bytes, off, len);
+      off += len;
+      written += len;
+    }
+  }
+
+  @Override
+  public synchronized String type() {
+    return tty != null ? tty.type() : type;
+  }
+
+  @Override
+  public synchronized int width() {
+    return tty != null ? tty.width() : width;
+  }
+
+  @Override
+  public synchronized int height() {
+    return tty != null ? tty.height() : height;
+  }
+
+  @Override
+  public synchronized Tty stdinHandler(Handler<String> handler) {
+    stdinHandler = handler;
+    stdinBufferHandler = null;
+    if (tty != null) {
+      tty.stdinHandler(handler);
+    }
+    return this;
+  }
+
+  @Override
+  public synchronized Tty stdinBufferHandler(Handler<Buffer> handler) {
+    stdinBufferHandler = handler;
+    stdinHandler = null;
+    if (tty != null) {
+      tty.stdinBufferHandler(handler);
+    }
+    return this;
+  }
+
+  @Override
+  public Tty write(String data) {
+    Tty out = output;
+    if (out != null) {
+      out.write(data);
+      return this;
+    }
+    synchronized (this) {
+      if (retaining()) {
+        retain(data.getBytes(StandardCharsets.UTF_8));
+      } else {
+        tty.write(data);
+      }
+    }
+    return this;
+  }
+
+  @Override
+  public Tty write(Buffer data) {
+    Tty out = output;
+    if (out != null) {
+      out.write(data);
+      return this;
+    }
+    synchronized (this) {
+      if (retaining()) {
+        retain(data.getBytes());
+      } else {
+        tty.write(data);
+      }
+    }
+    return this;
+  }
+
+  @Override
+  public synchronized Tty resizehandler(Handler<Void> handler) {
+    resizeHandler = handler;
+    if (tty != null) {
+      tty.resizehandler(handler);
+    }
+    return this;
+  }
+
+  @Override
+  public boolean writeQueueFull() {
+    Tty out = output;
+    return out != null && out.writeQueueFull();
+  }
+
+  @Override
+  public synchronized Tty drainHandler(Handler<Void> handler) {
+    drainHandler = handler;
+    return this;
+  }
+
+  @Override
+  public synchronized Tty setWriteQueueMaxSize(int maxSize) {
+    if (tty != null) {
+      tty.setWriteQueueMaxSize(maxSize);
+    }
+    return this;
+  }
+}
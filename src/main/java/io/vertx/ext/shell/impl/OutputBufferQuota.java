@@ -0,0 +1,95 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Account the bytes of the job output buffers against a limit, a session quota is also accounted against the quota
+ * of the server.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+class OutputBufferQuota {
+
+  private final OutputBufferQuota parent;
+  private final long limit;
+  private final AtomicLong used = new AtomicLong();
+
+  OutputBufferQuota(OutputBufferQuota parent, long limit) {
+    this.parent = parent;
+    this.limit = limit;
+  }
+
+  /**
+   * Acquire {@code size} bytes.
+   *
+   * @param size the number of bytes
+   * @return whether the bytes were acquired
+   */
+  boolean acquire(int size) {
+    while (true) {
+      long current = used.get();
+      if (current + size > limit) {
+        return false;
+      }
+      if (used.compareAndSet(current, current + size)) {
+        break;
+      }
+    }
+    if (parent != null && !parent.acquire(size)) {
+      used.addAndGet(-size);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Release {@code size} bytes previously acquired.
+   *
+   * @param size the number of bytes
+   */
+  void release(int size) {
+    used.addAndGet(-size);
+    if (parent != null) {
+      parent.release(size);
+    }
+  }
+
+  /**
+   * @return the number of acquired bytes
+   */
+  long used() {
+    return used.get();
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.impl;
+
+import io.vertx.core.Vertx;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Evicts the sessions that have not been accessed for the session timeout.<p/>
+ *
+ * The sessions are kept in a queue ordered by deadline and a single timer is set for the earliest deadline. The
+ * last access time of a session is only checked when its deadline is reached: an active session is queued again
+ * with a deadline computed from its last access, so a tick only visits the sessions whose deadline has passed.
+ * Closed sessions are removed from the queue.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+class SessionReaper {
+
+  private static class Expiration {
+
+    final ShellImpl session;
+    final long deadline;
+
+    Expiration(ShellImpl session, long deadline) {
+      this.session = session;
+      this.deadline = deadline;
+    }
+  }
+
+  private final Vertx vertx;
+  private final long timeout;
+  private final long interval;
+  private final Map<String, ShellImpl> sessions;
+  private final Consumer<ShellImpl> evictor;
+  private final PriorityQueue<Expiration> queue = new PriorityQueue<>(Comparator.comparingLong(e -> e.deadline));
+  private final Map<String, Expiration> expirations = new HashMap<>();
+  private boolean started;
+  private long timerID = -1;
+  private long timerDeadline;
+
+  /**
+   * @param vertx the vertx instance
+   * @param timeout the session timeout in ms
+   * @param interval the minimum delay between two evictions in ms, a value {@code <= 0} disables the eviction
+   * @param sessions the active sessions
+   * @param evictor the handler closing an expired session
+   */
+  SessionReaper(Vertx vertx, long timeout, long interval, Map<String, ShellImpl> sessions, Consumer<ShellImpl> evictor) {
+    this.vertx = vertx;
+    this.timeout = timeout;
+    this.interval = interval;
+    this.sessions = sessions;
+    this.evictor = evictor;
+  }
+
+  synchronized void start() {
+    started = interval > 0;
+  }
+
+  synchronized void stop() {
+    started = false;
+    queue.clear();
+    expirations.clear();
+    if (timerID != -1) {
+      vertx.cancelTimer(timerID);
+      timerID = -1;
+    }
+  }
+
+  /**
+   * Track a new session.
+   *
+   * @param session the session
+   */
+  synchronized void add(ShellImpl session) {
+    if (started) {
+      long now = System.currentTimeMillis();
+      enqueue(new Expiration(session, Math.max(session.lastAccessedTime(), now) + timeout));
+      schedule(now);
+    }
+  }
+
+  /**
+   * Stop tracking a closed session.
+   *
+   * @param session the session
+   */
+  synchronized void remove(ShellImpl session) {
+    Expiration expiration = expirations.remove(session.id);
+    if (expiration != null && expiration.session == session) {
+      queue.remove(expiration);
+    }
+  }
+
+  private void enqueue(Expiration expiration) {
+    queue.add(expiration);
+    expirations.put(expiration.session.id, expiration);
+  }
+
+  /**
+   * @return the number of tracked sessions
+   */
+  synchronized int size() {
+    return queue.size();
+  }
+
+  private void schedule(long now) {
+    Expiration head = queue.peek();
+    if (head == null) {
+      return;
+    }
+    if (timerID != -1) {
+      if (head.deadline >= timerDeadline) {
+        return;
+      }
+      vertx.cancelTimer(timerID);
+    }
+    long delay = Math.max(head.deadline - now, interval);
+    timerDeadline = now + delay;
+    timerID = vertx.setTimer(delay, this::expire);
+  }
+
+  private void expire(long id) {
+    List<ShellImpl> toClose = new ArrayList<>();
+    synchronized (this) {
+      if (timerID != id) {
+        return;
+      }
+      timerID = -1;
+      long now = System.currentTimeMillis();
+      Expiration head;
+      while ((head = queue.peek()) != null && head.deadline <= now) {
+        queue.poll();
+        ShellImpl session = head.session;
+        expirations.remove(session.id);
+        if (sessions.get(session.id) != session) {
+          continue;
+        }
+        long lastAccessedTime = session.lastAccessedTime();
+        if (now - lastAccessedTime > timeout) {
+          toClose.add(session);
+        } else {
+          enqueue(new Expiration(session, lastAccessedTime + timeout + 1));
+        }
+      }
+      schedule(now);
+    }
+    toClose.forEach(evictor);
+  }
+}
@@ -33,8 +33,11 @@
 package io.vertx.ext.shell.impl;
 
 import io.termd.core.util.Helper;
+import io.vertx.core.Context;
 import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
 import io.vertx.ext.shell.Shell;
+import io.vertx.ext.shell.command.impl.ProcessImpl;
 import io.vertx.ext.shell.session.Session;
 import io.vertx.ext.shell.session.impl.SessionImpl;
 import io.vertx.ext.shell.system.*;
@@ -43,10 +46,13 @@ import io.vertx.ext.shell.system.impl.InternalCommandManager;
 import io.vertx.ext.shell.system.impl.JobControllerImpl;
 import io.vertx.ext.shell.cli.CliToken;
 import io.vertx.ext.shell.term.Term;
+import io.vertx.ext.shell.term.Tty;
+import io.vertx.ext.shell.term.impl.TermImpl;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Function;
 
 /**
@@ -57,22 +63,41 @@ import java.util.function.Function;
 public class ShellImpl implements Shell {
 
   final String id;
+  final String user; // The user authenticated by the term
+  final Context context;
   final Promise<Void> closedPromise;
   private final InternalCommandManager commandManager;
   private final Session session = new SessionImpl();
   private final JobControllerImpl jobController;
-  private Term term;
+  private volatile Term term;
+  volatile ShellServerImpl server; // Set when the shell can be detached
+  volatile int jobOutputBufferSize;
+  volatile OutputBufferQuota outputBufferQuota;
+  private volatile boolean detached;
+  private volatile boolean detachRequested;
+  private volatile boolean closing;
+  private volatile Job detachedForegroundJob; // The foreground job when the shell was detached
+  private final List<JobTty> terminatedTtys = new CopyOnWriteArrayList<>(); // Of the jobs terminated while detached
   private String welcome;
   private Function<Session, String> promptFunc = s -> "% ";
 
   public ShellImpl(Term term, InternalCommandManager commandManager) {
 
     session.put("vert.x-command-manager", commandManager);
+    if (commandManager.getContextPolicy() != null) {
+      session.put(ProcessImpl.CONTEXT_POLICY_KEY, commandManager.getContextPolicy());
+    }
+    if (commandManager.getProcessTimeout() > 0) {
+      session.put(ProcessImpl.TIMEOUT_KEY, commandManager.getProcessTimeout());
+    }
 
     this.id = UUID.randomUUID().toString();
+    this.user = term instanceof TermImpl ? ((TermImpl) term).user() : null;
+    this.context = Vertx.currentContext();
     this.jobController = new JobControllerImpl();
     this.commandManager = commandManager;
     this.closedPromise = Promise.promise();
+    this.closedPromise.future().onComplete(ar -> terminatedTtys.forEach(JobTty::release));
     this.term = term;
 
     if (term != null) {
@@ -85,7 +110,7 @@ public class ShellImpl implements Shell {
     }
   }
 
-  public JobController jobController() {
+  public JobControllerImpl jobController() {
     return jobController;
   }
 
@@ -108,7 +133,15 @@ public class ShellImpl implements Shell {
   }
 
   public long lastAccessedTime() {
-    return term.lastAccessedTime();
+    // A detached shell expires with the detached session timeout
+    return detached ? System.currentTimeMillis() : term.lastAccessedTime();
+  }
+
+  /**
+   * @return whether the shell is detached from its term
+   */
+  public boolean isDetached() {
+    return detached;
   }
 
   public void setWelcome(String welcome) {
@@ -121,6 +154,14 @@ public class ShellImpl implements Shell {
   }
 
   public ShellImpl init() {
+    bind();
+    if (welcome != null && welcome.length() > 0) {
+      term.write(welcome);
+    }
+    return this;
+  }
+
+  private void bind() {
 
     term.interruptHandler(key -> jobController().foregroundJob().interrupt());
 
@@ -129,23 +170,107 @@ public class ShellImpl implements Shell {
       Job job = jobController.foregroundJob();
       term.echo(statusLine(job, ExecStatus.STOPPED) + "\n");
       job.suspend();
+      JobTty tty = jobTty(job);
+      if (tty != null) {
+        tty.toBackground();
+      }
       return true;
     });
 
-    term.closeHandler(v ->
+    // The term is shared by the foreground and background jobs, each job waits for its drain
+    term.drainHandler(v -> {
+      for (Job job : jobController.jobs()) {
+        JobTty tty = jobTty(job);
+        if (tty != null) {
+          tty.drain();
+        }
+      }
+    });
+
+    term.closeHandler(v -> {
+      if (!detach()) {
         jobController.close(ar ->
             closedPromise.complete()
-        )
-    );
-    if (welcome != null && welcome.length() > 0) {
-      term.write(welcome);
+        );
+      }
+    });
+  }
+
+  /**
+   * Detach the shell from its closed term, the jobs keep running and their output is retained until the shell
+   * is attached again. The shell is detached when it is requested or when the connection is lost while jobs are
+   * running.
+   *
+   * @return true if the shell is detached
+   */
+  private boolean detach() {
+    ShellServerImpl server = this.server;
+    if (closing || server == null || (!detachRequested && jobController.jobs().isEmpty())) {
+      return false;
     }
-    return this;
+    detachRequested = false;
+    if (!server.detach(this)) {
+      return false;
+    }
+    detached = true;
+    Job foregroundJob = jobController.foregroundJob();
+    detachedForegroundJob = foregroundJob;
+    if (foregroundJob != null) {
+      foregroundJob.toBackground();
+    }
+    for (Job job : jobController.jobs()) {
+      JobTty tty = jobTty(job);
+      if (tty != null) {
+        tty.toBackground();
+        tty.detach();
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Attach a detached shell to a term. The job running in foreground when the shell was detached is brought back
+   * to foreground and its retained output is written to the term, the output of the other jobs remains retained
+   * until they are brought to foreground.
+   *
+   * @param term the term
+   */
+  void attach(Term term) {
+    this.term = term;
+    term.setSession(session);
+    bind();
+    detached = false;
+    for (JobTty tty : terminatedTtys) {
+      terminatedTtys.remove(tty);
+      tty.attach(term);
+    }
+    for (Job job : jobController.jobs()) {
+      JobTty tty = jobTty(job);
+      if (tty != null) {
+        tty.attach(term);
+      }
+    }
+    Job job = detachedForegroundJob;
+    detachedForegroundJob = null;
+    if (job != null && job.status() == ExecStatus.RUNNING && jobController.getJob(job.id()) == job) {
+      JobTty tty = jobTty(job);
+      if (tty != null) {
+        tty.toForeground();
+      }
+      job.toForeground();
+    } else {
+      readline();
+    }
+  }
+
+  private static JobTty jobTty(Job job) {
+    Tty tty = job.process().getTty();
+    return tty instanceof JobTty ? (JobTty) tty : null;
   }
 
   private String statusLine(Job job, ExecStatus status) {
     StringBuilder sb = new StringBuilder("[").append(job.id()).append("]");
-    if (findJob() == job) {
+    if (jobController.currentJob() == job) {
       sb.append("+");
     }
     sb.append(" ").append(Character.toUpperCase(status.name().charAt(0))).append(job.status().name().substring(1).toLowerCase());
@@ -153,12 +278,21 @@ public class ShellImpl implements Shell {
     return sb.toString();
   }
 
-  private Job findJob() {
-    Job foregroundJob = jobController.foregroundJob();
-    return jobController().jobs().
-        stream().
-        filter(job -> job != foregroundJob).sorted((j1, j2) -> ((Long) j1.lastStopped()).compareTo(j2.lastStopped())).
-        findFirst().orElse(null);
+  /**
+   * Find a job by its spec: {@code %n} or {@code n} for the job {@code n}, {@code %+} or {@code %%} for the current
+   * job, {@code %-} for the previous job. Without spec the current job is returned.
+   */
+  private Job findJob(String spec) {
+    if (spec == null || spec.equals("%+") || spec.equals("%%")) {
+      return jobController.currentJob();
+    } else if (spec.equals("%-")) {
+      return jobController.previousJob();
+    }
+    try {
+      return jobController.getJob(Integer.parseInt(spec.startsWith("%") ? spec.substring(1) : spec));
+    } catch (NumberFormatException e) {
+      return null;
+    }
   }
 
   public void readline() {
@@ -178,58 +312,93 @@ public class ShellImpl implements Shell {
 
       List<CliToken> tokens = CliToken.tokenize(line);
 
-      if (tokens.stream().filter(CliToken::isText).count() == 0) {
+      CliToken first = null;
+      for (CliToken token : tokens) {
+        if (token.isText()) {
+          first = token;
+          break;
+        }
+      }
+      if (first == null) {
         // For now do like this
         ShellImpl.this.readline();
         return;
       }
 
-      Optional<CliToken> first = tokens.stream().filter(CliToken::isText).findFirst();
-      if (first.isPresent()) {
-        String name = first.get().value();
-        switch (name) {
-          case "exit":
-          case "logout":
+      String name = first.value();
+      switch (name) {
+        case "exit":
+        case "logout":
+          term.close();
+          return;
+        case "detach":
+          if (server == null || !server.canDetach()) {
+            term.write("detach: detached sessions are not enabled\n");
+            readline();
+          } else {
+            term.write("[detached from session " + id + "]\n");
+            detachRequested = true;
             term.close();
-            return;
-          case "jobs":
+          }
+          return;
+        case "attach": {
+          List<String> args = args(tokens, first);
+          attach(args.size() > 0 ? args.get(0) : null);
+          return;
+        }
+        case "jobs": {
+          List<String> args = args(tokens, first);
+          if (args.size() > 0 && args.get(0).equals("-o")) {
+            jobOutput(args.size() > 1 ? args.get(1) : null);
+          } else {
             jobController.jobs().forEach(job -> {
               String statusLine = statusLine(job, job.status()) + "\n";
               term.write(statusLine);
             });
+          }
+          readline();
+          return;
+        }
+        case "fg": {
+          List<String> args = args(tokens, first);
+          Job job = findJob(args.size() > 0 ? args.get(0) : null);
+          if (job == null) {
+            term.write("no such job\n");
             readline();
-            return;
-          case "fg": {
-            Job job = findJob();
-            if (job == null) {
-              term.write("no such job\n");
-              readline();
+          } else {
+            JobTty tty = jobTty(job);
+            if (tty != null) {
+              tty.toForeground();
+            }
+            if (job.status() == ExecStatus.STOPPED) {
+              job.resume(true);
             } else {
-              if (job.status() == ExecStatus.STOPPED) {
-                job.resume(true);
-              } else {
-                job.toForeground();
-              }
+              job.toForeground();
             }
-            return;
           }
-          case "bg": {
-            Job job = findJob();
-            if (job == null) {
-              term.write("no such job\n");
+          return;
+        }
+        case "bg": {
+          List<String> args = args(tokens, first);
+          Job job = findJob(args.size() > 0 ? args.get(0) : null);
+          if (job == null) {
+            term.write("no such job\n");
+            readline();
+          } else {
+            if (job.status() == ExecStatus.STOPPED) {
+              JobTty tty = jobTty(job);
+              if (tty != null) {
+                tty.toBackground();
+              }
+              job.resume(false);
+              term.echo(statusLine(job, ExecStatus.RUNNING) + "\n");
               readline();
             } else {
-              if (job.status() == ExecStatus.STOPPED) {
-                job.resume(false);
-                term.echo(statusLine(job, ExecStatus.RUNNING) + "\n");
-                readline();
-              } else {
-                term.write("job " + job.id() + " already in background\n");
-                readline();
-              }
+              term.write("job " + job.id() + " already in background\n");
+              readline();
             }
-            return;
           }
+          return;
         }
       }
 
@@ -241,7 +410,14 @@ public class ShellImpl implements Shell {
         readline();
         return;
       }
-      job.setTty(term);
+      JobTty tty = new JobTty(term, jobOutputBufferSize, outputBufferQuota);
+      job.statusUpdateHandler(status -> {
+        if (status == ExecStatus.TERMINATED && !tty.terminate()) {
+          // Detached, the output is written when the shell is attached
+          terminatedTtys.add(tty);
+        }
+      });
+      job.setTty(tty);
       job.setSession(session);
       job.run();
     }, completion -> {
@@ -249,8 +425,68 @@ public class ShellImpl implements Shell {
     });
   }
 
+  private static List<String> args(List<CliToken> tokens, CliToken first) {
+    List<String> args = new ArrayList<>();
+    for (CliToken token : tokens.subList(tokens.indexOf(first) + 1, tokens.size())) {
+      if (token.isText()) {
+        args.add(token.value());
+      }
+    }
+    return args;
+  }
+
+  /**
+   * Write the output retained for a job running in background.
+   */
+  private void jobOutput(String target) {
+    if (target == null) {
+      term.write("jobs: -o: option requires an argument\n");
+      return;
+    }
+    Job job = findJob(target);
+    if (job == null) {
+      term.write("jobs: " + target + ": no such job\n");
+    } else {
+      JobTty tty = jobTty(job);
+      if (tty != null) {
+        term.write(tty.retained());
+      }
+    }
+  }
+
+  /**
+   * Attach the shell identified by {@code target} to the term of this shell, this shell is then closed without
+   * closing the term. Without target, the detached shells are listed.
+   */
+  private void attach(String target) {
+    ShellServerImpl server = this.server;
+    if (server == null || !server.canDetach()) {
+      term.write("attach: detached sessions are not enabled\n");
+      readline();
+    } else if (target == null) {
+      server.detachedShells(user).forEach(shell -> {
+        term.write(shell.id + " (" + shell.jobController.jobs().size() + " jobs)\n");
+      });
+      readline();
+    } else if (!jobController.jobs().isEmpty()) {
+      term.write("attach: the current session has jobs\n");
+      readline();
+    } else {
+      ShellImpl shell = server.attach(target, user);
+      if (shell == null) {
+        term.write("attach: " + target + ": no such session\n");
+        readline();
+      } else {
+        closing = true;
+        jobController.close(ar -> closedPromise.complete());
+        shell.attach(term);
+      }
+    }
+  }
+
   public void close() {
-    if (term != null) {
+    closing = true;
+    if (term != null && !detached) {
       term.close();
     } else {
       jobController.close(ar -> closedPromise.complete());
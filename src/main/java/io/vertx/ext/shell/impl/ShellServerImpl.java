@@ -40,8 +40,11 @@ import io.vertx.core.Vertx;
 import io.vertx.ext.shell.Shell;
 import io.vertx.ext.shell.ShellServer;
 import io.vertx.ext.shell.ShellServerOptions;
+import io.vertx.ext.shell.command.Command;
 import io.vertx.ext.shell.command.CommandBuilder;
 import io.vertx.ext.shell.command.CommandResolver;
+import io.vertx.ext.shell.command.impl.ProcessImpl;
+import io.vertx.ext.shell.command.impl.VersionedCommandResolver;
 import io.vertx.ext.shell.session.impl.SessionImpl;
 import io.vertx.ext.shell.system.Process;
 import io.vertx.ext.shell.system.impl.InternalCommandManager;
@@ -52,10 +55,9 @@ import io.vertx.ext.shell.term.impl.SSHServer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -70,12 +72,15 @@ public class ShellServerImpl implements ShellServer {
   private final CopyOnWriteArrayList<CommandResolver> resolvers;
   private final InternalCommandManager commandManager;
   private final List<TermServer> termServers;
-  private final long timeoutMillis;
-  private final long reaperInterval;
   private String welcomeMessage;
   private boolean closed = true;
-  private long timerID = -1;
   private final Map<String, ShellImpl> sessions;
+  private final Map<String, Long> detached; // Detached shell id -> expiration timer id
+  private final long detachedSessionTimeout;
+  private final int jobOutputBufferSize;
+  private final long sessionOutputBufferLimit;
+  private final OutputBufferQuota outputBufferQuota;
+  private final SessionReaper reaper;
   private final Promise<Void> sessionsClosed = Promise.promise();
   private Handler<Shell> shellHandler;
 
@@ -83,25 +88,51 @@ public class ShellServerImpl implements ShellServer {
     this.vertx = vertx;
     this.welcomeMessage = options.getWelcomeMessage();
     this.termServers = new ArrayList<>();
-    this.timeoutMillis = options.getSessionTimeout();
     this.sessions = new ConcurrentHashMap<>();
-    this.reaperInterval = options.getReaperInterval();
+    this.detached = new ConcurrentHashMap<>();
+    this.detachedSessionTimeout = options.getDetachedSessionTimeout();
+    if (options.getJobOutputBufferSize() > 0) {
+      this.jobOutputBufferSize = options.getJobOutputBufferSize();
+    } else if (detachedSessionTimeout > 0) {
+      // Retain the output of the detached sessions
+      this.jobOutputBufferSize = ShellServerOptions.DEFAULT_DETACHED_JOB_OUTPUT_BUFFER_SIZE;
+    } else {
+      this.jobOutputBufferSize = 0;
+    }
+    this.sessionOutputBufferLimit = options.getSessionOutputBufferLimit();
+    this.outputBufferQuota = new OutputBufferQuota(null, options.getServerOutputBufferLimit());
+    this.reaper = new SessionReaper(vertx, options.getSessionTimeout(), options.getReaperInterval(), sessions, ShellServerImpl::closeOnContext);
     this.resolvers = new CopyOnWriteArrayList<>();
-    this.commandManager = new InternalCommandManager(resolvers);
+    this.commandManager = new InternalCommandManager(vertx, resolvers);
+    this.commandManager.setContextPolicy(options.getContextPolicy());
+    this.commandManager.setProcessTimeout(options.getProcessTimeout());
 
-    // Register builtin commands so they are listed in help
-    resolvers.add(() -> Arrays.asList(
-        CommandBuilder.command("exit").processHandler(process -> {}).build(vertx),
-        CommandBuilder.command("logout").processHandler(process -> {}).build(vertx),
-        CommandBuilder.command("jobs").processHandler(process -> {}).build(vertx),
-        CommandBuilder.command("fg").processHandler(process -> {}).build(vertx),
-        CommandBuilder.command("bg").processHandler(process -> {}).build(vertx)
+    // Register builtin commands so they are listed in help, they are executed by the shell and fail
+    // when executed otherwise, e.g in a script or a pipeline
+    List<Command> builtins = Collections.unmodifiableList(Arrays.asList(
+        builtin(vertx, "exit"),
+        builtin(vertx, "logout"),
+        builtin(vertx, "jobs"),
+        builtin(vertx, "fg"),
+        builtin(vertx, "bg"),
+        builtin(vertx, "source"),
+        builtin(vertx, "detach"),
+        builtin(vertx, "attach")
     ));
+    resolvers.add((VersionedCommandResolver) () -> builtins);
+  }
+
+  private static Command builtin(Vertx vertx, String name) {
+    return CommandBuilder.command(name).processHandler(process -> {
+      process.write(name + ": can only be used in an interactive shell\n");
+      process.end(1);
+    }).build(vertx);
   }
 
   @Override
   public synchronized ShellServer registerCommandResolver(CommandResolver resolver) {
     resolvers.add(0, resolver);
+    commandManager.invalidate();
     return this;
   }
 
@@ -121,21 +152,39 @@ public class ShellServerImpl implements ShellServer {
     }
     ShellImpl session = createShell(term);
     session.setWelcome(welcomeMessage);
+    session.server = this;
     session.closedPromise.future().onComplete(ar -> {
       boolean completeSessionClosed;
       synchronized (ShellServerImpl.this) {
         sessions.remove(session.id);
+        reaper.remove(session);
+        Long timerID = detached.remove(session.id);
+        if (timerID != null) {
+          vertx.cancelTimer(timerID);
+        }
         completeSessionClosed = sessions.isEmpty() && closed;
       }
       if (completeSessionClosed) {
-        sessionsClosed.complete();
+        sessionsClosed.tryComplete();
       }
     });
     session.init();
     if (shellHandler != null) {
       shellHandler.handle(session);
     }
-    sessions.put(session.id, session); // Put after init so the close handler on the connection is set
+    // Terms are handled concurrently by the term server instances
+    boolean serverClosed;
+    synchronized (this) {
+      serverClosed = closed;
+      if (!serverClosed && !session.closedPromise.future().isComplete()) {
+        sessions.put(session.id, session); // Put after init so the close handler on the connection is set
+        reaper.add(session);
+      }
+    }
+    if (serverClosed) {
+      session.close();
+      return;
+    }
     session.readline(); // Now readline
   }
 
@@ -168,8 +217,8 @@ public class ShellServerImpl implements ShellServer {
         } else {
           synchronized (this) {
             closed = false;
+            reaper.start();
           }
-          setTimer();
           listenHandler.handle(Future.succeededFuture());
         }
       }
@@ -177,8 +226,17 @@ public class ShellServerImpl implements ShellServer {
     toStart.forEach(termServer -> {
       if (termServer instanceof SSHServer) {
         ((SSHServer)termServer).setExecHandler(exec -> {
-          Process process = commandManager.createProcess(exec.command());
-          process.setSession(new SessionImpl());
+          // The exec command is a script executed line by line
+          Process process = commandManager.createScript(exec.command());
+          SessionImpl session = new SessionImpl();
+          session.put("vert.x-command-manager", commandManager);
+          if (commandManager.getContextPolicy() != null) {
+            session.put(ProcessImpl.CONTEXT_POLICY_KEY, commandManager.getContextPolicy());
+          }
+          if (commandManager.getProcessTimeout() > 0) {
+            session.put(ProcessImpl.TIMEOUT_KEY, commandManager.getProcessTimeout());
+          }
+          process.setSession(session);
           process.setTty(exec);
           process.terminatedHandler(exec::end);
           process.run(true);
@@ -190,23 +248,77 @@ public class ShellServerImpl implements ShellServer {
     return this;
   }
 
-  private void evictSessions(long timerID) {
-    long now = System.currentTimeMillis();
-    Set<ShellImpl> toClose = new HashSet<>();
-    for (ShellImpl session: sessions.values()) {
-      if (now - session.lastAccessedTime() > timeoutMillis) {
-        toClose.add(session);
+  /**
+   * @return whether shells can be detached
+   */
+  boolean canDetach() {
+    return detachedSessionTimeout > 0;
+  }
+
+  /**
+   * Keep a shell whose term is closed, the shell is closed when it is not attached before the detached session
+   * timeout.
+   *
+   * @param shell the shell
+   * @return whether the shell is kept
+   */
+  synchronized boolean detach(ShellImpl shell) {
+    if (closed || detachedSessionTimeout <= 0 || sessions.get(shell.id) != shell) {
+      return false;
+    }
+    long timerID = vertx.setTimer(detachedSessionTimeout, id -> {
+      if (detached.remove(shell.id, id)) {
+        closeOnContext(shell);
       }
+    });
+    detached.put(shell.id, timerID);
+    return true;
+  }
+
+  /**
+   * Take a detached shell to attach it to another term of the same user.
+   *
+   * @param id the shell id
+   * @param user the user of the term
+   * @return the shell or {@code null} when no shell with this id is detached for this user
+   */
+  synchronized ShellImpl attach(String id, String user) {
+    ShellImpl shell = sessions.get(id);
+    if (shell == null || !Objects.equals(shell.user, user)) {
+      return null;
     }
-    for (ShellImpl session: toClose) {
-      session.close();
+    Long timerID = detached.remove(id);
+    if (timerID == null) {
+      return null;
+    }
+    vertx.cancelTimer(timerID);
+    return shell;
+  }
+
+  /**
+   * @param user the user
+   * @return the detached shells of the user
+   */
+  List<ShellImpl> detachedShells(String user) {
+    List<ShellImpl> shells = new ArrayList<>();
+    for (String id : detached.keySet()) {
+      ShellImpl shell = sessions.get(id);
+      if (shell != null && Objects.equals(shell.user, user)) {
+        shells.add(shell);
+      }
     }
-    setTimer();
+    return shells;
   }
 
-  private synchronized void setTimer() {
-    if (!closed && reaperInterval > 0) {
-      timerID = vertx.setTimer(reaperInterval, this::evictSessions);
+  /**
+   * Close the session on the context that created it, sessions of the different term server instances
+   * are bound to different event loops.
+   */
+  private static void closeOnContext(ShellImpl session) {
+    if (session.context != null && session.context != Vertx.currentContext()) {
+      session.context.runOnContext(v -> session.close());
+    } else {
+      session.close();
     }
   }
 
@@ -220,7 +332,10 @@ public class ShellServerImpl implements ShellServer {
     if (closed) {
       throw new IllegalStateException("Closed");
     }
-    return new ShellImpl(term, commandManager);
+    ShellImpl shell = new ShellImpl(term, commandManager);
+    shell.jobOutputBufferSize = jobOutputBufferSize;
+    shell.outputBufferQuota = new OutputBufferQuota(outputBufferQuota, sessionOutputBufferLimit);
+    return shell;
   }
 
   @Override
@@ -233,13 +348,11 @@ public class ShellServerImpl implements ShellServer {
         toClose = Collections.emptyList();
       } else {
         closed = true;
-        if (timerID != -1) {
-          vertx.cancelTimer(timerID);
-        }
+        reaper.stop();
         toStop = termServers;
         toClose = new ArrayList<>(sessions.values());
         if (toClose.isEmpty()) {
-          sessionsClosed.complete();
+          sessionsClosed.tryComplete();
         }
       }
     }
@@ -252,7 +365,7 @@ public class ShellServerImpl implements ShellServer {
           completionHandler.handle(Future.succeededFuture());
         }
       };
-      toClose.forEach(ShellImpl::close);
+      toClose.forEach(ShellServerImpl::closeOnContext);
       toStop.forEach(termServer -> termServer.close(handler));
       sessionsClosed.future().onComplete(handler);
     }
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.system;
+
+import io.vertx.codegen.annotations.VertxGen;
+
+/**
+ * The policy determining the Vert.x context on which a process executes.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+@VertxGen
+public enum ContextPolicy {
+
+  /**
+   * The process executes on the context that created the command.
+   */
+  CREATION,
+
+  /**
+   * The processes of a shell session share an event loop context assigned to the session.
+   */
+  SESSION,
+
+  /**
+   * Each process executes on its own event loop context, event loops are assigned in a round-robin fashion.
+   */
+  EVENT_LOOP,
+
+  /**
+   * Each process executes on its own worker context.
+   */
+  WORKER
+
+}
@@ -32,21 +32,28 @@
 
 package io.vertx.ext.shell.system.impl;
 
+import io.vertx.core.Context;
 import io.vertx.core.Vertx;
 import io.vertx.core.VertxException;
 import io.vertx.ext.shell.cli.CliToken;
 import io.vertx.ext.shell.cli.Completion;
 import io.vertx.ext.shell.command.Command;
 import io.vertx.ext.shell.command.CommandResolver;
+import io.vertx.ext.shell.command.impl.VersionedCommandResolver;
 import io.vertx.ext.shell.session.Session;
+import io.vertx.ext.shell.system.ContextPolicy;
 import io.vertx.ext.shell.system.Process;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
@@ -54,13 +61,85 @@ import java.util.stream.Collectors;
  */
 public class InternalCommandManager {
 
+  /**
+   * The maximum number of nested {@literal source} commands.
+   */
+  public static final int MAX_SOURCE_DEPTH = 16;
+
+  /**
+   * An immutable snapshot of the commands provided by the versioned resolvers, valid as long as the versions of the
+   * resolvers do not change. The resolvers that are not versioned are not indexed and are scanned on each lookup.
+   */
+  private static class CommandIndex {
+
+    final long version;
+    final Map<String, Command> commands;
+    final Map<String, Integer> positions;
+    final List<String> names;
+    final String[] sortedNames;
+    final boolean scan;
+
+    CommandIndex(long version, Map<String, Command> commands, Map<String, Integer> positions, List<String> names, boolean scan) {
+      this.version = version;
+      this.commands = commands;
+      this.positions = positions;
+      this.names = names;
+      this.scan = scan;
+      this.sortedNames = names.toArray(new String[0]);
+      Arrays.sort(sortedNames);
+    }
+
+    /**
+     * @return the index of the first sorted name greater or equal than the {@code prefix}
+     */
+    int from(String prefix) {
+      int index = Arrays.binarySearch(sortedNames, prefix);
+      return index < 0 ? -(index + 1) : index;
+    }
+
+    /**
+     * @return the index following the last sorted name starting with the {@code prefix}, the names starting with
+     * the prefix are contiguous from the {@code from} index
+     */
+    int to(int from, String prefix) {
+      int low = from;
+      int high = sortedNames.length;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (sortedNames[mid].startsWith(prefix)) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      return low;
+    }
+  }
+
+  private final Vertx vertx;
   private final List<CommandResolver> resolvers;
+  private final AtomicLong version = new AtomicLong();
+  private volatile CommandIndex index;
+  private volatile ContextPolicy contextPolicy;
+  private volatile long processTimeout;
 
   public InternalCommandManager(CommandResolver... resolvers) {
-    this.resolvers = Arrays.asList(resolvers);
+    this(null, Arrays.asList(resolvers));
   }
 
   public InternalCommandManager(List<CommandResolver> resolvers) {
+    this(null, resolvers);
+  }
+
+  /**
+   * Create a command manager.
+   *
+   * @param vertx the vertx instance opening the redirected and sourced files, when {@code null} the vertx instance
+   *              of the current context is used
+   * @param resolvers the command resolvers
+   */
+  public InternalCommandManager(Vertx vertx, List<CommandResolver> resolvers) {
+    this.vertx = vertx;
     this.resolvers = resolvers;
   }
 
@@ -68,6 +147,136 @@ public class InternalCommandManager {
     return resolvers;
   }
 
+  /**
+   * @return the default context policy of the processes
+   */
+  public ContextPolicy getContextPolicy() {
+    return contextPolicy;
+  }
+
+  /**
+   * Set the default context policy of the processes, it applies to commands that do not declare a policy.
+   *
+   * @param contextPolicy the context policy
+   * @return this object
+   */
+  public InternalCommandManager setContextPolicy(ContextPolicy contextPolicy) {
+    this.contextPolicy = contextPolicy;
+    return this;
+  }
+
+  /**
+   * @return the default timeout of the processes
+   */
+  public long getProcessTimeout() {
+    return processTimeout;
+  }
+
+  /**
+   * Set the default timeout of the processes, it applies to commands that do not declare a timeout.
+   *
+   * @param processTimeout the timeout in ms, a value {@code <= 0} means no timeout
+   * @return this object
+   */
+  public InternalCommandManager setProcessTimeout(long processTimeout) {
+    this.processTimeout = processTimeout;
+    return this;
+  }
+
+  /**
+   * Invalidate the command index, this must be called when the list of resolvers is modified.
+   */
+  public void invalidate() {
+    version.incrementAndGet();
+  }
+
+  /**
+   * Compute the current version of the versioned resolvers.
+   *
+   * @return the version
+   */
+  private long currentVersion() {
+    long current = version.get();
+    for (int i = 0;i < resolvers.size();i++) {
+      CommandResolver resolver = resolvers.get(i);
+      if (resolver instanceof VersionedCommandResolver) {
+        current += ((VersionedCommandResolver) resolver).version();
+      }
+    }
+    return current;
+  }
+
+  /**
+   * @return the up to date command index
+   */
+  private CommandIndex index() {
+    long current = currentVersion();
+    CommandIndex idx = index;
+    if (idx == null || idx.version != current) {
+      Map<String, Command> commands = new HashMap<>();
+      Map<String, Integer> positions = new HashMap<>();
+      List<String> names = new ArrayList<>();
+      boolean scan = false;
+      for (int i = 0;i < resolvers.size();i++) {
+        CommandResolver resolver = resolvers.get(i);
+        if (!(resolver instanceof VersionedCommandResolver)) {
+          scan = true;
+          continue;
+        }
+        for (Command command : resolver.commands()) {
+          String name = command.name();
+          if (name != null && commands.putIfAbsent(name, command) == null) {
+            positions.put(name, i);
+            names.add(name);
+          }
+        }
+      }
+      idx = new CommandIndex(current, commands, positions, Collections.unmodifiableList(names), scan);
+      index = idx;
+    }
+    return idx;
+  }
+
+  /**
+   * Resolve a command by its name, the first resolver providing the command wins.
+   *
+   * @param name the command name
+   * @return the command or {@code null}
+   */
+  public Command getCommand(String name) {
+    CommandIndex idx = index();
+    Command command = idx.commands.get(name);
+    if (idx.scan) {
+      // Scan the resolvers that are not indexed and precede the indexed resolver providing the command
+      int position = command != null ? idx.positions.get(name) : resolvers.size();
+      for (int i = 0;i < position && i < resolvers.size();i++) {
+        CommandResolver resolver = resolvers.get(i);
+        if (!(resolver instanceof VersionedCommandResolver)) {
+          Command scanned = resolver.getCommand(name);
+          if (scanned != null) {
+            return scanned;
+          }
+        }
+      }
+    }
+    return command;
+  }
+
+  /**
+   * @return the distinct names of the commands provided by the resolvers
+   */
+  public List<String> commandNames() {
+    CommandIndex idx = index();
+    if (!idx.scan) {
+      return idx.names;
+    }
+    return resolvers.stream().
+        flatMap(res -> res.commands().stream()).
+        map(Command::name).
+        distinct().
+        collect(Collectors.toList());
+  }
+
   /**
    * Parses a command line and try to create a process.
    *
@@ -79,33 +288,137 @@ public class InternalCommandManager {
   }
 
   /**
-   * Try to create a process from the command line tokens.
+   * Try to create a process from the command line tokens, commands separated by {@literal |} tokens create
+   * a {@link PipelineProcess} and a command followed by a {@literal >} or {@literal >>} token and a file name
+   * creates a {@link RedirectProcess}. The {@literal source} command creates a {@link ScriptProcess} executing
+   * the lines of a file.
    *
    * @param line the command line tokens
    * @return the created process
    */
   public Process createProcess(List<CliToken> line) {
+    return createProcess(line, 0);
+  }
+
+  /**
+   * Like {@link #createProcess(List)} for a line of a script, the {@literal source} command fails when the script
+   * is already nested in {@link #MAX_SOURCE_DEPTH} sourced scripts.
+   *
+   * @param line the command line tokens
+   * @param depth the number of sourced scripts the script is nested in
+   * @return the created process
+   */
+  Process createProcess(List<CliToken> line, int depth) {
     try {
-      return makeRequest(line);
+      List<List<CliToken>> commands = splitPipeline(line);
+      if (commands.size() == 1) {
+        return makeRedirectedRequest(commands.get(0), depth);
+      }
+      List<Process> processes = new ArrayList<>(commands.size());
+      for (List<CliToken> command : commands) {
+        processes.add(makeRedirectedRequest(command, depth));
+      }
+      return new PipelineProcess(processes);
     } catch (Exception e) {
       throw new VertxException(e);
     }
   }
 
-  private Process makeRequest(List<CliToken> s) {
+  private Process makeRedirectedRequest(List<CliToken> command, int depth) {
+    String file = null;
+    boolean append = false;
+    List<CliToken> tokens = null;
+    for (int i = 0;i < command.size();i++) {
+      CliToken token = command.get(i);
+      if (token.isText() && (token.raw().equals(">") || token.raw().equals(">>"))) {
+        if (tokens == null) {
+          tokens = new ArrayList<>(command.subList(0, i));
+        }
+        int next = i + 1;
+        while (next < command.size() && command.get(next).isBlank()) {
+          next++;
+        }
+        CliToken target = next < command.size() ? command.get(next) : null;
+        if (target == null || target.raw().equals(">") || target.raw().equals(">>")) {
+          throw new IllegalArgumentException("syntax error near unexpected token `" + (target != null ? target.raw() : "newline") + "'");
+        }
+        file = target.value();
+        append = token.raw().equals(">>");
+        i = next;
+      } else if (tokens != null) {
+        tokens.add(token);
+      }
+    }
+    if (file == null) {
+      return makeRequest(command, depth);
+    }
+    Process process = makeRequest(tokens, depth);
+    return new RedirectProcess(vertx(), process, file, append);
+  }
+
+  /**
+   * Create a process executing a script line by line.
+   *
+   * @param script the script
+   * @return the created process
+   */
+  public Process createScript(String script) {
+    return new ScriptProcess(this, ScriptProcess.lines(script));
+  }
+
+  private Vertx vertx() {
+    if (vertx != null) {
+      return vertx;
+    }
+    Context context = Vertx.currentContext();
+    if (context == null) {
+      throw new IllegalStateException("Cannot access files outside of a Vert.x context");
+    }
+    return context.owner();
+  }
+
+  private static List<List<CliToken>> splitPipeline(List<CliToken> line) {
+    List<List<CliToken>> commands = new ArrayList<>();
+    int from = 0;
+    for (int i = 0;i < line.size();i++) {
+      CliToken token = line.get(i);
+      if (token.isText() && token.raw().equals("|")) {
+        commands.add(checkCommand(line.subList(from, i)));
+        from = i + 1;
+      }
+    }
+    if (from > 0) {
+      commands.add(checkCommand(line.subList(from, line.size())));
+    } else {
+      commands.add(line);
+    }
+    return commands;
+  }
+
+  private static List<CliToken> checkCommand(List<CliToken> command) {
+    for (CliToken token : command) {
+      if (token.isText()) {
+        return command;
+      }
+    }
+    throw new IllegalArgumentException("syntax error near unexpected token `|'");
+  }
+
+  private Process makeRequest(List<CliToken> s, int depth) {
     ListIterator<CliToken> tokens = s.listIterator();
     while (tokens.hasNext()) {
       CliToken token = tokens.next();
       if (token.isText()) {
-        for (CommandResolver resolver : resolvers) {
-          Command command = resolver.getCommand(token.value());
-          if (command != null) {
-            List<CliToken> remaining = new ArrayList<>();
-            while (tokens.hasNext()) {
-              remaining.add(tokens.next());
-            }
-            return command.createProcess(remaining);
+        if (token.value().equals("source")) {
+          return makeSource(tokens, depth);
+        }
+        Command command = getCommand(token.value());
+        if (command != null) {
+          List<CliToken> remaining = new ArrayList<>();
+          while (tokens.hasNext()) {
+            remaining.add(tokens.next());
           }
+          return command.createProcess(remaining);
         }
         throw new IllegalArgumentException(token.value() + ": command not found");
       }
@@ -113,13 +426,44 @@ public class InternalCommandManager {
     throw new IllegalArgumentException();
   }
 
+  private Process makeSource(ListIterator<CliToken> tokens, int depth) {
+    String file = null;
+    while (tokens.hasNext()) {
+      CliToken token = tokens.next();
+      if (token.isText()) {
+        if (file != null) {
+          throw new IllegalArgumentException("source: too many arguments");
+        }
+        file = token.value();
+      }
+    }
+    if (file == null) {
+      throw new IllegalArgumentException("source: filename argument required");
+    }
+    if (depth >= MAX_SOURCE_DEPTH) {
+      throw new IllegalArgumentException("source: " + file + ": maximum nesting level exceeded");
+    }
+    return new ScriptProcess(this, vertx(), file, depth + 1);
+  }
+
   /**
-   * Perform completion, the completion argument will be notified of the completion progress.
+   * Perform completion, the completion argument will be notified of the completion progress. The command name
+   * candidates are proposed in alphabetical order.
    *
    * @param completion the completion object
    */
   public void complete(Completion completion) {
-    LinkedList<CliToken> tokens = new LinkedList<>(completion.lineTokens());
+    List<CliToken> lineTokens = completion.lineTokens();
+
+    // Only the last command of a pipeline is completed
+    int start = 0;
+    for (int i = 0;i < lineTokens.size();i++) {
+      CliToken token = lineTokens.get(i);
+      if (token.isText() && token.raw().equals("|")) {
+        start = i + 1;
+      }
+    }
+    LinkedList<CliToken> tokens = new LinkedList<>(lineTokens.subList(start, lineTokens.size()));
 
     // Remove any leading white space
     while (tokens.size() > 0 && tokens.getFirst().isBlank()) {
@@ -140,53 +484,65 @@ public class InternalCommandManager {
           StringBuilder tmp = new StringBuilder();
           newTokens.stream().forEach(token -> tmp.append(token.raw()));
           String line = tmp.toString();
-          for (CommandResolver resolver : resolvers) {
-            Command command = resolver.getCommand(ct.value());
-            if (command != null) {
-              command.complete(new Completion() {
-                @Override
-                public Vertx vertx() {
-                  return completion.vertx();
-                }
-                @Override
-                public Session session() {
-                  return completion.session();
-                }
-                @Override
-                public String rawLine() {
-                  return line;
-                }
-                @Override
-                public List<CliToken> lineTokens() {
-                  return newTokens;
-                }
-                @Override
-                public void complete(List<String> candidates) {
-                  completion.complete(candidates);
-                }
-                @Override
-                public void complete(String value, boolean terminal) {
-                  completion.complete(value, terminal);
-                }
-              });
-              return;
-            }
+          Command command = getCommand(ct.value());
+          if (command != null) {
+            command.complete(new Completion() {
+              @Override
+              public Vertx vertx() {
+                return completion.vertx();
+              }
+              @Override
+              public Session session() {
+                return completion.session();
+              }
+              @Override
+              public String rawLine() {
+                return line;
+              }
+              @Override
+              public List<CliToken> lineTokens() {
+                return newTokens;
+              }
+              @Override
+              public void complete(List<String> candidates) {
+                completion.complete(candidates);
+              }
+              @Override
+              public void complete(String value, boolean terminal) {
+                completion.complete(value, terminal);
+              }
+            });
+            return;
           }
           completion.complete(Collections.emptyList());
         }
       }
     } else {
       String prefix = tokens.size() > 0 ? tokens.getFirst().value() : "";
-      List<String> names = resolvers.stream().
-          flatMap(res -> res.commands().stream()).
-          map(Command::name).
-          filter(name -> name.startsWith(prefix)).
-          distinct().
-          collect(Collectors.toList());
+      CommandIndex idx = index();
+      int from = idx.from(prefix);
+      int to = idx.to(from, prefix);
+      List<String> names = Arrays.asList(idx.sortedNames).subList(from, to);
+      if (idx.scan) {
+        // Merge the names of the resolvers that are not indexed
+        TreeSet<String> merged = new TreeSet<>(names);
+        for (CommandResolver resolver : resolvers) {
+          if (!(resolver instanceof VersionedCommandResolver)) {
+            for (Command command : resolver.commands()) {
+              String name = command.name();
+              if (name != null && name.startsWith(prefix)) {
+                merged.add(name);
+              }
+            }
+          }
+        }
+        names = new ArrayList<>(merged);
+      }
       if (names.size() == 1) {
         completion.complete(names.get(0).substring(prefix.length()), true);
       } else {
-        String commonPrefix = Completion.findLongestCommonPrefix(names);
+        // The common prefix of sorted names is the common prefix of the first and last names
+        String commonPrefix = names.isEmpty() ? "" : commonPrefix(names.get(0), names.get(names.size() - 1));
         if (commonPrefix.length() > prefix.length()) {
           completion.complete(commonPrefix.substring(prefix.length()), false);
         } else {
@@ -196,4 +552,16 @@ public class InternalCommandManager {
     }
   }
 
+  private static String commonPrefix(String first, String last) {
+    int len = Math.min(first.length(), last.length());
+    int i = 0;
+    while (i < len && first.charAt(i) == last.charAt(i)) {
+      i++;
+    }
+    if (i > 0 && i < first.length() && Character.isHighSurrogate(first.charAt(i - 1))) {
+      // Do not split a surrogate pair
+      i--;
+    }
+    return first.substring(0, i);
+  }
 }
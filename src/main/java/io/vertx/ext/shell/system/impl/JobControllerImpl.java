@@ -54,6 +54,8 @@ public class JobControllerImpl implements JobController {
   Handler<Job> foregroundUpdatedHandler;
   Job foregroundJob; // The currently running job
   private final SortedMap<Integer, JobImpl> jobs = new TreeMap<>();
+  private JobImpl head; // The most recently stopped or backgrounded job
+  private JobImpl tail;
   private boolean closed = false;
 
   public JobControllerImpl() {
@@ -72,7 +74,70 @@ public class JobControllerImpl implements JobController {
   }
 
   synchronized boolean removeJob(int id) {
-    return jobs.remove(id) != null;
+    JobImpl job = jobs.remove(id);
+    if (job != null) {
+      unlink(job);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Returns the current job, i.e the most recently stopped or backgrounded job that is not the foreground job. When
+   * no job was stopped or backgrounded, the job created first is returned.
+   *
+   * @return the current job or {@code null} when there is none
+   */
+  public synchronized Job currentJob() {
+    return current(0);
+  }
+
+  /**
+   * @return the job that was current before the current job or {@code null} when there is none
+   */
+  public synchronized Job previousJob() {
+    return current(1);
+  }
+
+  private Job current(int skip) {
+    Job foregroundJob = this.foregroundJob;
+    for (JobImpl job = head;job != null;job = job.next) {
+      if (job != foregroundJob && skip-- == 0) {
+        return job;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Make the {@code job} the current job.
+   */
+  synchronized void touch(JobImpl job) {
+    if (jobs.get(job.id) == job && head != job) {
+      unlink(job);
+      job.next = head;
+      if (head != null) {
+        head.previous = job;
+      } else {
+        tail = job;
+      }
+      head = job;
+    }
+  }
+
+  private void unlink(JobImpl job) {
+    if (job.previous != null) {
+      job.previous.next = job.next;
+    } else if (head == job) {
+      head = job.next;
+    }
+    if (job.next != null) {
+      job.next.previous = job.previous;
+    } else if (tail == job) {
+      tail = job.previous;
+    }
+    job.previous = null;
+    job.next = null;
   }
 
   public JobController foregroundUpdatedHandler(Handler<Job> handler) {
@@ -81,10 +146,17 @@ public class JobControllerImpl implements JobController {
   }
 
   @Override
-  public Job createJob(Process process, String line) {
+  public synchronized Job createJob(Process process, String line) {
     int id = jobs.isEmpty() ? 1 : jobs.lastKey() + 1;
     JobImpl job = new JobImpl(id, this, process, line);
     jobs.put(id, job);
+    job.previous = tail;
+    if (tail != null) {
+      tail.next = job;
+    } else {
+      head = job;
+    }
+    tail = job;
     return job;
   }
 
@@ -52,6 +52,8 @@ public class JobImpl implements Job {
   final String line;
   private volatile ExecStatus actualStatus; // Used internally for testing only
   volatile long lastStopped; // When the job was last stopped
+  JobImpl previous; // Guarded by the controller, the job that became current after this job
+  JobImpl next; // Guarded by the controller, the job that was current before this job
   volatile Tty tty;
   volatile Session session;
   volatile Handler<ExecStatus> statusUpdateHandler;
@@ -132,6 +134,8 @@ public class JobImpl implements Job {
     } catch (IllegalStateException ignore) {
       return this;
     }
+    lastStopped = System.currentTimeMillis();
+    controller.touch(this);
     if (controller.foregroundJob == this) {
       controller.foregroundJob = null;
       if (controller.foregroundUpdatedHandler != null) {
@@ -174,6 +178,7 @@ public class JobImpl implements Job {
   public Job toBackground() {
     if (controller.foregroundJob == this) {
       controller.foregroundJob = null;
+      controller.touch(this);
       process.toBackground();
       if (statusUpdateHandler != null) {
         statusUpdateHandler.handle(process.status());
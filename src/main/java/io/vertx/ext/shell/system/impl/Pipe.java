@@ -0,0 +1,273 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.system.impl;
+
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.shell.term.Tty;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+
+/**
+ * An in-memory channel connecting the standard output of a process to the standard input of the next process
+ * of a pipeline.<p/>
+ *
+ * The data is delivered to the reader on the context of the writer, one chunk per event loop turn so the reader
+ * processes a chunk before the next one is delivered. The delivery stops while the reader has no input handler or
+ * while the pipe or the terminal the reader writes to is full. The pipe is full when the number of chars not yet delivered reaches
+ * the write queue max size, the drain handler is called when half of it has been delivered.<p/>
+ *
+ * Closing the pipe delivers the end of the input after the pending data.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+class Pipe {
+
+  /**
+   * The default maximum number of chars of the write queue.
+   */
+  static final int DEFAULT_WRITE_QUEUE_MAX_SIZE = 64 * 1024;
+
+  private final ArrayDeque<Object> queue = new ArrayDeque<>();
+  private Context context;
+  private Pipe upstream;
+  private Pipe downstream;
+  private volatile Tty tty;
+  private Handler<String> stdinHandler;
+  private Handler<Buffer> stdinBufferHandler;
+  private Handler<Void> endHandler;
+  private Handler<Void> drainHandler;
+  private int queued;
+  private int writeQueueMaxSize = DEFAULT_WRITE_QUEUE_MAX_SIZE;
+  private boolean full;
+  private boolean scheduled;
+  private boolean closed;
+  private boolean ended;
+  private boolean discarded;
+
+  /**
+   * Connect this pipe to the pipe written by its reader, this pipe stops delivering data while the
+   * {@code downstream} pipe is full.
+   *
+   * @param downstream the downstream pipe
+   */
+  synchronized void connect(Pipe downstream) {
+    this.downstream = downstream;
+    synchronized (downstream) {
+      downstream.upstream = this;
+    }
+  }
+
+  /**
+   * Connect this pipe to the terminal written by its reader, this pipe stops delivering data while the {@code tty}
+   * write queue is full, {@link #resume()} must be called when the {@code tty} is drained.
+   *
+   * @param tty the terminal
+   */
+  void connect(Tty tty) {
+    this.tty = tty;
+  }
+
+  /**
+   * Resume the delivery of the data, after the terminal written by the reader has been drained.
+   */
+  void resume() {
+    schedule();
+  }
+
+  void write(String data) {
+    write(data, data.length());
+  }
+
+  void write(Buffer data) {
+    write(data, data.length());
+  }
+
+  private void write(Object data, int len) {
+    synchronized (this) {
+      if (discarded || closed) {
+        return;
+      }
+      if (context == null) {
+        context = Vertx.currentContext();
+      }
+      queue.add(data);
+      queued += len;
+      if (queued >= writeQueueMaxSize) {
+        full = true;
+      }
+    }
+    schedule();
+  }
+
+  synchronized boolean writeQueueFull() {
+    return queued >= writeQueueMaxSize;
+  }
+
+  synchronized void setWriteQueueMaxSize(int maxSize) {
+    writeQueueMaxSize = maxSize;
+  }
+
+  synchronized void drainHandler(Handler<Void> handler) {
+    drainHandler = handler;
+  }
+
+  void stdinHandler(Handler<String> handler) {
+    synchronized (this) {
+      stdinHandler = handler;
+      stdinBufferHandler = null;
+    }
+    schedule();
+  }
+
+  void stdinBufferHandler(Handler<Buffer> handler) {
+    synchronized (this) {
+      stdinBufferHandler = handler;
+      stdinHandler = null;
+    }
+    schedule();
+  }
+
+  void endHandler(Handler<Void> handler) {
+    synchronized (this) {
+      endHandler = handler;
+    }
+    schedule();
+  }
+
+  /**
+   * Close the pipe, the end of the input is delivered after the pending data.
+   */
+  void close() {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      if (context == null) {
+        context = Vertx.currentContext();
+      }
+      closed = true;
+    }
+    schedule();
+  }
+
+  /**
+   * Discard the pending data and the subsequent writes, the reader has terminated.
+   */
+  void discard() {
+    Handler<Void> handler;
+    synchronized (this) {
+      discarded = true;
+      queue.clear();
+      queued = 0;
+      if (!full) {
+        return;
+      }
+      full = false;
+      handler = drainHandler;
+    }
+    if (handler != null) {
+      handler.handle(null);
+    }
+  }
+
+  private void schedule() {
+    Context ctx;
+    synchronized (this) {
+      if (scheduled || context == null || (queue.isEmpty() && (!closed || ended))) {
+        return;
+      }
+      scheduled = true;
+      ctx = context;
+    }
+    ctx.runOnContext(v -> deliver());
+  }
+
+  private void deliver() {
+    Object data;
+    Handler<String> handler;
+    Handler<Buffer> bufferHandler;
+    Handler<Void> end = null;
+    Handler<Void> drain = null;
+    Pipe resume = null;
+    synchronized (this) {
+      scheduled = false;
+    }
+    // Checked outside of the lock since the terminal calls the drain handler with its own lock held
+    Tty output = tty;
+    boolean outputFull = output != null && output.writeQueueFull();
+    synchronized (this) {
+      handler = stdinHandler;
+      bufferHandler = stdinBufferHandler;
+      if (queue.isEmpty()) {
+        data = null;
+        if (!closed || ended || endHandler == null) {
+          return;
+        }
+        ended = true;
+        end = endHandler;
+      } else {
+        if ((handler == null && bufferHandler == null) || (downstream != null && downstream.writeQueueFull()) || outputFull) {
+          // Resumed when a handler is set or when the downstream pipe or the terminal is drained
+          return;
+        }
+        data = queue.poll();
+        queued -= data instanceof String ? ((String) data).length() : ((Buffer) data).length();
+        if (full && queued < writeQueueMaxSize / 2) {
+          full = false;
+          drain = drainHandler;
+          resume = upstream;
+        }
+      }
+    }
+    if (drain != null) {
+      drain.handle(null);
+    }
+    if (resume != null) {
+      resume.schedule();
+    }
+    if (data == null) {
+      end.handle(null);
+      return;
+    }
+    if (bufferHandler != null) {
+      bufferHandler.handle(data instanceof Buffer ? (Buffer) data : Buffer.buffer((String) data));
+    } else {
+      handler.handle(data instanceof String ? (String) data : ((Buffer) data).toString(StandardCharsets.UTF_8));
+    }
+    schedule();
+  }
+}
@@ -0,0 +1,408 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.system.impl;
+
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.shell.session.Session;
+import io.vertx.ext.shell.system.ExecStatus;
+import io.vertx.ext.shell.system.Process;
+import io.vertx.ext.shell.term.Tty;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * A process composed of several processes connected by pipes, the standard output of each process is the standard
+ * input of the next process.<p/>
+ *
+ * The first process reads the terminal and is the only one put in background or foreground, the last process writes
+ * to the terminal and its input pipe stops delivering data while the terminal write queue is full. The other processes always run in foreground, suspending or interrupting the pipeline applies to
+ * all the processes.<p/>
+ *
+ * When a process terminates, the input of the next process ends after the pending data and the previous process is
+ * terminated since its output cannot be read anymore. The pipeline terminates with the exit code of its last process
+ * once all the processes are terminated.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+public class PipelineProcess implements Process {
+
+  private final List<Process> processes;
+  private final Pipe[] pipes;
+  private final AtomicInteger remaining;
+  private volatile Tty tty;
+  private volatile Session session;
+  private volatile Handler<Integer> terminatedHandler;
+  private volatile Integer exitCode;
+
+  public PipelineProcess(List<Process> processes) {
+    if (processes.size() < 2) {
+      throw new IllegalArgumentException("A pipeline requires at least two processes");
+    }
+    this.processes = processes;
+    this.pipes = new Pipe[processes.size() - 1];
+    this.remaining = new AtomicInteger(processes.size());
+    for (int i = 0;i < pipes.length;i++) {
+      pipes[i] = new Pipe();
+      if (i > 0) {
+        pipes[i - 1].connect(pipes[i]);
+      }
+    }
+    for (int i = 0;i < processes.size();i++) {
+      int index = i;
+      processes.get(i).terminatedHandler(code -> terminated(index, code));
+    }
+  }
+
+  /**
+   * @return the processes of the pipeline
+   */
+  public List<Process> processes() {
+    return processes;
+  }
+
+  @Override
+  public ExecStatus status() {
+    if (remaining.get() == 0) {
+      return ExecStatus.TERMINATED;
+    }
+    boolean ready = true;
+    boolean stopped = false;
+    for (Process process : processes) {
+      switch (process.status()) {
+        case RUNNING:
+          return ExecStatus.RUNNING;
+        case STOPPED:
+          stopped = true;
+          ready = false;
+          break;
+        case TERMINATED:
+          ready = false;
+          break;
+        default:
+          break;
+      }
+    }
+    return ready ? ExecStatus.READY : stopped ? ExecStatus.STOPPED : ExecStatus.RUNNING;
+  }
+
+  @Override
+  public Integer exitCode() {
+    return remaining.get() == 0 ? exitCode : null;
+  }
+
+  @Override
+  public Process setTty(Tty tty) {
+    this.tty = tty;
+    return this;
+  }
+
+  @Override
+  public Tty getTty() {
+    return tty;
+  }
+
+  @Override
+  public Process setSession(Session session) {
+    this.session = session;
+    for (Process process : processes) {
+      process.setSession(session);
+    }
+    return this;
+  }
+
+  @Override
+  public Session getSession() {
+    return session;
+  }
+
+  @Override
+  public Process terminatedHandler(Handler<Integer> handler) {
+    terminatedHandler = handler;
+    return this;
+  }
+
+  @Override
+  public void run(boolean foreground) {
+    Tty tty = this.tty;
+    if (tty == null) {
+      throw new IllegalStateException("Cannot execute process without a TTY set");
+    }
+    int last = processes.size() - 1;
+    for (int i = 0;i < last;i++) {
+      processes.get(i).setTty(new StageTty(tty, i == 0 ? null : pipes[i - 1], pipes[i]));
+    }
+    Pipe lastPipe = pipes[last - 1];
+    StageTty lastTty = new StageTty(tty, lastPipe, null);
+    processes.get(last).setTty(lastTty);
+    // The terminal drain resumes the last pipe and the last process
+    lastPipe.connect(tty);
+    tty.drainHandler(v -> {
+      lastPipe.resume();
+      Handler<Void> handler = lastTty.drainHandler;
+      if (handler != null) {
+        handler.handle(null);
+      }
+    });
+    for (int i = 0;i <= last;i++) {
+      processes.get(i).run(i > 0 || foreground);
+    }
+  }
+
+  private void terminated(int index, Integer code) {
+    if (index < pipes.length) {
+      pipes[index].close();
+    }
+    if (index > 0) {
+      // The output of the previous process cannot be read anymore
+      pipes[index - 1].discard();
+      try {
+        processes.get(index - 1).terminate();
+      } catch (IllegalStateException ignore) {
+        // Already terminated
+      }
+    }
+    if (index == pipes.length) {
+      exitCode = code;
+    }
+    if (remaining.decrementAndGet() == 0) {
+      tty.drainHandler(null);
+      Handler<Integer> handler = terminatedHandler;
+      if (handler != null) {
+        handler.handle(exitCode);
+      }
+    }
+  }
+
+  @Override
+  public boolean interrupt(Handler<Void> completionHandler) {
+    boolean[] interrupted = new boolean[1];
+    if (!applyAll(processes.size(), (process, done) -> interrupted[0] |= process.interrupt(done), completionHandler)) {
+      throw new IllegalStateException("Cannot interrupt process in " + status() + " state");
+    }
+    return interrupted[0];
+  }
+
+  @Override
+  public void resume(boolean foreground, Handler<Void> completionHandler) {
+    if (!applyAll(processes.size(), (process, done) -> process.resume(process != processes.get(0) || foreground, done), completionHandler)) {
+      throw new IllegalStateException("Cannot resume process in " + status() + " state");
+    }
+  }
+
+  @Override
+  public void suspend(Handler<Void> completionHandler) {
+    if (!applyAll(processes.size(), Process::suspend, completionHandler)) {
+      throw new IllegalStateException("Cannot suspend process in " + status() + " state");
+    }
+  }
+
+  @Override
+  public void terminate(Handler<Void> completionHandler) {
+    if (!applyAll(processes.size(), Process::terminate, completionHandler)) {
+      throw new IllegalStateException("Cannot terminate terminated process");
+    }
+  }
+
+  @Override
+  public void toBackground(Handler<Void> completionHandler) {
+    if (!applyAll(1, Process::toBackground, completionHandler)) {
+      checkRunning("set to background");
+    }
+  }
+
+  @Override
+  public void toForeground(Handler<Void> completionHandler) {
+    if (!applyAll(1, Process::toForeground, completionHandler)) {
+      checkRunning("set to foreground");
+    }
+  }
+
+  /**
+   * The first process may have terminated before the others, only fail when the pipeline is not running.
+   */
+  private void checkRunning(String action) {
+    ExecStatus status = status();
+    if (status != ExecStatus.RUNNING) {
+      throw new IllegalStateException("Cannot " + action + " a process in " + status + " state");
+    }
+  }
+
+  /**
+   * Apply an action to the {@code count} first processes, the processes in a state that does not allow the
+   * action are skipped. The completion handler is called once the action completed for all the processes.
+   *
+   * @return whether the action was applied to at least one process
+   */
+  private boolean applyAll(int count, BiConsumer<Process, Handler<Void>> action, Handler<Void> completionHandler) {
+    AtomicInteger pending = new AtomicInteger(1);
+    Handler<Void> done = v -> {
+      if (pending.decrementAndGet() == 0 && completionHandler != null) {
+        completionHandler.handle(null);
+      }
+    };
+    boolean applied = false;
+    for (int i = 0;i < count;i++) {
+      pending.incrementAndGet();
+      try {
+        action.accept(processes.get(i), done);
+        applied = true;
+      } catch (IllegalStateException ignore) {
+        pending.decrementAndGet();
+      }
+    }
+    if (applied) {
+      done.handle(null);
+    }
+    return applied;
+  }
+
+  /**
+   * The tty of a process of the pipeline, the input is the terminal or the previous pipe and the output is the
+   * terminal or the next pipe. Only the first process is notified of the terminal resizes.
+   */
+  private static class StageTty implements Tty {
+
+    private final Tty tty;
+    private final Pipe in;
+    private final Pipe out;
+    private volatile Handler<Void> drainHandler;
+
+    StageTty(Tty tty, Pipe in, Pipe out) {
+      this.tty = tty;
+      this.in = in;
+      this.out = out;
+    }
+
+    @Override
+    public String type() {
+      return tty.type();
+    }
+
+    @Override
+    public int width() {
+      return tty.width();
+    }
+
+    @Override
+    public int height() {
+      return tty.height();
+    }
+
+    @Override
+    public Tty stdinHandler(Handler<String> handler) {
+      if (in == null) {
+        tty.stdinHandler(handler);
+      } else {
+        in.stdinHandler(handler);
+      }
+      return this;
+    }
+
+    @Override
+    public Tty stdinBufferHandler(Handler<Buffer> handler) {
+      if (in == null) {
+        tty.stdinBufferHandler(handler);
+      } else {
+        in.stdinBufferHandler(handler);
+      }
+      return this;
+    }
+
+    @Override
+    public Tty stdinEndHandler(Handler<Void> handler) {
+      if (in == null) {
+        tty.stdinEndHandler(handler);
+      } else {
+        in.endHandler(handler);
+      }
+      return this;
+    }
+
+    @Override
+    public Tty write(String data) {
+      if (out == null) {
+        tty.write(data);
+      } else {
+        out.write(data);
+      }
+      return this;
+    }
+
+    @Override
+    public Tty write(Buffer data) {
+      if (out == null) {
+        tty.write(data);
+      } else {
+        out.write(data);
+      }
+      return this;
+    }
+
+    @Override
+    public Tty resizehandler(Handler<Void> handler) {
+      if (in == null) {
+        tty.resizehandler(handler);
+      }
+      return this;
+    }
+
+    @Override
+    public boolean writeQueueFull() {
+      return out == null ? tty.writeQueueFull() : out.writeQueueFull();
+    }
+
+    @Override
+    public Tty drainHandler(Handler<Void> handler) {
+      if (out == null) {
+        // Called by the terminal drain handler set by the pipeline
+        drainHandler = handler;
+      } else {
+        out.drainHandler(handler);
+      }
+      return this;
+    }
+
+    @Override
+    public Tty setWriteQueueMaxSize(int maxSize) {
+      if (out == null) {
+        tty.setWriteQueueMaxSize(maxSize);
+      } else {
+        out.setWriteQueueMaxSize(maxSize);
+      }
+      return this;
+    }
+  }
+}
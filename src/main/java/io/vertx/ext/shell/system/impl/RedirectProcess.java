@@ -0,0 +1,417 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.system.impl;
+
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.ext.shell.session.Session;
+import io.vertx.ext.shell.system.ExecStatus;
+import io.vertx.ext.shell.system.Process;
+import io.vertx.ext.shell.term.Tty;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * A process whose standard output is redirected to a file, the standard input and the size remain the ones of the
+ * terminal.<p/>
+ *
+ * The file is opened when the process runs, relative to the {@literal cwd} session directory. The output is
+ * accumulated in a write buffer flushed to an {@link AsyncFile} when it is full or at the end of the event loop turn,
+ * the process write queue is full when the file write queue is full, whether the process runs in foreground or in
+ * background. The file is closed before the process terminates.<p/>
+ *
+ * While the file is opening the process is not running yet: a termination is recorded and reported once the file
+ * is opened and closed without running the process, an interrupt is delivered once the process runs and switching
+ * the process to foreground or background changes how it will run.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+public class RedirectProcess implements Process {
+
+  /**
+   * The size of the write buffer.
+   */
+  static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * The maximum size of the file write queue.
+   */
+  static final int WRITE_QUEUE_MAX_SIZE = 1024 * 1024;
+
+  private final Vertx vertx;
+  private final Process process;
+  private final String file;
+  private final boolean append;
+  private volatile Tty tty;
+  private volatile Session session;
+  private volatile Handler<Integer> terminatedHandler;
+  private volatile Integer failure;
+
+  // The requests received while the file is opening, guarded by this
+  private boolean opening;
+  private boolean foreground;
+  private boolean terminateRequested;
+  private Handler<Void> terminateCompletionHandler;
+  private boolean interruptRequested;
+  private Handler<Void> interruptCompletionHandler;
+
+  public RedirectProcess(Vertx vertx, Process process, String file, boolean append) {
+    this.vertx = vertx;
+    this.process = process;
+    this.file = file;
+    this.append = append;
+  }
+
+  @Override
+  public ExecStatus status() {
+    return failure != null ? ExecStatus.TERMINATED : process.status();
+  }
+
+  @Override
+  public Integer exitCode() {
+    return failure != null ? failure : process.exitCode();
+  }
+
+  @Override
+  public Process setTty(Tty tty) {
+    this.tty = tty;
+    return this;
+  }
+
+  @Override
+  public Tty getTty() {
+    return tty;
+  }
+
+  @Override
+  public Process setSession(Session session) {
+    this.session = session;
+    process.setSession(session);
+    return this;
+  }
+
+  @Override
+  public Session getSession() {
+    return session;
+  }
+
+  @Override
+  public Process terminatedHandler(Handler<Integer> handler) {
+    terminatedHandler = handler;
+    return this;
+  }
+
+  @Override
+  public void run(boolean foreground) {
+    Tty tty = this.tty;
+    if (tty == null) {
+      throw new IllegalStateException("Cannot execute process without a TTY set");
+    }
+    Session session = this.session;
+    String cwd = session != null ? session.get("cwd") : null;
+    Path base = Paths.get(cwd != null ? cwd : System.getProperty("vertx.cwd", "."));
+    String path = base.resolve(file).toAbsolutePath().normalize().toString();
+    OpenOptions options = new OpenOptions().setWrite(true).setCreate(true).setAppend(append).setTruncateExisting(!append);
+    Context context = vertx.getOrCreateContext();
+    synchronized (this) {
+      opening = true;
+      this.foreground = foreground;
+    }
+    vertx.fileSystem().open(path, options, ar -> {
+      boolean fg;
+      boolean terminated;
+      Handler<Void> terminateCompletion;
+      boolean interrupted;
+      Handler<Void> interruptCompletion;
+      synchronized (this) {
+        opening = false;
+        fg = this.foreground;
+        terminated = terminateRequested;
+        terminateCompletion = terminateCompletionHandler;
+        interrupted = interruptRequested;
+        interruptCompletion = interruptCompletionHandler;
+        terminateCompletionHandler = null;
+        interruptCompletionHandler = null;
+      }
+      if (ar.failed()) {
+        tty.write(file + ": " + ar.cause().getMessage() + "\n");
+        terminated(terminated ? -10 : 1, terminateCompletion);
+        return;
+      }
+      AsyncFile asyncFile = ar.result();
+      if (terminated) {
+        // Terminated while opening, the process does not run
+        asyncFile.close(v -> terminated(-10, terminateCompletion));
+        return;
+      }
+      asyncFile.setWriteQueueMaxSize(WRITE_QUEUE_MAX_SIZE);
+      FileTty fileTty = new FileTty(context, tty, asyncFile);
+      asyncFile.exceptionHandler(err -> {
+        tty.write(file + ": " + err.getMessage() + "\n");
+        try {
+          process.terminate();
+        } catch (IllegalStateException ignore) {
+          // Already terminated
+        }
+      });
+      process.setTty(fileTty);
+      process.terminatedHandler(code -> {
+        fileTty.flush();
+        asyncFile.close(v -> {
+          Handler<Integer> handler = terminatedHandler;
+          if (handler != null) {
+            handler.handle(code);
+          }
+        });
+      });
+      process.run(fg);
+      if (interrupted) {
+        try {
+          process.interrupt(interruptCompletion);
+        } catch (IllegalStateException ignore) {
+          // Already terminated
+        }
+      }
+    });
+  }
+
+  /**
+   * Report the termination of the process when it did not run.
+   */
+  private void terminated(int code, Handler<Void> completionHandler) {
+    failure = code;
+    if (completionHandler != null) {
+      completionHandler.handle(null);
+    }
+    Handler<Integer> handler = terminatedHandler;
+    if (handler != null) {
+      handler.handle(code);
+    }
+  }
+
+  @Override
+  public boolean interrupt(Handler<Void> completionHandler) {
+    synchronized (this) {
+      if (opening) {
+        if (!terminateRequested) {
+          interruptRequested = true;
+          interruptCompletionHandler = completionHandler;
+        }
+        return true;
+      }
+    }
+    return process.interrupt(completionHandler);
+  }
+
+  @Override
+  public void resume(boolean foreground, Handler<Void> completionHandler) {
+    process.resume(foreground, completionHandler);
+  }
+
+  @Override
+  public void suspend(Handler<Void> completionHandler) {
+    process.suspend(completionHandler);
+  }
+
+  @Override
+  public void terminate(Handler<Void> completionHandler) {
+    synchronized (this) {
+      if (opening) {
+        if (terminateRequested) {
+          throw new IllegalStateException("Cannot terminate terminated process");
+        }
+        terminateRequested = true;
+        terminateCompletionHandler = completionHandler;
+        return;
+      }
+    }
+    if (failure != null) {
+      throw new IllegalStateException("Cannot terminate terminated process");
+    }
+    process.terminate(completionHandler);
+  }
+
+  @Override
+  public void toBackground(Handler<Void> completionHandler) {
+    if (!switchWhileOpening(false, completionHandler)) {
+      process.toBackground(completionHandler);
+    }
+  }
+
+  @Override
+  public void toForeground(Handler<Void> completionHandler) {
+    if (!switchWhileOpening(true, completionHandler)) {
+      process.toForeground(completionHandler);
+    }
+  }
+
+  /**
+   * Record how the process will run when the file is opening.
+   *
+   * @return whether the file is opening
+   */
+  private boolean switchWhileOpening(boolean fg, Handler<Void> completionHandler) {
+    synchronized (this) {
+      if (!opening) {
+        return false;
+      }
+      foreground = fg;
+    }
+    if (completionHandler != null) {
+      completionHandler.handle(null);
+    }
+    return true;
+  }
+
+  /**
+   * The tty of the redirected process, the output is written to the file and the other operations are delegated
+   * to the terminal.
+   */
+  private static class FileTty implements Tty {
+
+    private final Context context;
+    private final Tty tty;
+    private final AsyncFile file;
+    private Buffer buffer;
+    private boolean scheduled;
+
+    FileTty(Context context, Tty tty, AsyncFile file) {
+      this.context = context;
+      this.tty = tty;
+      this.file = file;
+    }
+
+    @Override
+    public String type() {
+      return tty.type();
+    }
+
+    @Override
+    public int width() {
+      return tty.width();
+    }
+
+    @Override
+    public int height() {
+      return tty.height();
+    }
+
+    @Override
+    public Tty stdinHandler(Handler<String> handler) {
+      tty.stdinHandler(handler);
+      return this;
+    }
+
+    @Override
+    public Tty stdinBufferHandler(Handler<Buffer> handler) {
+      tty.stdinBufferHandler(handler);
+      return this;
+    }
+
+    @Override
+    public Tty stdinEndHandler(Handler<Void> handler) {
+      tty.stdinEndHandler(handler);
+      return this;
+    }
+
+    @Override
+    public Tty resizehandler(Handler<Void> handler) {
+      tty.resizehandler(handler);
+      return this;
+    }
+
+    @Override
+    public Tty write(String data) {
+      return write(Buffer.buffer(data, "UTF-8"));
+    }
+
+    @Override
+    public Tty write(Buffer data) {
+      boolean schedule = false;
+      synchronized (this) {
+        if (buffer == null) {
+          buffer = Buffer.buffer(WRITE_BUFFER_SIZE);
+        }
+        buffer.appendBuffer(data);
+        if (buffer.length() >= WRITE_BUFFER_SIZE) {
+          file.write(buffer);
+          buffer = null;
+        } else if (!scheduled) {
+          scheduled = true;
+          schedule = true;
+        }
+      }
+      if (schedule) {
+        context.runOnContext(v -> {
+          synchronized (this) {
+            scheduled = false;
+            flush();
+          }
+        });
+      }
+      return this;
+    }
+
+    /**
+     * Write the buffered output to the file.
+     */
+    synchronized void flush() {
+      if (buffer != null) {
+        file.write(buffer);
+        buffer = null;
+      }
+    }
+
+    @Override
+    public boolean writeQueueFull() {
+      return file.writeQueueFull();
+    }
+
+    @Override
+    public Tty drainHandler(Handler<Void> handler) {
+      file.drainHandler(handler);
+      return this;
+    }
+
+    @Override
+    public Tty setWriteQueueMaxSize(int maxSize) {
+      file.setWriteQueueMaxSize(maxSize);
+      return this;
+    }
+  }
+}
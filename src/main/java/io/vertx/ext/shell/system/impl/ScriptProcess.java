@@ -0,0 +1,296 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.system.impl;
+
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.ext.shell.cli.CliToken;
+import io.vertx.ext.shell.session.Session;
+import io.vertx.ext.shell.system.ExecStatus;
+import io.vertx.ext.shell.system.Process;
+import io.vertx.ext.shell.term.Tty;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A process executing the lines of a script sequentially in the same session and with the same tty, blank lines and
+ * lines starting with {@literal #} are ignored. The lines are the lines of an exec request or of a file read when the
+ * process runs.<p/>
+ *
+ * The script stops at the first command failing to be created or terminating with a non zero exit code, the script
+ * exit code is the exit code of the last executed command. Interrupting or terminating the script applies to the
+ * current command and stops the script, the other events are applied to the current command.<p/>
+ *
+ * A script sourcing another script fails when it is already nested in
+ * {@link InternalCommandManager#MAX_SOURCE_DEPTH} sourced scripts.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+public class ScriptProcess implements Process {
+
+  private final InternalCommandManager manager;
+  private final Vertx vertx;
+  private final String file;
+  private final int depth;
+  private List<String> lines;
+  private int index;
+  private volatile Tty tty;
+  private volatile Session session;
+  private volatile Handler<Integer> terminatedHandler;
+  private volatile ExecStatus status = ExecStatus.READY;
+  private volatile Integer exitCode;
+  private volatile Process current;
+  private volatile boolean foreground;
+  private volatile boolean stopped;
+
+  /**
+   * Create a script process executing the {@code lines}.
+   */
+  public ScriptProcess(InternalCommandManager manager, List<String> lines) {
+    this.manager = manager;
+    this.vertx = null;
+    this.file = null;
+    this.depth = 0;
+    this.lines = lines;
+  }
+
+  /**
+   * Create a script process executing the lines of the {@code file}, relative to the {@literal cwd} session
+   * directory.
+   *
+   * @param depth the number of sourced scripts this script is nested in, including itself
+   */
+  public ScriptProcess(InternalCommandManager manager, Vertx vertx, String file, int depth) {
+    this.manager = manager;
+    this.vertx = vertx;
+    this.file = file;
+    this.depth = depth;
+  }
+
+  /**
+   * Split a script in lines, the line terminators are removed.
+   *
+   * @param script the script
+   * @return the lines
+   */
+  public static List<String> lines(String script) {
+    return Arrays.asList(script.split("\r?\n|\r"));
+  }
+
+  @Override
+  public ExecStatus status() {
+    ExecStatus s = status;
+    if (s == ExecStatus.RUNNING) {
+      Process process = current;
+      if (process != null && process.status() == ExecStatus.STOPPED) {
+        return ExecStatus.STOPPED;
+      }
+    }
+    return s;
+  }
+
+  @Override
+  public Integer exitCode() {
+    return exitCode;
+  }
+
+  @Override
+  public Process setTty(Tty tty) {
+    this.tty = tty;
+    return this;
+  }
+
+  @Override
+  public Tty getTty() {
+    return tty;
+  }
+
+  @Override
+  public Process setSession(Session session) {
+    this.session = session;
+    return this;
+  }
+
+  @Override
+  public Session getSession() {
+    return session;
+  }
+
+  @Override
+  public Process terminatedHandler(Handler<Integer> handler) {
+    terminatedHandler = handler;
+    return this;
+  }
+
+  @Override
+  public void run(boolean fg) {
+    if (status != ExecStatus.READY) {
+      throw new IllegalStateException("Cannot run proces in " + status + " state");
+    }
+    Tty tty = this.tty;
+    if (tty == null) {
+      throw new IllegalStateException("Cannot execute process without a TTY set");
+    }
+    foreground = fg;
+    status = ExecStatus.RUNNING;
+    if (lines != null) {
+      next(0);
+      return;
+    }
+    Session session = this.session;
+    String cwd = session != null ? session.get("cwd") : null;
+    String path = Paths.get(cwd != null ? cwd : System.getProperty("vertx.cwd", ".")).resolve(file).toString();
+    vertx.fileSystem().readFile(path, ar -> {
+      if (ar.succeeded()) {
+        lines = lines(ar.result().toString("UTF-8"));
+        next(0);
+      } else {
+        tty.write("source: " + file + ": " + ar.cause().getMessage() + "\n");
+        end(1);
+      }
+    });
+  }
+
+  /**
+   * Execute the next command of the script.
+   *
+   * @param code the exit code of the previous command
+   */
+  private void next(int code) {
+    current = null;
+    if (code != 0 || stopped) {
+      end(code);
+      return;
+    }
+    while (index < lines.size()) {
+      String line = lines.get(index++);
+      List<CliToken> tokens = CliToken.tokenize(line);
+      CliToken first = null;
+      for (CliToken token : tokens) {
+        if (token.isText()) {
+          first = token;
+          break;
+        }
+      }
+      if (first == null || first.raw().startsWith("#")) {
+        continue;
+      }
+      Process process;
+      try {
+        process = manager.createProcess(tokens, depth);
+      } catch (Exception e) {
+        tty.write(e.getMessage() + "\n");
+        end(1);
+        return;
+      }
+      process.setSession(session).setTty(tty);
+      process.terminatedHandler(this::next);
+      current = process;
+      process.run(foreground);
+      return;
+    }
+    end(0);
+  }
+
+  private void end(int code) {
+    exitCode = code;
+    status = ExecStatus.TERMINATED;
+    Handler<Integer> handler = terminatedHandler;
+    if (handler != null) {
+      handler.handle(code);
+    }
+  }
+
+  private Process current(String action) {
+    Process process = current;
+    if (process == null) {
+      throw new IllegalStateException("Cannot " + action + " process in " + status + " state");
+    }
+    return process;
+  }
+
+  @Override
+  public boolean interrupt(Handler<Void> completionHandler) {
+    Process process = current("interrupt");
+    stopped = true;
+    return process.interrupt(completionHandler);
+  }
+
+  @Override
+  public void resume(boolean fg, Handler<Void> completionHandler) {
+    foreground = fg;
+    current("resume").resume(fg, completionHandler);
+  }
+
+  @Override
+  public void suspend(Handler<Void> completionHandler) {
+    current("suspend").suspend(completionHandler);
+  }
+
+  @Override
+  public void terminate(Handler<Void> completionHandler) {
+    if (status == ExecStatus.TERMINATED) {
+      throw new IllegalStateException("Cannot terminate terminated process");
+    }
+    stopped = true;
+    Process process = current;
+    if (process != null) {
+      try {
+        process.terminate(completionHandler);
+        return;
+      } catch (IllegalStateException ignore) {
+        // The script continues with the next command and stops
+      }
+    }
+    if (status == ExecStatus.READY) {
+      end(-10);
+    }
+    if (completionHandler != null) {
+      completionHandler.handle(null);
+    }
+  }
+
+  @Override
+  public void toBackground(Handler<Void> completionHandler) {
+    foreground = false;
+    current("set to background").toBackground(completionHandler);
+  }
+
+  @Override
+  public void toForeground(Handler<Void> completionHandler) {
+    foreground = true;
+    current("set to foreground").toForeground(completionHandler);
+  }
+}
@@ -57,6 +57,7 @@ public class HttpTermOptions extends HttpServerOptions {
 
   public static final String DEFAULT_CHARSET = StandardCharsets.UTF_8.name();
   public static final String DEFAULT_INPUTRC = "/io/vertx/ext/shell/inputrc";
+  public static final int DEFAULT_INSTANCES = 1;
 
   /**
    * @return the {@code vertxshell.js} default resource as a buffer
@@ -89,6 +90,7 @@ public class HttpTermOptions extends HttpServerOptions {
   private Buffer shellHtmlResource;
   private String charset;
   private String intputrc;
+  private int instances;
 
   public HttpTermOptions() {
     init();
@@ -109,6 +111,7 @@ public class HttpTermOptions extends HttpServerOptions {
     authOptions = that.authOptions != null ? that.authOptions.copy() : null;
     charset = that.charset;
     intputrc = that.intputrc;
+    instances = that.instances;
   }
 
   private void init() {
@@ -119,6 +122,7 @@ public class HttpTermOptions extends HttpServerOptions {
     shellHtmlResource = defaultShellHtmlResource();
     charset = DEFAULT_CHARSET;
     intputrc = DEFAULT_INPUTRC;
+    instances = DEFAULT_INSTANCES;
   }
 
   /**
@@ -384,4 +388,26 @@ public class HttpTermOptions extends HttpServerOptions {
     this.intputrc = intputrc;
     return this;
   }
+
+  /**
+   * @return the number of server instances
+   */
+  public int getInstances() {
+    return instances;
+  }
+
+  /**
+   * Set the number of server instances listening on the same address, each instance is bound to its own
+   * event loop and the accepted connections are balanced across the instances.
+   *
+   * @param instances the number of instances
+   * @return a reference to this, so the API can be used fluently
+   */
+  public HttpTermOptions setInstances(int instances) {
+    if (instances < 1) {
+      throw new IllegalArgumentException("instances must be > 0");
+    }
+    this.instances = instances;
+    return this;
+  }
 }
@@ -35,6 +35,7 @@ package io.vertx.ext.shell.term;
 import io.vertx.codegen.annotations.Fluent;
 import io.vertx.codegen.annotations.VertxGen;
 import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.ext.shell.term.impl.PtyImpl;
 
 /**
@@ -83,6 +84,26 @@ public interface Pty {
   @Fluent
   Pty write(String data);
 
+  /**
+   * Set the binary standard out handler of the pseudo terminal, the slave output is delivered as bytes without
+   * being converted to a string. When both handlers are set, string output is delivered to the string handler
+   * and binary output to the binary handler.
+   *
+   * @param handler the standard output
+   * @return this current object
+   */
+  @Fluent
+  Pty stdoutBufferHandler(Handler<Buffer> handler);
+
+  /**
+   * Write bytes to the slave standard input of the pseudo terminal.
+   *
+   * @param data the data to write
+   * @return this current object
+   */
+  @Fluent
+  Pty write(Buffer data);
+
   /**
    * Resize the terminal.
    *
@@ -34,6 +34,7 @@ package io.vertx.ext.shell.term;
 
 import io.vertx.codegen.annotations.DataObject;
 import io.vertx.codegen.annotations.GenIgnore;
+import io.vertx.core.VertxOptions;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.net.JksOptions;
 import io.vertx.core.net.KeyCertOptions;
@@ -55,6 +56,7 @@ public class SSHTermOptions {
   public static final int DEFAULT_PORT = NetServerOptions.DEFAULT_PORT;
   public static final String DEFAULT_DEFAULT_CHARSET = StandardCharsets.UTF_8.name();
   public static final String DEFAULT_INPUTRC = "/io/vertx/ext/shell/inputrc";
+  public static final int DEFAULT_EVENT_LOOP_POOL_SIZE = VertxOptions.DEFAULT_EVENT_LOOP_POOL_SIZE;
 
   private String host;
   private int port;
@@ -62,12 +64,14 @@ public class SSHTermOptions {
   private JsonObject authOptions;
   private String defaultCharset;
   private String intputrc;
+  private int eventLoopPoolSize;
 
   public SSHTermOptions() {
     host = DEFAULT_HOST;
     port = DEFAULT_PORT;
     defaultCharset = DEFAULT_DEFAULT_CHARSET;
     intputrc = DEFAULT_INPUTRC;
+    eventLoopPoolSize = DEFAULT_EVENT_LOOP_POOL_SIZE;
   }
 
   public SSHTermOptions(SSHTermOptions that) {
@@ -77,6 +81,7 @@ public class SSHTermOptions {
     this.authOptions = that.authOptions != null ? that.authOptions.copy() : null;
     this.defaultCharset = that.defaultCharset;
     this.intputrc = that.intputrc;
+    this.eventLoopPoolSize = that.eventLoopPoolSize;
   }
 
   public SSHTermOptions(JsonObject json) {
@@ -206,4 +211,26 @@ public class SSHTermOptions {
     this.intputrc = intputrc;
     return this;
   }
+
+  /**
+   * @return the number of event loops handling the SSH sessions
+   */
+  public int getEventLoopPoolSize() {
+    return eventLoopPoolSize;
+  }
+
+  /**
+   * Set the number of event loops the SSH sessions are distributed across, each session is handled by
+   * a single event loop taken from the Vert.x event loop group.
+   *
+   * @param eventLoopPoolSize the number of event loops
+   * @return a reference to this, so the API can be used fluently
+   */
+  public SSHTermOptions setEventLoopPoolSize(int eventLoopPoolSize) {
+    if (eventLoopPoolSize < 1) {
+      throw new IllegalArgumentException("eventLoopPoolSize must be > 0");
+    }
+    this.eventLoopPoolSize = eventLoopPoolSize;
+    return this;
+  }
 }
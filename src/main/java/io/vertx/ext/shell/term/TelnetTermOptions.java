@@ -55,11 +55,13 @@ public class TelnetTermOptions extends NetServerOptions {
   public static final boolean DEFAULT_OUT_BINARY = true;
   public static final String DEFAULT_CHARSET = StandardCharsets.UTF_8.name();
   public static final String DEFAULT_INPUTRC = "/io/vertx/ext/shell/inputrc";
+  public static final int DEFAULT_INSTANCES = 1;
 
   private boolean outBinary;
   private boolean inBinary;
   private String charset;
   private String intputrc;
+  private int instances;
 
   public TelnetTermOptions() {
     init();
@@ -71,6 +73,7 @@ public class TelnetTermOptions extends NetServerOptions {
     inBinary = other.inBinary;
     charset = other.charset;
     intputrc = other.intputrc;
+    instances = other.instances;
   }
 
   public TelnetTermOptions(JsonObject json) {
@@ -84,6 +87,7 @@ public class TelnetTermOptions extends NetServerOptions {
     this.inBinary = DEFAULT_IN_BINARY;
     this.charset = DEFAULT_CHARSET;
     this.intputrc = DEFAULT_INPUTRC;
+    this.instances = DEFAULT_INSTANCES;
   }
 
   @Override
@@ -255,4 +259,26 @@ public class TelnetTermOptions extends NetServerOptions {
     this.intputrc = intputrc;
     return this;
   }
+
+  /**
+   * @return the number of server instances
+   */
+  public int getInstances() {
+    return instances;
+  }
+
+  /**
+   * Set the number of server instances listening on the same address, each instance is bound to its own
+   * event loop and the accepted connections are balanced across the instances.
+   *
+   * @param instances the number of instances
+   * @return a reference to this, so the API can be used fluently
+   */
+  public TelnetTermOptions setInstances(int instances) {
+    if (instances < 1) {
+      throw new IllegalArgumentException("instances must be > 0");
+    }
+    this.instances = instances;
+    return this;
+  }
 }
@@ -35,6 +35,7 @@ package io.vertx.ext.shell.term;
 import io.vertx.codegen.annotations.Fluent;
 import io.vertx.codegen.annotations.VertxGen;
 import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.ext.shell.cli.Completion;
 import io.vertx.ext.shell.session.Session;
 
@@ -55,6 +56,18 @@ public interface Term extends Tty {
   @Override
   Term write(String data);
 
+  @Override
+  Term stdinBufferHandler(Handler<Buffer> handler);
+
+  @Override
+  Term write(Buffer data);
+
+  @Override
+  Term drainHandler(Handler<Void> handler);
+
+  @Override
+  Term setWriteQueueMaxSize(int maxSize);
+
   /**
    * @return the last time this term received input
    */
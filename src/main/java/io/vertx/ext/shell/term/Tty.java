@@ -35,6 +35,9 @@ package io.vertx.ext.shell.term;
 import io.vertx.codegen.annotations.Fluent;
 import io.vertx.codegen.annotations.VertxGen;
 import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+
+import java.nio.charset.StandardCharsets;
 
 /**
  * Provide interactions with the Shell TTY.
@@ -78,6 +81,51 @@ public interface Tty {
   @Fluent
   Tty write(String data);
 
+  /**
+   * Set a stream handler on the standard input to read the raw bytes, the handler replaces the
+   * handler set by {@link #stdinHandler}.<p/>
+   *
+   * When the underlying transport supports it, the bytes are delivered as received and only the interrupt
+   * (<code>Ctrl-C</code>) and suspend (<code>Ctrl-Z</code>) keys are interpreted, otherwise the input is encoded
+   * in {@literal UTF-8}.
+   *
+   * @param handler the standard input
+   * @return this object
+   */
+  @Fluent
+  default Tty stdinBufferHandler(Handler<Buffer> handler) {
+    if (handler != null) {
+      return stdinHandler(data -> handler.handle(Buffer.buffer(data, "UTF-8")));
+    } else {
+      return stdinHandler(null);
+    }
+  }
+
+  /**
+   * Set an end handler on the standard input, the handler is called once when the standard input has no more data
+   * to read. The input of a terminal never ends, the input of a process reading the output of another process in
+   * a pipeline ends after the writing process terminated.
+   *
+   * @param handler the end handler
+   * @return this object
+   */
+  @Fluent
+  default Tty stdinEndHandler(Handler<Void> handler) {
+    return this;
+  }
+
+  /**
+   * Write raw bytes to the standard output, the bytes are sent as is when the underlying transport
+   * supports it, otherwise they are decoded as {@literal UTF-8}.
+   *
+   * @param data the data to write
+   * @return this object
+   */
+  @Fluent
+  default Tty write(Buffer data) {
+    return write(data.toString(StandardCharsets.UTF_8));
+  }
+
   /**
    * Set a resize handler, the handler is called when the tty size changes.
    *
@@ -87,4 +135,36 @@ public interface Tty {
   @Fluent
   Tty resizehandler(Handler<Void> handler);
 
+  /**
+   * This will return {@code true} if there are more bytes in the write queue than the value set using
+   * {@link #setWriteQueueMaxSize}.
+   *
+   * @return true if write queue is full
+   */
+  default boolean writeQueueFull() {
+    return false;
+  }
+
+  /**
+   * Set a drain handler on the tty, the handler is called when the write queue is ready to accept more data.
+   *
+   * @param handler the drain handler
+   * @return this object
+   */
+  @Fluent
+  default Tty drainHandler(Handler<Void> handler) {
+    return this;
+  }
+
+  /**
+   * Set the maximum size of the write queue to {@code maxSize}.
+   *
+   * @param maxSize the max size of the write queue
+   * @return this object
+   */
+  @Fluent
+  default Tty setWriteQueueMaxSize(int maxSize) {
+    return this;
+  }
+
 }
@@ -39,6 +39,7 @@ import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerOptions;
 import io.vertx.ext.auth.AuthProvider;
 import io.vertx.ext.shell.impl.ShellAuth;
 import io.vertx.ext.shell.term.Term;
@@ -60,7 +61,7 @@ public class HttpTermServer implements TermServer {
   private final Vertx vertx;
   private HttpTermOptions options;
   private Handler<Term> termHandler;
-  private HttpServer server;
+  private ServerInstances<HttpServer> servers;
   private Router router;
   private AuthProvider authProvider;
 
@@ -132,16 +133,47 @@ public class HttpTermServer implements TermServer {
     }
 
     if (createServer) {
-      server = vertx.createHttpServer(options);
-      server.requestHandler(router);
-      server.listen(ar -> {
-        if (listenHandler != null) {
-          if (ar.succeeded()) {
-            listenHandler.handle(Future.succeededFuture());
-          } else {
-            listenHandler.handle(Future.failedFuture(ar.cause()));
+      Router requestHandler = router;
+      ServerInstances<HttpServer> instances = new ServerInstances<HttpServer>(vertx, options.getInstances()) {
+        @Override
+        protected HttpServer createServer(int port) {
+          HttpServer server = vertx.createHttpServer(new HttpServerOptions(options).setPort(port));
+          server.requestHandler(requestHandler);
+          return server;
+        }
+        @Override
+        protected void listenServer(HttpServer server, Handler<AsyncResult<Void>> listenHandler) {
+          server.listen(ar -> listenHandler.handle(ar.mapEmpty()));
+        }
+        @Override
+        protected void closeServer(HttpServer server, Handler<AsyncResult<Void>> completionHandler) {
+          server.close(completionHandler);
+        }
+        @Override
+        protected int serverPort(HttpServer server) {
+          return server.actualPort();
+        }
+      };
+      synchronized (this) {
+        if (servers != null) {
+          if (listenHandler != null) {
+            listenHandler.handle(Future.failedFuture("Already started"));
+          }
+          return this;
+        }
+        servers = instances;
+      }
+      instances.listen(options.getPort(), ar -> {
+        if (ar.failed()) {
+          synchronized (this) {
+            if (servers == instances) {
+              servers = null;
+            }
           }
         }
+        if (listenHandler != null) {
+          listenHandler.handle(ar);
+        }
       });
     } else {
       if (listenHandler != null) {
@@ -153,14 +185,22 @@ public class HttpTermServer implements TermServer {
 
   @Override
   public int actualPort() {
-    return -1;
+    ServerInstances<HttpServer> instances;
+    synchronized (this) {
+      instances = servers;
+    }
+    return instances != null ? instances.actualPort() : -1;
   }
 
   @Override
   public void close(Handler<AsyncResult<Void>> completionHandler) {
-    if (server != null) {
-      server.close(completionHandler);
-      server = null;
+    ServerInstances<HttpServer> toClose;
+    synchronized (this) {
+      toClose = servers;
+      servers = null;
+    }
+    if (toClose != null) {
+      toClose.close(completionHandler);
     } else {
       completionHandler.handle(Future.failedFuture("Not started"));
     }
@@ -33,6 +33,7 @@
 package io.vertx.ext.shell.term.impl;
 
 import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.ext.shell.term.Pty;
 import io.vertx.ext.shell.term.Tty;
 
@@ -44,7 +45,9 @@ public class PtyImpl implements Pty {
   private int width = 80;
   private int height = 24;
   private Handler<String> stdinHandler;
+  private Handler<Buffer> stdinBufferHandler;
   private Handler<String> stdoutHandler;
+  private Handler<Buffer> stdoutBufferHandler;
   private final String terminalType;
   private Handler<Void> resizeHandler;
 
@@ -57,6 +60,14 @@ public class PtyImpl implements Pty {
     @Override
     public Tty stdinHandler(Handler<String> handler) {
       stdinHandler = handler;
+      stdinBufferHandler = null;
+      return this;
+    }
+
+    @Override
+    public Tty stdinBufferHandler(Handler<Buffer> handler) {
+      stdinBufferHandler = handler;
+      stdinHandler = null;
       return this;
     }
 
@@ -64,6 +75,18 @@ public class PtyImpl implements Pty {
     public Tty write(String data) {
       if (stdoutHandler != null) {
         stdoutHandler.handle(data);
+      } else if (stdoutBufferHandler != null) {
+        stdoutBufferHandler.handle(Buffer.buffer(data));
+      }
+      return this;
+    }
+
+    @Override
+    public Tty write(Buffer data) {
+      if (stdoutBufferHandler != null) {
+        stdoutBufferHandler.handle(data);
+      } else if (stdoutHandler != null) {
+        stdoutHandler.handle(data.toString());
       }
       return this;
     }
@@ -110,10 +133,28 @@ public class PtyImpl implements Pty {
     return this;
   }
 
+  @Override
+  public Pty stdoutBufferHandler(Handler<Buffer> handler) {
+    stdoutBufferHandler = handler;
+    return this;
+  }
+
   @Override
   public Pty write(String data) {
     if (stdinHandler != null) {
       stdinHandler.handle(data);
+    } else if (stdinBufferHandler != null) {
+      stdinBufferHandler.handle(Buffer.buffer(data));
+    }
+    return this;
+  }
+
+  @Override
+  public Pty write(Buffer data) {
+    if (stdinBufferHandler != null) {
+      stdinBufferHandler.handle(data);
+    } else if (stdinHandler != null) {
+      stdinHandler.handle(data.toString());
     }
     return this;
   }
@@ -34,6 +34,7 @@ package io.vertx.ext.shell.term.impl;
 
 import io.termd.core.tty.TtyConnection;
 import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.ext.shell.term.Tty;
 
 /**
@@ -43,10 +44,12 @@ public class SSHExec implements Tty {
 
   private final String command;
   private final TtyConnection conn;
+  private final SSHTransport transport;
 
-  SSHExec(String command, TtyConnection conn) {
+  SSHExec(String command, TtyConnection conn, SSHTransport transport) {
     this.command = command;
     this.conn = conn;
+    this.transport = transport;
   }
 
   public String command() {
@@ -84,12 +87,48 @@ public class SSHExec implements Tty {
     return this;
   }
 
+  @Override
+  public Tty stdinBufferHandler(Handler<Buffer> handler) {
+    if (handler != null) {
+      String charset = conn.inputCharset().name();
+      conn.setStdinHandler(codePoints -> {
+        handler.handle(Buffer.buffer(io.termd.core.util.Helper.fromCodePoints(codePoints), charset));
+      });
+    } else {
+      conn.setStdinHandler(null);
+    }
+    return this;
+  }
+
   @Override
   public Tty write(String data) {
     conn.write(data);
     return this;
   }
 
+  @Override
+  public Tty write(Buffer data) {
+    conn.write(data.toString(conn.outputCharset()));
+    return this;
+  }
+
+  @Override
+  public boolean writeQueueFull() {
+    return transport.writeQueueFull();
+  }
+
+  @Override
+  public Tty drainHandler(Handler<Void> handler) {
+    transport.drainHandler(handler);
+    return this;
+  }
+
+  @Override
+  public Tty setWriteQueueMaxSize(int maxSize) {
+    transport.setWriteQueueMaxSize(maxSize);
+    return this;
+  }
+
   @Override
   public Tty resizehandler(Handler<Void> handler) {
     if (handler != null) {
@@ -55,12 +55,15 @@ import io.vertx.ext.shell.impl.ShellAuth;
 import io.vertx.ext.shell.term.SSHTermOptions;
 import io.vertx.ext.shell.term.TermServer;
 import io.vertx.ext.shell.term.Term;
+import org.apache.sshd.common.io.IoOutputStream;
 import org.apache.sshd.common.keyprovider.AbstractKeyPairProvider;
 import org.apache.sshd.common.keyprovider.KeyPairProvider;
+import org.apache.sshd.server.Environment;
 import org.apache.sshd.server.SshServer;
 import org.apache.sshd.server.session.ServerConnectionServiceFactory;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.nio.charset.Charset;
 import java.security.Key;
 import java.security.KeyPair;
@@ -73,6 +76,7 @@ import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Encapsulate the SSH server setup.
@@ -181,17 +185,44 @@ public class SSHServer implements TermServer {
         TermConnectionHandler connectionHandler = new TermConnectionHandler(vertx, keymap, termHandler);
 
         nativeServer = SshServer.setUpDefaultServer();
-        nativeServer.setShellFactory(() -> new TtyCommand(defaultCharset, connectionHandler::handle));
+        nativeServer.setShellFactory(() -> {
+          // The user name is set in the environment by the channel session before the command starts
+          AtomicReference<String> user = new AtomicReference<>();
+          SSHTransport transport = new SSHTransport();
+          return new TtyCommand(defaultCharset, conn -> {
+            transport.connect(conn);
+            connectionHandler.handle(conn, user.get(), transport);
+          }) {
+            @Override
+            public void setIoOutputStream(IoOutputStream out) {
+              super.setIoOutputStream(transport.wrap(out));
+            }
+            @Override
+            public void start(Environment env) throws IOException {
+              user.set(env.getEnv().get(Environment.ENV_USER));
+              super.start(env);
+            }
+          };
+        });
         Handler<SSHExec> execHandler = this.execHandler;
         if (execHandler != null) {
-          nativeServer.setCommandFactory(command -> new TtyCommand(defaultCharset, conn -> {
-            execHandler.handle(new SSHExec(command, conn));
-          }));
+          nativeServer.setCommandFactory(command -> {
+            SSHTransport transport = new SSHTransport();
+            return new TtyCommand(defaultCharset, conn -> {
+              transport.connect(conn);
+              execHandler.handle(new SSHExec(command, conn, transport));
+            }) {
+              @Override
+              public void setIoOutputStream(IoOutputStream out) {
+                super.setIoOutputStream(transport.wrap(out));
+              }
+            };
+          });
         }
         nativeServer.setHost(options.getHost());
         nativeServer.setPort(options.getPort());
         nativeServer.setKeyPairProvider(provider);
-        nativeServer.setIoServiceFactoryFactory(new NettyIoServiceFactoryFactory(listenContext.nettyEventLoop(), new VertxIoHandlerBridge(listenContext)));
+        nativeServer.setIoServiceFactoryFactory(new NettyIoServiceFactoryFactory(listenContext.nettyEventLoop(), new VertxIoHandlerBridge(sessionContexts())));
         nativeServer.setServiceFactories(Arrays.asList(ServerConnectionServiceFactory.INSTANCE, AsyncUserAuthServiceFactory.INSTANCE));
 
         //
@@ -221,6 +252,20 @@ public class SSHServer implements TermServer {
     return this;
   }
 
+  /**
+   * @return the contexts handling the sessions, the first one is the listen context
+   */
+  private List<ContextInternal> sessionContexts() {
+    VertxInternal vertxInternal = (VertxInternal) vertx;
+    ClassLoader tccl = Thread.currentThread().getContextClassLoader();
+    List<ContextInternal> contexts = new ArrayList<>();
+    contexts.add(listenContext);
+    for (int i = 1;i < options.getEventLoopPoolSize();i++) {
+      contexts.add(vertxInternal.createEventLoopContext(vertxInternal.getEventLoopGroup().next(), null, null, tccl));
+    }
+    return contexts;
+  }
+
   @Override
   public int actualPort() {
     return nativeServer.getPort();
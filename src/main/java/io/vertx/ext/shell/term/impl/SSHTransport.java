@@ -0,0 +1,157 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.term.impl;
+
+import io.termd.core.tty.TtyConnection;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import org.apache.sshd.common.future.CloseFuture;
+import org.apache.sshd.common.future.SshFutureListener;
+import org.apache.sshd.common.io.IoOutputStream;
+import org.apache.sshd.common.io.IoWriteFuture;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The write queue of a SSH channel: the bytes written to the channel output stream are accounted until the channel
+ * acknowledges them, the queue is full when the pending bytes reach the write queue max size and the drain handler
+ * is called once half of the queue is written.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+class SSHTransport implements TtyTransport {
+
+  /**
+   * The default maximum number of pending bytes of the write queue.
+   */
+  static final int DEFAULT_WRITE_QUEUE_MAX_SIZE = 64 * 1024;
+
+  private final AtomicLong pending = new AtomicLong();
+  private final AtomicBoolean full = new AtomicBoolean();
+  private volatile int writeQueueMaxSize = DEFAULT_WRITE_QUEUE_MAX_SIZE;
+  private volatile Handler<Void> drainHandler;
+  private volatile TtyConnection conn;
+
+  /**
+   * Wrap the output stream of the channel to account the pending bytes.
+   *
+   * @param out the channel output stream
+   * @return the wrapped stream
+   */
+  IoOutputStream wrap(IoOutputStream out) {
+    return new IoOutputStream() {
+      @Override
+      public IoWriteFuture write(org.apache.sshd.common.util.buffer.Buffer buffer) {
+        int len = buffer.available();
+        if (pending.addAndGet(len) >= writeQueueMaxSize) {
+          full.set(true);
+        }
+        IoWriteFuture future = out.write(buffer);
+        future.addListener(f -> written(len));
+        return future;
+      }
+      @Override
+      public CloseFuture close(boolean immediately) {
+        return out.close(immediately);
+      }
+      @Override
+      public void addCloseFutureListener(SshFutureListener<CloseFuture> listener) {
+        out.addCloseFutureListener(listener);
+      }
+      @Override
+      public void removeCloseFutureListener(SshFutureListener<CloseFuture> listener) {
+        out.removeCloseFutureListener(listener);
+      }
+      @Override
+      public boolean isClosed() {
+        return out.isClosed();
+      }
+      @Override
+      public boolean isClosing() {
+        return out.isClosing();
+      }
+      public boolean isOpen() {
+        return !out.isClosed() && !out.isClosing();
+      }
+      public void close() throws IOException {
+        out.close(false);
+      }
+    };
+  }
+
+  /**
+   * Connect the transport to the connection writing to the channel.
+   *
+   * @param conn the connection
+   */
+  void connect(TtyConnection conn) {
+    this.conn = conn;
+  }
+
+  private void written(int len) {
+    if (pending.addAndGet(-len) < writeQueueMaxSize / 2 && full.getAndSet(false)) {
+      if (pending.get() >= writeQueueMaxSize) {
+        // A concurrent write filled the queue again, the next acknowledgement drains it
+        full.set(true);
+      }
+      Handler<Void> handler = drainHandler;
+      if (handler != null) {
+        handler.handle(null);
+      }
+    }
+  }
+
+  @Override
+  public boolean writeQueueFull() {
+    return pending.get() >= writeQueueMaxSize;
+  }
+
+  @Override
+  public void drainHandler(Handler<Void> handler) {
+    drainHandler = handler;
+  }
+
+  @Override
+  public void setWriteQueueMaxSize(int maxSize) {
+    writeQueueMaxSize = maxSize;
+  }
+
+  @Override
+  public void write(Buffer data) {
+    // The channel output is encoded by the connection
+    TtyConnection conn = this.conn;
+    conn.write(data.toString(conn.outputCharset()));
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.term.impl;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.impl.ContextInternal;
+import io.vertx.core.impl.VertxInternal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The instances of a term server listening on the same port with distinct event loops, Vert.x balances the accepted
+ * connections across them.<p/>
+ *
+ * The instances are started one after the other, the first instance determines the actual port of the next ones.
+ * When an instance fails to start, the instances already started are closed. Closing during the start closes the
+ * instances started so far and the instances that complete their start afterwards.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+abstract class ServerInstances<S> {
+
+  private final VertxInternal vertx;
+  private final int instances;
+  private final List<S> started = new ArrayList<>();
+  private boolean closed;
+
+  ServerInstances(Vertx vertx, int instances) {
+    this.vertx = (VertxInternal) vertx;
+    this.instances = instances;
+  }
+
+  /**
+   * Create a server instance.
+   *
+   * @param port the port the instance listens on
+   * @return the server
+   */
+  protected abstract S createServer(int port);
+
+  /**
+   * Start a server instance.
+   *
+   * @param server the server
+   * @param listenHandler the handler called when the server is listening or failed to start
+   */
+  protected abstract void listenServer(S server, Handler<AsyncResult<Void>> listenHandler);
+
+  /**
+   * Close a server instance.
+   *
+   * @param server the server
+   * @param completionHandler the handler called when the server is closed
+   */
+  protected abstract void closeServer(S server, Handler<AsyncResult<Void>> completionHandler);
+
+  /**
+   * @param server the server
+   * @return the actual port of the listening {@code server}
+   */
+  protected abstract int serverPort(S server);
+
+  /**
+   * Start the instances.
+   *
+   * @param port the port of the first instance
+   * @param listenHandler the handler called when all the instances are started or when one failed to start
+   */
+  void listen(int port, Handler<AsyncResult<Void>> listenHandler) {
+    listen((ContextInternal) vertx.getOrCreateContext(), port, ar -> {
+      if (ar.succeeded()) {
+        listenHandler.handle(ar);
+      } else {
+        close(v -> listenHandler.handle(ar));
+      }
+    });
+  }
+
+  private void listen(ContextInternal context, int port, Handler<AsyncResult<Void>> resultHandler) {
+    context.runOnContext(v -> {
+      S server = createServer(port);
+      listenServer(server, ar -> {
+        if (ar.failed()) {
+          resultHandler.handle(ar);
+          return;
+        }
+        int size;
+        synchronized (this) {
+          if (closed) {
+            size = -1;
+          } else {
+            started.add(server);
+            size = started.size();
+          }
+        }
+        if (size == -1) {
+          closeServer(server, closeAr -> resultHandler.handle(Future.failedFuture("Closed")));
+        } else if (size < instances) {
+          ContextInternal next = vertx.createEventLoopContext(vertx.getEventLoopGroup().next(), null, null, Thread.currentThread().getContextClassLoader());
+          listen(next, serverPort(server), resultHandler);
+        } else {
+          resultHandler.handle(Future.succeededFuture());
+        }
+      });
+    });
+  }
+
+  /**
+   * @return the actual port of the instances or {@code -1} when no instance is listening
+   */
+  synchronized int actualPort() {
+    return started.isEmpty() ? -1 : serverPort(started.get(0));
+  }
+
+  /**
+   * Close the instances, the completion handler is failed with the first close failure.
+   *
+   * @param completionHandler the completion handler
+   */
+  void close(Handler<AsyncResult<Void>> completionHandler) {
+    List<S> toClose;
+    synchronized (this) {
+      closed = true;
+      toClose = new ArrayList<>(started);
+      started.clear();
+    }
+    if (toClose.isEmpty()) {
+      completionHandler.handle(Future.succeededFuture());
+      return;
+    }
+    AtomicInteger count = new AtomicInteger(toClose.size());
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    toClose.forEach(server -> closeServer(server, ar -> {
+      if (ar.failed()) {
+        failure.compareAndSet(null, ar.cause());
+      }
+      if (count.decrementAndGet() == 0) {
+        Throwable cause = failure.get();
+        completionHandler.handle(cause == null ? Future.succeededFuture() : Future.failedFuture(cause));
+      }
+    }));
+  }
+}
@@ -35,6 +35,7 @@ package io.vertx.ext.shell.term.impl;
 import io.termd.core.readline.Keymap;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.ext.auth.User;
 import io.vertx.ext.shell.term.SockJSTermHandler;
 import io.vertx.ext.shell.term.Term;
 import io.vertx.ext.web.handler.sockjs.SockJSSocket;
@@ -75,7 +76,8 @@ public class SockJSTermHandlerImpl implements SockJSTermHandler {
           closeHandler.accept(null);
         }
       });
-      termHandler.handle(new TermImpl(vertx, keymap, conn));
+      User user = socket.webUser();
+      termHandler.handle(new TermImpl(vertx, keymap, conn, user != null ? user.principal().getString("username") : null));
     } else {
       socket.close();
     }
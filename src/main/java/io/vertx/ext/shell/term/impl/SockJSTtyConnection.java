@@ -51,7 +51,7 @@ import java.util.function.Consumer;
 /**
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
  */
-public class SockJSTtyConnection extends HttpTtyConnection {
+public class SockJSTtyConnection extends HttpTtyConnection implements TtyTransport {
 
   private final Context context;
   private final SockJSSocket socket;
@@ -67,6 +67,26 @@ public class SockJSTtyConnection extends HttpTtyConnection {
     socket.write(Buffer.buffer(bytes));
   }
 
+  @Override
+  public void write(Buffer data) {
+    socket.write(data);
+  }
+
+  @Override
+  public boolean writeQueueFull() {
+    return socket.writeQueueFull();
+  }
+
+  @Override
+  public void drainHandler(Handler<Void> handler) {
+    socket.drainHandler(handler);
+  }
+
+  @Override
+  public void setWriteQueueMaxSize(int maxSize) {
+    socket.setWriteQueueMaxSize(maxSize);
+  }
+
   @Override
   public void close() {
     socket.close();
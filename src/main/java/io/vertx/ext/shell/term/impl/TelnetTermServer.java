@@ -33,7 +33,6 @@
 package io.vertx.ext.shell.term.impl;
 
 import io.termd.core.readline.Keymap;
-import io.termd.core.telnet.TelnetTtyConnection;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
@@ -49,7 +48,8 @@ import java.io.ByteArrayInputStream;
 import java.nio.charset.Charset;
 
 /**
- * Encapsulate the Telnet server setup.
+ * Encapsulate the Telnet server setup, the server listens with {@link TelnetTermOptions#getInstances()} net servers
+ * bound to distinct event loops, Vert.x balances the accepted connections across them.
  *
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
  */
@@ -58,7 +58,7 @@ public class TelnetTermServer implements TermServer {
   private final Vertx vertx;
   private final TelnetTermOptions options;
   private Handler<Term> termHandler;
-  private NetServer server;
+  private ServerInstances<NetServer> servers;
 
   public TelnetTermServer(Vertx vertx, TelnetTermOptions options) {
     this.vertx = vertx;
@@ -79,41 +79,74 @@ public class TelnetTermServer implements TermServer {
   @Override
   public TermServer listen(Handler<AsyncResult<Void>> listenHandler) {
     Charset charset = Charset.forName(options.getCharset());
-    if (server == null) {
-      server = vertx.createNetServer(options);
-      Buffer inputrc = Helper.loadResource(vertx.fileSystem(), options.getIntputrc());
-      if (inputrc == null) {
-        listenHandler.handle(Future.failedFuture("Could not load inputrc from " + options.getIntputrc()));
+    Buffer inputrc = Helper.loadResource(vertx.fileSystem(), options.getIntputrc());
+    if (inputrc == null) {
+      listenHandler.handle(Future.failedFuture("Could not load inputrc from " + options.getIntputrc()));
+      return this;
+    }
+    Keymap keymap = new Keymap(new ByteArrayInputStream(inputrc.getBytes()));
+    TermConnectionHandler connectionHandler = new TermConnectionHandler(vertx, keymap, termHandler);
+    TelnetSocketHandler socketHandler = new TelnetSocketHandler(vertx, () -> {
+      return new VertxTelnetTtyConnection(options.getInBinary(), options.getOutBinary(), charset, connectionHandler::handle);
+    });
+    ServerInstances<NetServer> instances = new ServerInstances<NetServer>(vertx, options.getInstances()) {
+      @Override
+      protected NetServer createServer(int port) {
+        NetServer server = vertx.createNetServer(new TelnetTermOptions(options).setPort(port));
+        server.connectHandler(socketHandler);
+        return server;
+      }
+      @Override
+      protected void listenServer(NetServer server, Handler<AsyncResult<Void>> listenHandler) {
+        server.listen(ar -> listenHandler.handle(ar.mapEmpty()));
+      }
+      @Override
+      protected void closeServer(NetServer server, Handler<AsyncResult<Void>> completionHandler) {
+        server.close(completionHandler);
+      }
+      @Override
+      protected int serverPort(NetServer server) {
+        return server.actualPort();
+      }
+    };
+    synchronized (this) {
+      if (servers != null) {
+        listenHandler.handle(Future.failedFuture("Already started"));
         return this;
       }
-      Keymap keymap = new Keymap(new ByteArrayInputStream(inputrc.getBytes()));
-      TermConnectionHandler connectionHandler = new TermConnectionHandler(vertx, keymap, termHandler);
-      server.connectHandler(new TelnetSocketHandler(vertx, () -> {
-        return new TelnetTtyConnection(options.getInBinary(), options.getOutBinary(), charset, connectionHandler::handle);
-      }));
-      server.listen(ar -> {
-        if (ar.succeeded()) {
-          listenHandler.handle(Future.succeededFuture());
-        } else {
-          listenHandler.handle(Future.failedFuture(ar.cause()));
-        }
-      });
-    } else {
-      listenHandler.handle(Future.failedFuture("Already started"));
+      servers = instances;
     }
+    instances.listen(options.getPort(), ar -> {
+      if (ar.failed()) {
+        synchronized (this) {
+          if (servers == instances) {
+            servers = null;
+          }
+        }
+      }
+      listenHandler.handle(ar);
+    });
     return this;
   }
 
   public void close(Handler<AsyncResult<Void>> completionHandler) {
-    if (server != null) {
-      server.close(completionHandler);
-      server = null;
+    ServerInstances<NetServer> toClose;
+    synchronized (this) {
+      toClose = servers;
+      servers = null;
+    }
+    if (toClose != null) {
+      toClose.close(completionHandler);
     } else {
       completionHandler.handle(Future.failedFuture("No started"));
     }
   }
 
   public int actualPort() {
-    return server.actualPort();
+    ServerInstances<NetServer> instances;
+    synchronized (this) {
+      instances = servers;
+    }
+    return instances != null ? instances.actualPort() : -1;
   }
 }
@@ -56,6 +56,27 @@ class TermConnectionHandler implements Handler<TtyConnection> {
 
   @Override
   public void handle(TtyConnection conn) {
-    handler.handle(new TermImpl(vertx, keymap, conn));
+    handle(conn, null);
+  }
+
+  /**
+   * Handle a connection authenticated by a user.
+   *
+   * @param conn the connection
+   * @param user the user name
+   */
+  public void handle(TtyConnection conn, String user) {
+    handle(conn, user, conn instanceof TtyTransport ? (TtyTransport) conn : null);
+  }
+
+  /**
+   * Handle a connection authenticated by a user and carried by a transport.
+   *
+   * @param conn the connection
+   * @param user the user name
+   * @param transport the transport
+   */
+  void handle(TtyConnection conn, String user, TtyTransport transport) {
+    handler.handle(new TermImpl(vertx, keymap, conn, user, transport));
   }
 }
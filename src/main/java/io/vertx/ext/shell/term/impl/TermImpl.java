@@ -38,12 +38,14 @@ import io.termd.core.tty.TtyConnection;
 import io.termd.core.util.Helper;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.ext.shell.cli.CliToken;
 import io.vertx.ext.shell.cli.Completion;
 import io.vertx.ext.shell.session.Session;
 import io.vertx.ext.shell.term.SignalHandler;
 import io.vertx.ext.shell.term.Term;
 
+import java.nio.charset.Charset;
 import java.util.Collections;
 import java.util.List;
 import java.util.function.Consumer;
@@ -60,7 +62,10 @@ public class TermImpl implements Term {
   private final Readline readline;
   private final Consumer<int[]> echoHandler;
   final TtyConnection conn;
+  private final TtyTransport transport;
+  private final String user;
   volatile Handler<String> stdinHandler;
+  volatile Handler<Buffer> stdinBufferHandler;
   private SignalHandler interruptHandler;
   private SignalHandler suspendHandler;
   private Session session;
@@ -71,8 +76,31 @@ public class TermImpl implements Term {
   }
 
   public TermImpl(Vertx vertx, Keymap keymap, TtyConnection conn) {
+    this(vertx, keymap, conn, null);
+  }
+
+  /**
+   * Create a term for a connection.
+   *
+   * @param user the name of the user authenticated by the connection, {@code null} when the connection is not
+   *             authenticated
+   */
+  public TermImpl(Vertx vertx, Keymap keymap, TtyConnection conn, String user) {
+    this(vertx, keymap, conn, user, conn instanceof TtyTransport ? (TtyTransport) conn : null);
+  }
+
+  /**
+   * Create a term for a connection carried by a {@code transport}.
+   *
+   * @param user the name of the user authenticated by the connection, {@code null} when the connection is not
+   *             authenticated
+   * @param transport the transport or {@code null}
+   */
+  TermImpl(Vertx vertx, Keymap keymap, TtyConnection conn, String user, TtyTransport transport) {
     this.vertx = vertx;
     this.conn = conn;
+    this.user = user;
+    this.transport = transport;
     readline = new Readline(keymap);
     readlineFunctions.forEach(readline::addFunction);
     echoHandler = codePoints -> {
@@ -92,6 +120,8 @@ public class TermImpl implements Term {
           // Pseudo signal
           if (stdinHandler != null) {
             stdinHandler.handle(Helper.fromCodePoints(new int[]{key}));
+          } else if (stdinBufferHandler != null) {
+            stdinBufferHandler.handle(encode(new int[]{key}));
           } else {
             echo(key);
             readline.queueEvent(new int[]{key});
@@ -106,6 +136,13 @@ public class TermImpl implements Term {
     });
   }
 
+  /**
+   * @return the name of the user authenticated by the connection or {@code null}
+   */
+  public String user() {
+    return user;
+  }
+
   @Override
   public Term setSession(Session session) {
     this.session = session;
@@ -212,15 +249,30 @@ public class TermImpl implements Term {
     return conn.size() != null ? conn.size().y() : -1;
   }
 
+  /**
+   * Deliver the events queued by readline to the stdin handler in a single chunk.
+   */
   void checkPending() {
-    if (stdinHandler != null && readline.hasEvent()) {
-      stdinHandler.handle(Helper.fromCodePoints(readline.nextEvent().buffer().array()));
-      vertx.runOnContext(v -> {
-        checkPending();
-      });
+    Handler<String> handler = stdinHandler;
+    Handler<Buffer> bufferHandler = stdinBufferHandler;
+    if ((handler != null || bufferHandler != null) && readline.hasEvent()) {
+      StringBuilder pending = new StringBuilder();
+      while (readline.hasEvent()) {
+        Helper.appendCodePoints(readline.nextEvent().buffer().array(), pending);
+      }
+      if (handler != null) {
+        handler.handle(pending.toString());
+      } else {
+        bufferHandler.handle(Buffer.buffer(pending.toString(), conn.inputCharset().name()));
+      }
     }
   }
 
+  private Buffer encode(int[] codePoints) {
+    Charset charset = conn.inputCharset();
+    return Buffer.buffer(Helper.fromCodePoints(codePoints), charset.name());
+  }
+
   @Override
   public TermImpl resizehandler(Handler<Void> handler) {
     if (inReadline) {
@@ -241,6 +293,12 @@ public class TermImpl implements Term {
     if (inReadline) {
       throw new IllegalStateException();
     }
+    if (stdinBufferHandler != null) {
+      stdinBufferHandler = null;
+      if (transport != null) {
+        transport.binaryHandler(null);
+      }
+    }
     stdinHandler = handler;
     if (handler != null) {
       conn.setStdinHandler(codePoints -> {
@@ -253,12 +311,68 @@ public class TermImpl implements Term {
     return this;
   }
 
+  @Override
+  public Term stdinBufferHandler(Handler<Buffer> handler) {
+    if (inReadline) {
+      throw new IllegalStateException();
+    }
+    stdinHandler = null;
+    stdinBufferHandler = handler;
+    if (handler != null) {
+      // Input decoded by the connection when the transport cannot provide the raw bytes
+      conn.setStdinHandler(codePoints -> {
+        handler.handle(encode(codePoints));
+      });
+      if (transport != null) {
+        transport.binaryHandler(handler);
+      }
+      checkPending();
+    } else {
+      if (transport != null) {
+        transport.binaryHandler(null);
+      }
+      conn.setStdinHandler(echoHandler);
+    }
+    return this;
+  }
+
   @Override
   public Term write(String data) {
     conn.write(data);
     return this;
   }
 
+  @Override
+  public Term write(Buffer data) {
+    if (transport != null) {
+      transport.write(data);
+    } else {
+      conn.write(data.toString(conn.outputCharset()));
+    }
+    return this;
+  }
+
+  @Override
+  public boolean writeQueueFull() {
+    return transport != null && transport.writeQueueFull();
+  }
+
+  @Override
+  public TermImpl drainHandler(Handler<Void> handler) {
+    if (transport != null) {
+      transport.drainHandler(handler);
+    }
+    return this;
+  }
+
+  @Override
+  public TermImpl setWriteQueueMaxSize(int maxSize) {
+    if (transport != null) {
+      transport.setWriteQueueMaxSize(maxSize);
+    }
+    return this;
+  }
+
   public TermImpl interruptHandler(SignalHandler handler) {
     interruptHandler = handler;
     return this;
@@ -278,26 +392,53 @@ public class TermImpl implements Term {
     return this;
   }
 
+  /**
+   * Echo the code points as a single write: the code points are written as is when none of them needs
+   * to be escaped, otherwise the escaped chunk is written.
+   *
+   * @param codePoints the code points to echo
+   */
   public void echo(int... codePoints) {
+    int len = 0;
+    boolean verbatim = true;
+    for (int codePoint : codePoints) {
+      if (codePoint == '\t' || codePoint == '\n' || (codePoint >= 32 && codePoint != 127)) {
+        len++;
+      } else if (codePoint == '\r') {
+        len++;
+        verbatim = false;
+      } else if (codePoint == '\b' || codePoint == 127) {
+        len += 3;
+        verbatim = false;
+      } else {
+        len += 2;
+        verbatim = false;
+      }
+    }
+    if (len == 0) {
+      return;
+    }
     Consumer<int[]> out = conn.stdoutHandler();
+    if (verbatim) {
+      out.accept(codePoints);
+      return;
+    }
+    int[] escaped = new int[len];
+    int index = 0;
     for (int codePoint : codePoints) {
-      if (codePoint < 32) {
-        if (codePoint == '\t') {
-          out.accept(new int[]{'\t'});
-        } else if (codePoint == '\b') {
-          out.accept(new int[]{'\b', ' ', '\b'});
-        } else if (codePoint == '\r' || codePoint == '\n') {
-          out.accept(new int[]{'\n'});
-        } else {
-          out.accept(new int[]{'^', codePoint + 64});
-        }
+      if (codePoint == '\t' || codePoint == '\n' || (codePoint >= 32 && codePoint != 127)) {
+        escaped[index++] = codePoint;
+      } else if (codePoint == '\r') {
+        escaped[index++] = '\n';
+      } else if (codePoint == '\b' || codePoint == 127) {
+        escaped[index++] = '\b';
+        escaped[index++] = ' ';
+        escaped[index++] = '\b';
       } else {
-        if (codePoint == 127) {
-          out.accept(new int[]{'\b', ' ', '\b'});
-        } else {
-          out.accept(new int[]{codePoint});
-        }
+        escaped[index++] = '^';
+        escaped[index++] = codePoint + 64;
       }
     }
+    out.accept(escaped);
   }
 }
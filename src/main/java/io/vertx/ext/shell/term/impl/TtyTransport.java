@@ -0,0 +1,70 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.term.impl;
+
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+
+/**
+ * Exposes the transport carrying a tty connection: its write queue and a byte level path bypassing
+ * the charset encoding and decoding of the connection.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+interface TtyTransport {
+
+  boolean writeQueueFull();
+
+  void drainHandler(Handler<Void> handler);
+
+  void setWriteQueueMaxSize(int maxSize);
+
+  /**
+   * Write raw bytes to the transport, the bytes are not encoded by the connection.
+   *
+   * @param data the bytes to write
+   */
+  void write(Buffer data);
+
+  /**
+   * Set a handler receiving the raw input bytes, when the handler is not null the input bypasses
+   * the connection decoder.
+   *
+   * @param handler the binary handler
+   * @return true when the transport supports raw input
+   */
+  default boolean binaryHandler(Handler<Buffer> handler) {
+    return false;
+  }
+
+}
@@ -33,52 +33,100 @@
 package io.vertx.ext.shell.term.impl;
 
 import io.termd.core.ssh.netty.NettyIoHandlerBridge;
+import io.vertx.core.Handler;
 import io.vertx.core.VertxException;
 import io.vertx.core.impl.ContextInternal;
 import org.apache.sshd.common.io.IoHandler;
 import org.apache.sshd.common.io.IoSession;
+import org.apache.sshd.common.util.Readable;
+import org.apache.sshd.common.util.buffer.ByteArrayBuffer;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
+ * Dispatch the SSH sessions events to Vert.x contexts, each session is assigned a context from a pool
+ * of event loop contexts in a round robin fashion and all its events are handled by this context.<p/>
+ *
+ * When the session context runs on the I/O event loop the events are dispatched synchronously, otherwise
+ * they are copied and executed on the session context in order. The session is closed when the handling of an
+ * event fails.
+ *
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
  */
 public class VertxIoHandlerBridge extends NettyIoHandlerBridge {
 
-  private final ContextInternal context;
+  private final List<ContextInternal> contexts;
+  private final AtomicInteger index = new AtomicInteger();
+  private final Map<IoSession, ContextInternal> sessionContexts = new ConcurrentHashMap<>();
 
   public VertxIoHandlerBridge(ContextInternal context) {
-    this.context = context;
+    this(Collections.singletonList(context));
   }
 
-  @Override
-  public void sessionCreated(IoHandler handler, IoSession session) throws Exception {
-    context.dispatch(v -> {
+  public VertxIoHandlerBridge(List<ContextInternal> contexts) {
+    if (contexts.isEmpty()) {
+      throw new IllegalArgumentException("No context");
+    }
+    this.contexts = contexts;
+  }
+
+  private ContextInternal sessionContext(IoSession session) {
+    ContextInternal context = sessionContexts.get(session);
+    return context != null ? context : contexts.get(0);
+  }
+
+  private void execute(ContextInternal context, IoSession session, Task task) {
+    // A failing task closes the session whether it is dispatched synchronously or not
+    Handler<Void> action = v -> {
       try {
-        super.sessionCreated(handler, session);
+        task.run();
       } catch (Exception e) {
+        session.close(true);
         throw new VertxException(e);
       }
-    });
+    };
+    if (context.nettyEventLoop().inEventLoop()) {
+      context.dispatch(action);
+    } else {
+      context.runOnContext(action);
+    }
+  }
+
+  @Override
+  public void sessionCreated(IoHandler handler, IoSession session) throws Exception {
+    ContextInternal context = contexts.get(Math.floorMod(index.getAndIncrement(), contexts.size()));
+    sessionContexts.put(session, context);
+    execute(context, session, () -> super.sessionCreated(handler, session));
   }
 
   @Override
   public void sessionClosed(IoHandler handler, IoSession session) throws Exception {
-    context.dispatch(v -> {
-      try {
-        super.sessionClosed(handler, session);
-      } catch (Exception e) {
-        throw new VertxException(e);
-      }
+    ContextInternal context = sessionContext(session);
+    execute(context, session, () -> {
+      sessionContexts.remove(session);
+      super.sessionClosed(handler, session);
     });
   }
 
   @Override
-  public void messageReceived(IoHandler handler, IoSession session, org.apache.sshd.common.util.Readable message) throws Exception {
-    context.dispatch(v -> {
-      try {
-        super.messageReceived(handler, session, message);
-      } catch (Exception e) {
-        throw new VertxException(e);
-      }
-    });
+  public void messageReceived(IoHandler handler, IoSession session, Readable message) throws Exception {
+    ContextInternal context = sessionContext(session);
+    if (context.nettyEventLoop().inEventLoop()) {
+      execute(context, session, () -> super.messageReceived(handler, session, message));
+    } else {
+      // The message is only valid during this call
+      byte[] data = new byte[message.available()];
+      message.getRawBytes(data, 0, data.length);
+      Readable copy = new ByteArrayBuffer(data);
+      execute(context, session, () -> super.messageReceived(handler, session, copy));
+    }
+  }
+
+  private interface Task {
+    void run() throws Exception;
   }
 }
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.term.impl;
+
+import io.termd.core.telnet.TelnetConnection;
+import io.termd.core.telnet.TelnetTtyConnection;
+import io.termd.core.tty.TtyConnection;
+import io.termd.core.tty.TtyEvent;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * A telnet tty connection providing the flow control and the raw bytes of the underlying {@link io.vertx.core.net.NetSocket}.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+class VertxTelnetTtyConnection extends TelnetTtyConnection implements TtyTransport {
+
+  private static final byte IAC = (byte) 0xFF;
+  private static final byte INTR = 3;  // Ctrl-C
+  private static final byte SUSP = 26; // Ctrl-Z
+
+  private VertxTelnetConnection conn;
+  private volatile Handler<Buffer> binaryHandler;
+  private volatile long lastBinaryAccessedTime;
+
+  VertxTelnetTtyConnection(boolean inBinary, boolean outBinary, Charset charset, Consumer<TtyConnection> handler) {
+    super(inBinary, outBinary, charset, handler);
+  }
+
+  @Override
+  protected void onOpen(TelnetConnection conn) {
+    if (conn instanceof VertxTelnetConnection) {
+      this.conn = (VertxTelnetConnection) conn;
+    }
+    super.onOpen(conn);
+  }
+
+  @Override
+  protected void onData(byte[] data) {
+    Handler<Buffer> handler = binaryHandler;
+    if (handler != null) {
+      lastBinaryAccessedTime = System.currentTimeMillis();
+      // The raw bytes bypass the decoder, the interrupt and suspend keys are still delivered as events
+      int from = 0;
+      for (int i = 0;i < data.length;i++) {
+        TtyEvent event = data[i] == INTR ? TtyEvent.INTR : data[i] == SUSP ? TtyEvent.SUSP : null;
+        if (event != null) {
+          if (i > from) {
+            handler.handle(Buffer.buffer(Arrays.copyOfRange(data, from, i)));
+          }
+          from = i + 1;
+          BiConsumer<TtyEvent, Integer> eventHandler = getEventHandler();
+          if (eventHandler != null) {
+            eventHandler.accept(event, (int) data[i]);
+          }
+        }
+      }
+      if (from == 0) {
+        handler.handle(Buffer.buffer(data));
+      } else if (from < data.length) {
+        handler.handle(Buffer.buffer(Arrays.copyOfRange(data, from, data.length)));
+      }
+    } else {
+      super.onData(data);
+    }
+  }
+
+  @Override
+  public long lastAccessedTime() {
+    return Math.max(super.lastAccessedTime(), lastBinaryAccessedTime);
+  }
+
+  @Override
+  public void write(Buffer data) {
+    if (conn != null) {
+      int len = data.length();
+      int iac = 0;
+      for (int i = 0;i < len;i++) {
+        if (data.getByte(i) == IAC) {
+          iac++;
+        }
+      }
+      if (iac == 0) {
+        conn.socket.write(data);
+      } else {
+        // Escape the IAC bytes so they are not interpreted as telnet commands
+        Buffer escaped = Buffer.buffer(len + iac);
+        for (int i = 0;i < len;i++) {
+          byte b = data.getByte(i);
+          escaped.appendByte(b);
+          if (b == IAC) {
+            escaped.appendByte(IAC);
+          }
+        }
+        conn.socket.write(escaped);
+      }
+    }
+  }
+
+  @Override
+  public boolean binaryHandler(Handler<Buffer> handler) {
+    binaryHandler = handler;
+    return true;
+  }
+
+  @Override
+  public boolean writeQueueFull() {
+    return conn != null && conn.socket.writeQueueFull();
+  }
+
+  @Override
+  public void drainHandler(Handler<Void> handler) {
+    if (conn != null) {
+      conn.socket.drainHandler(handler);
+    }
+  }
+
+  @Override
+  public void setWriteQueueMaxSize(int maxSize) {
+    if (conn != null) {
+      conn.socket.setWriteQueueMaxSize(maxSize);
+    }
+  }
+}
@@ -33,6 +33,7 @@
 package io.vertx.ext.shell;
 
 import com.jcraft.jsch.Channel;
+import com.jcraft.jsch.ChannelExec;
 import com.jcraft.jsch.Session;
 import de.flapdoodle.embed.mongo.MongodExecutable;
 import de.flapdoodle.embed.mongo.MongodStarter;
@@ -55,6 +56,7 @@ import io.vertx.ext.unit.TestContext;
 import org.junit.After;
 import org.junit.Test;
 
+import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.util.Arrays;
@@ -238,4 +240,50 @@ public class SSHShellTest extends SSHTestBase {
     super.testExec(context);
     assertEquals(execCommand.get(), vertx);
   }
+
+  @Test
+  public void testExecScript(TestContext context) throws Exception {
+    CommandRegistry registry = CommandRegistry.getShared(vertx);
+    registry.registerCommand(CommandBuilder.command("fail").processHandler(process -> process.end(3)).build(vertx));
+    startShell();
+    Session session = createSession("paulo", "secret", false);
+    session.connect();
+    ChannelExec channel = (ChannelExec) session.openChannel("exec");
+    channel.setCommand("echo one\n\n# a comment\necho two\nfail\necho three\n");
+    channel.connect();
+    InputStream in = channel.getInputStream();
+    StringBuilder output = new StringBuilder();
+    int a;
+    while ((a = in.read()) != -1) {
+      output.append((char) a);
+    }
+    while (channel.isConnected()) {
+      Thread.sleep(1);
+    }
+    assertEquals("one\ntwo\n", output.toString().replace("\r\n", "\n"));
+    assertEquals(3, channel.getExitStatus());
+    session.disconnect();
+  }
+
+  @Test
+  public void testExecScriptBuiltin(TestContext context) throws Exception {
+    startShell();
+    Session session = createSession("paulo", "secret", false);
+    session.connect();
+    ChannelExec channel = (ChannelExec) session.openChannel("exec");
+    channel.setCommand("echo one\njobs\necho two\n");
+    channel.connect();
+    InputStream in = channel.getInputStream();
+    StringBuilder output = new StringBuilder();
+    int a;
+    while ((a = in.read()) != -1) {
+      output.append((char) a);
+    }
+    while (channel.isConnected()) {
+      Thread.sleep(1);
+    }
+    assertEquals("one\njobs: can only be used in an interactive shell\n", output.toString().replace("\r\n", "\n"));
+    assertEquals(1, channel.getExitStatus());
+    session.disconnect();
+  }
 }
@@ -47,8 +47,11 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
@@ -75,11 +78,15 @@ public class ShellCloseTest {
   }
 
   private void startShellServer(TestContext context, long sessionTimeout, long reaperInterval) {
+    startShellServer(context, new ShellServerOptions().setSessionTimeout(sessionTimeout).setReaperInterval(reaperInterval));
+  }
+
+  private void startShellServer(TestContext context, ShellServerOptions options) {
     if (shellServer != null) {
       throw new IllegalStateException("Already started");
     }
     Async latch = context.async();
-    shellServer = ShellServer.create(vertx, new ShellServerOptions().setSessionTimeout(sessionTimeout).setReaperInterval(reaperInterval)).
+    shellServer = ShellServer.create(vertx, options).
         registerTermServer(termServer).
         registerCommandResolver(registry).
         listen(context.asyncAssertSuccess(v -> latch.complete()));
@@ -116,6 +123,21 @@ public class ShellCloseTest {
     context.assertTrue(conn.getCloseLatch().await(2, TimeUnit.SECONDS));
   }
 
+  @Test
+  public void testSessionsExpireInDeadlineOrder(TestContext context) throws Exception {
+    startShellServer(context, 200, 10);
+    TestTtyConnection idle = termServer.openConnection();
+    TestTtyConnection active = termServer.openConnection();
+    long now = System.currentTimeMillis();
+    while (System.currentTimeMillis() - now < 400) {
+      active.read("a");
+      Thread.sleep(20);
+    }
+    context.assertTrue(idle.getCloseLatch().await(2, TimeUnit.SECONDS));
+    context.assertFalse(active.isClosed());
+    context.assertTrue(active.getCloseLatch().await(2, TimeUnit.SECONDS));
+  }
+
   @Test
   public void testCloseShellServer(TestContext context) throws Exception {
     testClose(context, conn -> {
@@ -184,4 +206,96 @@ public class ShellCloseTest {
     ));
     processEnd.complete();
   }
+
+  @Test
+  public void testDetachOnConnectionLoss(TestContext context) throws Exception {
+    Async processStarted = context.async();
+    AtomicBoolean ended = new AtomicBoolean();
+    AtomicReference<Runnable> write = new AtomicReference<>();
+    Async foreground = context.async();
+    registry.add(CommandBuilder.command("cmd").processHandler(process -> {
+      process.endHandler(v -> ended.set(true));
+      process.foregroundHandler(v -> foreground.complete());
+      Context ctx = process.vertx().getOrCreateContext();
+      write.set(() -> ctx.runOnContext(v -> process.write("while_detached")));
+      processStarted.complete();
+    }));
+    startShellServer(context, new ShellServerOptions().setWelcomeMessage("").setDetachedSessionTimeout(30000));
+    TestTtyConnection conn1 = termServer.openConnection();
+    conn1.read("cmd\r");
+    processStarted.awaitSuccess(20000);
+    conn1.close();
+    Thread.sleep(100);
+    write.get().run();
+    TestTtyConnection conn2 = termServer.openConnection();
+    conn2.read("attach\r");
+    String id = waitFor(conn2, Pattern.compile("([0-9a-f\\-]{36}) \\(1 jobs\\)")).group(1);
+    conn2.read("attach " + id + "\r");
+    waitFor(conn2, Pattern.compile("while_detached"));
+    foreground.awaitSuccess(20000);
+    context.assertFalse(ended.get());
+    context.assertFalse(conn2.isClosed());
+  }
+
+  @Test
+  public void testDetachedSessionExpires(TestContext context) throws Exception {
+    Async processStarted = context.async();
+    Async processEnded = context.async();
+    registry.add(CommandBuilder.command("cmd").processHandler(process -> {
+      process.endHandler(v -> processEnded.complete());
+      processStarted.complete();
+    }));
+    startShellServer(context, new ShellServerOptions().setWelcomeMessage("").setDetachedSessionTimeout(100));
+    TestTtyConnection conn = termServer.openConnection();
+    conn.read("cmd\r");
+    processStarted.awaitSuccess(20000);
+    conn.close();
+    processEnded.awaitSuccess(20000);
+  }
+
+  @Test
+  public void testDetachCommand(TestContext context) throws Exception {
+    startShellServer(context, new ShellServerOptions().setWelcomeMessage("").setDetachedSessionTimeout(30000));
+    TestTtyConnection conn1 = termServer.openConnection();
+    conn1.read("detach\r");
+    String id = waitFor(conn1, Pattern.compile("\\[detached from session ([0-9a-f\\-]{36})\\]")).group(1);
+    context.assertTrue(conn1.getCloseLatch().await(2, TimeUnit.SECONDS));
+    TestTtyConnection conn2 = termServer.openConnection();
+    conn2.read("attach unknown\r");
+    waitFor(conn2, Pattern.compile("attach: unknown: no such session"));
+    conn2.read("attach " + id + "\r");
+    Thread.sleep(100);
+    context.assertFalse(conn2.isClosed());
+  }
+
+  @Test
+  public void testAttachOtherUserSession(TestContext context) throws Exception {
+    startShellServer(context, new ShellServerOptions().setWelcomeMessage("").setDetachedSessionTimeout(30000));
+    TestTtyConnection conn1 = termServer.openConnection("alice");
+    conn1.read("detach\r");
+    String id = waitFor(conn1, Pattern.compile("\\[detached from session ([0-9a-f\\-]{36})\\]")).group(1);
+    context.assertTrue(conn1.getCloseLatch().await(2, TimeUnit.SECONDS));
+    TestTtyConnection conn2 = termServer.openConnection("bob");
+    conn2.read("attach\r");
+    conn2.read("attach " + id + "\r");
+    waitFor(conn2, Pattern.compile("attach: " + id + ": no such session"));
+    context.assertFalse(conn2.out().toString().contains(id + " ("));
+    TestTtyConnection conn3 = termServer.openConnection("alice");
+    conn3.read("attach\r");
+    waitFor(conn3, Pattern.compile(id + " \\(0 jobs\\)"));
+  }
+
+  private Matcher waitFor(TestTtyConnection conn, Pattern pattern) throws Exception {
+    long now = System.currentTimeMillis();
+    while (System.currentTimeMillis() - now < 20000) {
+      synchronized (conn) {
+        Matcher matcher = pattern.matcher(conn.out());
+        if (matcher.find()) {
+          return matcher;
+        }
+      }
+      Thread.sleep(10);
+    }
+    throw new AssertionError("Was expecting <" + pattern + "> in <" + conn.out() + ">");
+  }
 }
@@ -367,6 +367,51 @@ public class ShellTest {
     conn.read("whatever");
   }
 
+  @Test
+  public void testForegroundJobById(TestContext context) throws Exception {
+    TestTtyConnection conn = new TestTtyConnection(vertx);
+    ShellImpl shell = createShell(conn);
+    shell.init().readline();
+    Async started1 = context.async();
+    Async started2 = context.async();
+    Async suspended = context.async(2);
+    Async foreground = context.async();
+    commands.add(CommandBuilder.command("foo").processHandler(process -> {
+      process.suspendHandler(v -> suspended.countDown());
+      process.foregroundHandler(v -> foreground.complete());
+      started1.complete();
+    }));
+    commands.add(CommandBuilder.command("bar").processHandler(process -> {
+      process.suspendHandler(v -> suspended.countDown());
+      process.foregroundHandler(v -> context.fail());
+      started2.complete();
+    }));
+    conn.read("foo\r");
+    started1.awaitSuccess(10000);
+    conn.sendEvent(TtyEvent.SUSP);
+    conn.read("bar\r");
+    started2.awaitSuccess(10000);
+    conn.sendEvent(TtyEvent.SUSP);
+    suspended.awaitSuccess(10000);
+    Job job1 = shell.jobController().getJob(1);
+    Job job2 = shell.jobController().getJob(2);
+    context.assertEquals(job2, shell.jobController().currentJob());
+    context.assertEquals(job1, shell.jobController().previousJob());
+    conn.read("fg %1\r");
+    foreground.awaitSuccess(10000);
+    context.assertEquals(job1, shell.jobController().foregroundJob());
+    context.assertEquals(job2, shell.jobController().currentJob());
+  }
+
+  @Test
+  public void testForegroundUnknownJob(TestContext context) throws Exception {
+    TestTtyConnection conn = new TestTtyConnection(vertx);
+    ShellImpl shell = createShell(conn);
+    shell.init().readline();
+    conn.read("fg %3\r");
+    conn.assertWritten("% fg %3\nno such job\n% ");
+  }
+
   @Test
   public void testExecuteBufferedCommand(TestContext context) throws Exception {
     TestTtyConnection conn = new TestTtyConnection(vertx);
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.benchmarks;
+
+import io.termd.core.readline.LineStatus;
+import io.vertx.ext.shell.cli.CliToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the command line tokenizer with the previous {@link LineStatus} based implementation.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CliTokenBenchmark {
+
+  @Param({"simple", "quoted", "long"})
+  public String kind;
+
+  private String line;
+
+  @Setup
+  public void setup() {
+    switch (kind) {
+      case "simple":
+        line = "bus-send --verbose the-address hello";
+        break;
+      case "quoted":
+        line = "bus-send --header 'foo:bar' the-address \"hello \\\"world\\\"\" a\\ b";
+        break;
+      case "long":
+        StringBuilder json = new StringBuilder("bus-send the-address '{");
+        for (int i = 0;i < 200;i++) {
+          json.append(i > 0 ? "," : "").append("\"key").append(i).append("\":\"value ").append(i).append('"');
+        }
+        line = json.append("}'").toString();
+        break;
+      default:
+        throw new IllegalArgumentException(kind);
+    }
+  }
+
+  @Benchmark
+  public void tokenize(Blackhole bh) {
+    for (CliToken token : CliToken.tokenize(line)) {
+      if (token.isText()) {
+        bh.consume(token.value());
+      }
+    }
+  }
+
+  @Benchmark
+  public void legacyTokenize(Blackhole bh) {
+    for (CliToken token : LegacyTokenizer.tokenize(line)) {
+      if (token.isText()) {
+        bh.consume(token.value());
+      }
+    }
+  }
+
+  /**
+   * The char based tokenizer replaced by the offset based tokenizer.
+   */
+  static class LegacyTokenizer {
+
+    static List<CliToken> tokenize(String s) {
+      List<CliToken> tokens = new LinkedList<>();
+      int index = 0;
+      while (index < s.length()) {
+        char c = s.charAt(index);
+        switch (c) {
+          case ' ':
+          case '\t':
+            index = blankToken(s, index, tokens);
+            break;
+          default:
+            index = textToken(s, index, tokens);
+            break;
+        }
+      }
+      return tokens;
+    }
+
+    private static int textToken(String s, int index, List<CliToken> builder) {
+      LineStatus quoter = new LineStatus();
+      int from = index;
+      StringBuilder value = new StringBuilder();
+      while (index < s.length()) {
+        char c = s.charAt(index);
+        quoter.accept(c);
+        if (!quoter.isQuoted() && !quoter.isEscaped() && isBlank(c)) {
+          break;
+        }
+        if (quoter.isCodePoint()) {
+          if (quoter.isEscaped() && quoter.isWeaklyQuoted() && c != '"') {
+            value.append('\\');
+          }
+          value.append(c);
+        }
+        index++;
+      }
+      String raw = s.substring(from, index);
+      String val = value.toString();
+      builder.add(new CliToken() {
+        public String value() {
+          return val;
+        }
+        public String raw() {
+          return raw;
+        }
+        public boolean isText() {
+          return true;
+        }
+        public boolean isBlank() {
+          return false;
+        }
+      });
+      return index;
+    }
+
+    private static int blankToken(String s, int index, List<CliToken> builder) {
+      int from = index;
+      while (index < s.length() && isBlank(s.charAt(index))) {
+        index++;
+      }
+      builder.add(CliToken.createBlank(s.substring(from, index)));
+      return index;
+    }
+
+    private static boolean isBlank(char c) {
+      return c == ' ' || c == '\t';
+    }
+  }
+}
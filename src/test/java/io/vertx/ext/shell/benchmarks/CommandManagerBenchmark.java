@@ -0,0 +1,164 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.benchmarks;
+
+import io.vertx.core.Vertx;
+import io.vertx.ext.shell.cli.CliToken;
+import io.vertx.ext.shell.cli.Completion;
+import io.vertx.ext.shell.command.Command;
+import io.vertx.ext.shell.command.CommandBuilder;
+import io.vertx.ext.shell.command.CommandRegistry;
+import io.vertx.ext.shell.session.Session;
+import io.vertx.ext.shell.system.impl.InternalCommandManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process creation and command completion against a registry of {@link #size} commands.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandManagerBenchmark {
+
+  @Param({"10", "100", "1000"})
+  public int size;
+
+  private Vertx vertx;
+  private InternalCommandManager manager;
+  private List<CliToken> line;
+  private String prefix;
+
+  @Setup
+  public void setup() throws Exception {
+    vertx = Vertx.vertx();
+    List<Command> commands = new ArrayList<>();
+    for (int i = 0;i < size;i++) {
+      commands.add(CommandBuilder.command("command-" + i).processHandler(process -> process.end()).build(vertx));
+    }
+    CommandRegistry registry = CommandRegistry.create(vertx);
+    CompletableFuture<List<Command>> fut = new CompletableFuture<>();
+    registry.registerCommands(commands, ar -> {
+      if (ar.succeeded()) {
+        fut.complete(ar.result());
+      } else {
+        fut.completeExceptionally(ar.cause());
+      }
+    });
+    fut.get(10, TimeUnit.SECONDS);
+    manager = new InternalCommandManager(registry);
+    line = CliToken.tokenize("command-" + (size / 2) + " --option value");
+    prefix = "command-" + (size / 2);
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    CompletableFuture<Void> fut = new CompletableFuture<>();
+    vertx.close(ar -> fut.complete(null));
+    fut.get(10, TimeUnit.SECONDS);
+  }
+
+  @Benchmark
+  public Object createProcess() {
+    return manager.createProcess(line);
+  }
+
+  @Benchmark
+  public void completeCommandName(Blackhole bh) {
+    manager.complete(new BenchmarkCompletion(vertx, prefix, bh));
+  }
+
+  static class BenchmarkCompletion implements Completion {
+
+    private final Vertx vertx;
+    private final String line;
+    private final Blackhole bh;
+
+    BenchmarkCompletion(Vertx vertx, String line, Blackhole bh) {
+      this.vertx = vertx;
+      this.line = line;
+      this.bh = bh;
+    }
+
+    @Override
+    public Vertx vertx() {
+      return vertx;
+    }
+
+    @Override
+    public Session session() {
+      return null;
+    }
+
+    @Override
+    public String rawLine() {
+      return line;
+    }
+
+    @Override
+    public List<CliToken> lineTokens() {
+      return CliToken.tokenize(line);
+    }
+
+    @Override
+    public void complete(List<String> candidates) {
+      bh.consume(candidates);
+    }
+
+    @Override
+    public void complete(String value, boolean terminal) {
+      bh.consume(value);
+    }
+  }
+}
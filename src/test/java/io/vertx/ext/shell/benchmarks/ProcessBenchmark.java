@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.benchmarks;
+
+import io.vertx.core.Vertx;
+import io.vertx.ext.shell.command.Command;
+import io.vertx.ext.shell.command.CommandBuilder;
+import io.vertx.ext.shell.session.Session;
+import io.vertx.ext.shell.system.Process;
+import io.vertx.ext.shell.term.Pty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The run, write and end lifecycle of a process writing {@link #writes} lines to a pseudo terminal.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProcessBenchmark {
+
+  @Param({"1", "100"})
+  public int writes;
+
+  private Vertx vertx;
+  private Command command;
+  private Pty pty;
+
+  @Setup
+  public void setup() {
+    vertx = Vertx.vertx();
+    command = CommandBuilder.command("write").processHandler(process -> {
+      for (int i = 0;i < writes;i++) {
+        process.write("line\n");
+      }
+      process.end();
+    }).build(vertx);
+    pty = Pty.create();
+    pty.stdoutHandler(data -> {});
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    CompletableFuture<Void> fut = new CompletableFuture<>();
+    vertx.close(ar -> fut.complete(null));
+    fut.get(10, TimeUnit.SECONDS);
+  }
+
+  @Benchmark
+  public Integer lifecycle() throws Exception {
+    CompletableFuture<Integer> fut = new CompletableFuture<>();
+    Process process = command.createProcess().setSession(Session.create()).setTty(pty.slave());
+    process.terminatedHandler(fut::complete);
+    process.run();
+    return fut.get(10, TimeUnit.SECONDS);
+  }
+}
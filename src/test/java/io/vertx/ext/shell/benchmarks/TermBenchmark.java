@@ -0,0 +1,124 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.benchmarks;
+
+import io.termd.core.util.Helper;
+import io.vertx.core.Vertx;
+import io.vertx.ext.shell.support.TestTtyConnection;
+import io.vertx.ext.shell.term.impl.TermImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Terminal echo and readline with a fake connection discarding the output.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TermBenchmark {
+
+  static class BenchmarkConnection extends TestTtyConnection {
+
+    private final Consumer<int[]> stdout = data -> {};
+
+    BenchmarkConnection(Vertx vertx) {
+      super(vertx);
+    }
+
+    @Override
+    public Consumer<int[]> stdoutHandler() {
+      return stdout;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+      task.run();
+    }
+  }
+
+  private Vertx vertx;
+  private BenchmarkConnection conn;
+  private TermImpl term;
+  private int[] paste;
+  private int[] line;
+
+  @Setup
+  public void setup() {
+    vertx = Vertx.vertx();
+    conn = new BenchmarkConnection(vertx);
+    term = new TermImpl(vertx, conn);
+    StringBuilder json = new StringBuilder("{");
+    while (json.length() < 4096) {
+      json.append("\"key").append(json.length()).append("\":\"value\",");
+    }
+    paste = Helper.toCodePoints(json.append("}").toString());
+    line = Helper.toCodePoints("bus-send --verbose the-address hello\r");
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    CompletableFuture<Void> fut = new CompletableFuture<>();
+    vertx.close(ar -> fut.complete(null));
+    fut.get(10, TimeUnit.SECONDS);
+  }
+
+  @Benchmark
+  public void echo() {
+    term.echo(paste);
+  }
+
+  @Benchmark
+  public void readline(Blackhole bh) {
+    term.readline("% ", bh::consume);
+    conn.getStdinHandler().accept(line);
+  }
+}
@@ -91,6 +91,61 @@ public class CliTokenTest {
 //    assertTokens("'", CliToken.Kind.TEXT.create("\\"));
   }
 
+  @Test
+  public void testCodePoints() {
+    String emoji = new String(Character.toChars(0x1F600));
+    assertTokens(emoji, CliToken.createText(emoji));
+    assertTokens("\\" + emoji, CliToken.createText(emoji));
+    assertTokens("\"\\" + emoji + "\"", CliToken.createText("\\" + emoji));
+    assertTokens("'" + emoji + " '", CliToken.createText(emoji + " "));
+    assertTokens(emoji + " " + emoji, CliToken.createText(emoji), CliToken.createBlank(" "), CliToken.createText(emoji));
+  }
+
+  @Test
+  public void testRaw() {
+    List<CliToken> tokens = CliToken.tokenize("echo  \"a b\"\t'c'");
+    assertEquals(5, tokens.size());
+    assertEquals("echo", tokens.get(0).raw());
+    assertEquals("  ", tokens.get(1).raw());
+    assertEquals("\"a b\"", tokens.get(2).raw());
+    assertEquals("a b", tokens.get(2).value());
+    assertEquals("\t", tokens.get(3).raw());
+    assertEquals("'c'", tokens.get(4).raw());
+    assertEquals("c", tokens.get(4).value());
+  }
+
+  @Test
+  public void testPipe() {
+    assertTokens("|", CliToken.createText("|"));
+    assertTokens("a|b", CliToken.createText("a"), CliToken.createText("|"), CliToken.createText("b"));
+    assertTokens("a | b", CliToken.createText("a"), CliToken.createBlank(" "), CliToken.createText("|"),
+        CliToken.createBlank(" "), CliToken.createText("b"));
+    assertTokens("a||b", CliToken.createText("a"), CliToken.createText("|"), CliToken.createText("|"), CliToken.createText("b"));
+    assertTokens("\\|", CliToken.createText("|"));
+    assertTokens("'|'", CliToken.createText("|"));
+    List<CliToken> tokens = CliToken.tokenize("'a|b' \\| \"|\"");
+    assertEquals(5, tokens.size());
+    assertEquals("a|b", tokens.get(0).value());
+    assertEquals("\\|", tokens.get(2).raw());
+    assertEquals("|", tokens.get(2).value());
+    assertEquals("\"|\"", tokens.get(4).raw());
+    assertEquals("|", tokens.get(4).value());
+  }
+
+  @Test
+  public void testRedirect() {
+    assertTokens(">", CliToken.createText(">"));
+    assertTokens(">>", CliToken.createText(">>"));
+    assertTokens(">>>", CliToken.createText(">>"), CliToken.createText(">"));
+    assertTokens("a>b", CliToken.createText("a"), CliToken.createText(">"), CliToken.createText("b"));
+    assertTokens("a >> b", CliToken.createText("a"), CliToken.createBlank(" "), CliToken.createText(">>"),
+        CliToken.createBlank(" "), CliToken.createText("b"));
+    assertTokens("a|b>c", CliToken.createText("a"), CliToken.createText("|"), CliToken.createText("b"),
+        CliToken.createText(">"), CliToken.createText("c"));
+    assertTokens("'a>b'", CliToken.createText("a>b"));
+    assertTokens("\\>", CliToken.createText(">"));
+  }
+
   private void assertTokens(String s, CliToken... expected) {
     List<CliToken> tokens = CliToken.tokenize(s);
     assertEquals(Arrays.asList(expected), tokens);
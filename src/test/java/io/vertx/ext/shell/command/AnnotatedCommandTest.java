@@ -0,0 +1,210 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.command;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.cli.CLI;
+import io.vertx.core.cli.CommandLine;
+import io.vertx.core.cli.annotations.Argument;
+import io.vertx.core.cli.annotations.CLIConfigurator;
+import io.vertx.core.cli.annotations.Name;
+import io.vertx.core.cli.annotations.Option;
+import io.vertx.ext.shell.command.impl.AnnotatedCommandFactory;
+import io.vertx.ext.shell.session.Session;
+import io.vertx.ext.shell.system.Process;
+import io.vertx.ext.shell.term.Pty;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+public class AnnotatedCommandTest {
+
+  Vertx vertx = Vertx.vertx();
+
+  @After
+  public void after() {
+    vertx.close();
+  }
+
+  @Name("configured")
+  public static class Configured extends AnnotatedCommand {
+
+    static final AtomicInteger instances = new AtomicInteger();
+
+    String text;
+    long count;
+    boolean verbose;
+    List<String> headers;
+    Set<String> tags;
+    String[] files;
+
+    public Configured() {
+      instances.incrementAndGet();
+    }
+
+    @Option(longName = "text")
+    public void setText(String text) {
+      this.text = text;
+    }
+
+    @Option(shortName = "c")
+    public void setCount(long count) {
+      this.count = count;
+    }
+
+    @Option(longName = "verbose", flag = true)
+    public void setVerbose(boolean verbose) {
+      this.verbose = verbose;
+    }
+
+    @Option(longName = "header", acceptMultipleValues = true)
+    public void setHeaders(List<String> headers) {
+      this.headers = headers;
+    }
+
+    @Option(longName = "tag", acceptMultipleValues = true)
+    public void setTags(Set<String> tags) {
+      this.tags = tags;
+    }
+
+    @Argument(index = 0, argName = "files", required = false)
+    public void setFiles(String[] files) {
+      this.files = files;
+    }
+
+    @Override
+    public void process(CommandProcess process) {
+      process.end();
+    }
+  }
+
+  public static class Renamed extends Configured {
+
+    @Override
+    public String name() {
+      return "renamed";
+    }
+  }
+
+  @Name("blocking")
+  @Blocking
+  public static class BlockingCommand extends AnnotatedCommand {
+    @Override
+    public void process(CommandProcess process) {
+      process.write(Context.isOnEventLoopThread() ? "event-loop" : "blocking");
+      process.end();
+    }
+  }
+
+  @Test
+  public void testInject() {
+    CLI cli = CLIConfigurator.define(Configured.class);
+    CommandLine commandLine = cli.parse(Arrays.asList("--text", "hello", "-c", "3", "--verbose",
+      "--header", "a:b", "--header", "c:d", "--tag", "x", "--tag", "x", "--tag", "y", "foo", "bar"));
+    AnnotatedCommandFactory factory = AnnotatedCommandFactory.create(Configured.class);
+    Configured command = (Configured) factory.newInstance();
+    factory.inject(commandLine, command);
+    Configured expected = new Configured();
+    CLIConfigurator.inject(commandLine, expected);
+    assertEquals("hello", command.text);
+    assertEquals(3L, command.count);
+    assertTrue(command.verbose);
+    assertEquals(Arrays.asList("a:b", "c:d"), command.headers);
+    assertEquals(new LinkedHashSet<>(Arrays.asList("x", "y")), command.tags);
+    assertArrayEquals(new String[]{"foo", "bar"}, command.files);
+    assertEquals(expected.text, command.text);
+    assertEquals(expected.count, command.count);
+    assertEquals(expected.verbose, command.verbose);
+    assertEquals(expected.headers, command.headers);
+    assertEquals(expected.tags, command.tags);
+    assertArrayEquals(expected.files, command.files);
+  }
+
+  @Test
+  public void testInjectMissingValues() {
+    CLI cli = CLIConfigurator.define(Configured.class);
+    CommandLine commandLine = cli.parse(Arrays.asList());
+    AnnotatedCommandFactory factory = AnnotatedCommandFactory.create(Configured.class);
+    Configured command = (Configured) factory.newInstance();
+    factory.inject(commandLine, command);
+    assertNull(command.text);
+    assertEquals(0L, command.count);
+    assertFalse(command.verbose);
+  }
+
+  @Test
+  public void testResolveNameOnce() {
+    Command command = Command.create(vertx, Renamed.class);
+    int instances = Configured.instances.get();
+    for (int i = 0;i < 10;i++) {
+      assertEquals("renamed", command.name());
+      assertNotNull(command.cli());
+    }
+    assertEquals(instances, Configured.instances.get());
+  }
+
+  @Test
+  public void testBlocking() throws Exception {
+    Pty pty = Pty.create();
+    StringBuilder received = new StringBuilder();
+    pty.stdoutHandler(received::append);
+    CompletableFuture<Integer> terminated = new CompletableFuture<>();
+    Process process = Command.create(vertx, BlockingCommand.class).createProcess().setSession(Session.create()).setTty(pty.slave());
+    process.terminatedHandler(terminated::complete);
+    process.run();
+    assertEquals(0, (int) terminated.get(10, TimeUnit.SECONDS));
+    assertEquals("blocking", received.toString());
+  }
+
+  @Test
+  public void testNoInstanceAtRegistration() {
+    int instances = Configured.instances.get();
+    Command command = Command.create(vertx, Configured.class);
+    assertEquals("configured", command.name());
+    command.createProcess();
+    assertEquals(instances, Configured.instances.get());
+  }
+}
@@ -35,10 +35,14 @@ package io.vertx.ext.shell.command;
 import io.vertx.core.Context;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.shell.command.impl.BlockingExecutor;
+import io.vertx.ext.shell.command.impl.ProcessImpl;
 import io.vertx.ext.shell.session.Session;
 import io.vertx.ext.shell.system.*;
 import io.vertx.ext.shell.system.Process;
 import io.vertx.ext.shell.term.Pty;
+import io.vertx.ext.shell.term.Tty;
 import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
@@ -47,9 +51,17 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
@@ -522,6 +534,451 @@ public class CommandProcessTest {
     process.suspend();
   }
 
+  @Test
+  public void testEventLoopContextPolicy(TestContext context) throws Exception {
+    CommandBuilder builder = CommandBuilder.command("hello").contextPolicy(ContextPolicy.EVENT_LOOP);
+    Context ctx = vertx.getOrCreateContext();
+    Async async = context.async();
+    builder.processHandler(process -> {
+      Context current = Vertx.currentContext();
+      context.assertNotEquals(ctx, current);
+      context.assertTrue(current.isEventLoopContext());
+      async.complete();
+    });
+    Process process = createProcessInContext(ctx, builder.build(vertx));
+    process.run();
+  }
+
+  @Test
+  public void testWorkerContextPolicy(TestContext context) throws Exception {
+    CommandBuilder builder = CommandBuilder.command("hello").contextPolicy(ContextPolicy.WORKER);
+    Async async = context.async();
+    builder.processHandler(process -> {
+      context.assertTrue(Vertx.currentContext().isWorkerContext());
+      async.complete();
+    });
+    Process process = createProcessInContext(vertx.getOrCreateContext(), builder.build(vertx));
+    process.run();
+  }
+
+  @Test
+  public void testSessionContextPolicy(TestContext context) throws Exception {
+    CommandBuilder builder = CommandBuilder.command("hello").contextPolicy(ContextPolicy.SESSION);
+    Session session = Session.create();
+    Async async = context.async(2);
+    Set<Context> contexts = Collections.synchronizedSet(new HashSet<>());
+    builder.processHandler(process -> {
+      contexts.add(Vertx.currentContext());
+      process.end();
+      async.countDown();
+    });
+    Command command = builder.build(vertx);
+    command.createProcess().setSession(session).setTty(Pty.create().slave()).run();
+    command.createProcess().setSession(session).setTty(Pty.create().slave()).run();
+    async.awaitSuccess(10000);
+    context.assertEquals(1, contexts.size());
+  }
+
+  @Test
+  public void testTimeoutInterrupt(TestContext context) throws Exception {
+    CommandBuilder builder = CommandBuilder.command("hello").timeout(100);
+    Async interrupted = context.async();
+    builder.processHandler(process -> {
+      process.interruptHandler(v -> {
+        interrupted.complete();
+        process.end(0);
+      });
+    });
+    Async async = context.async();
+    Process process = builder.build(vertx).createProcess().setSession(Session.create()).setTty(Pty.create().slave());
+    process.terminatedHandler(exitCode -> {
+      context.assertEquals(ProcessImpl.TIMEOUT_EXIT_CODE, exitCode);
+      async.complete();
+    });
+    process.run();
+  }
+
+  @Test
+  public void testTimeoutTerminate(TestContext context) throws Exception {
+    CommandBuilder builder = CommandBuilder.command("hello").timeout(100);
+    Async ended = context.async();
+    builder.processHandler(process -> {
+      process.interruptHandler(v -> {
+        // Ignore
+      });
+      process.endHandler(v -> ended.complete());
+    });
+    Async async = context.async();
+    Process process = builder.build(vertx).createProcess().setSession(Session.create()).setTty(Pty.create().slave());
+    process.terminatedHandler(exitCode -> {
+      context.assertEquals(ProcessImpl.TIMEOUT_EXIT_CODE, exitCode);
+      async.complete();
+    });
+    process.run();
+  }
+
+  @Test
+  public void testSessionTimeout(TestContext context) throws Exception {
+    Session session = Session.create();
+    session.put(ProcessImpl.TIMEOUT_KEY, 100L);
+    Async async = context.async(2);
+    CommandBuilder builder = CommandBuilder.command("hello").processHandler(process -> {});
+    Process process = builder.build(vertx).createProcess().setSession(session).setTty(Pty.create().slave());
+    process.terminatedHandler(exitCode -> {
+      context.assertEquals(ProcessImpl.TIMEOUT_EXIT_CODE, exitCode);
+      async.countDown();
+    });
+    process.run();
+    // The command timeout overrides the session timeout
+    CommandBuilder noTimeout = CommandBuilder.command("hello").timeout(0).processHandler(p -> {
+      vertx.setTimer(500, id -> p.end(3));
+    });
+    Process process2 = noTimeout.build(vertx).createProcess().setSession(session).setTty(Pty.create().slave());
+    process2.terminatedHandler(exitCode -> {
+      context.assertEquals(3, exitCode);
+      async.countDown();
+    });
+    process2.run();
+  }
+
+  @Test
+  public void testCoalesceWrites(TestContext context) throws Exception {
+    CommandBuilder builder = CommandBuilder.command("hello");
+    builder.processHandler(process -> {
+      for (int i = 0;i < 1000;i++) {
+        process.write("line-" + i + "\n");
+      }
+      process.end();
+    });
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0;i < 1000;i++) {
+      expected.append("line-").append(i).append("\n");
+    }
+    Pty pty = Pty.create();
+    StringBuilder received = new StringBuilder();
+    AtomicInteger frames = new AtomicInteger();
+    pty.stdoutHandler(data -> {
+      frames.incrementAndGet();
+      received.append(data);
+    });
+    Async async = context.async();
+    Context ctx = vertx.getOrCreateContext();
+    CompletableFuture<Process> fut = new CompletableFuture<>();
+    ctx.runOnContext(v -> {
+      fut.complete(builder.build(vertx).createProcess().setSession(Session.create()).setTty(pty.slave()));
+    });
+    Process process = fut.get(2000, TimeUnit.MILLISECONDS);
+    process.terminatedHandler(exitCode -> {
+      context.assertEquals(expected.toString(), received.toString());
+      context.assertTrue(frames.get() < 10, "Was expecting less than 10 frames instead of " + frames.get());
+      context.assertEquals((long) frames.get(), ((ProcessImpl) process).outputFrames());
+      context.assertEquals((long) expected.length(), ((ProcessImpl) process).outputChars());
+      async.complete();
+    });
+    process.run();
+  }
+
+  @Test
+  public void testBufferIO(TestContext context) {
+    CommandBuilder builder = CommandBuilder.command("hello");
+    Async running = context.async();
+    builder.processHandler(process -> {
+      process.stdinBufferHandler(buf -> {
+        process.write("<");
+        process.write(buf);
+        process.write(">");
+        process.end();
+      });
+      running.complete();
+    });
+    Pty pty = Pty.create();
+    Buffer received = Buffer.buffer();
+    pty.stdoutBufferHandler(received::appendBuffer);
+    Async async = context.async();
+    Process process = builder.build(vertx).createProcess().setSession(Session.create()).setTty(pty.slave());
+    process.terminatedHandler(exitCode -> {
+      context.assertEquals(Buffer.buffer().appendString("<").appendBytes(new byte[]{(byte) 0x80, 0, (byte) 0xFF}).appendString(">"), received);
+      async.complete();
+    });
+    process.run();
+    running.awaitSuccess(10000);
+    pty.write(Buffer.buffer(new byte[]{(byte) 0x80, 0, (byte) 0xFF}));
+  }
+
+  @Test
+  public void testWriteQueueFull(TestContext context) throws Exception {
+    CommandBuilder builder = CommandBuilder.command("hello");
+    Async drained = context.async();
+    builder.processHandler(process -> {
+      process.setWriteQueueMaxSize(16);
+      context.assertFalse(process.writeQueueFull());
+      process.drainHandler(v -> {
+        context.assertFalse(process.writeQueueFull());
+        process.end();
+        drained.complete();
+      });
+      process.write("0123456789012345");
+      context.assertTrue(process.writeQueueFull());
+    });
+    Process process = createProcessInContext(vertx.getOrCreateContext(), builder.build(vertx));
+    process.run();
+  }
+
+  @Test
+  public void testSplitLargeWrite(TestContext context) throws Exception {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0;i < 20000;i++) {
+      sb.append((char) ('a' + i % 26));
+    }
+    String data = sb.toString();
+    CommandBuilder builder = CommandBuilder.command("hello");
+    builder.processHandler(process -> {
+      process.write(data);
+      process.end();
+    });
+    Pty pty = Pty.create();
+    List<String> chunks = Collections.synchronizedList(new ArrayList<>());
+    pty.stdoutHandler(chunks::add);
+    Async async = context.async();
+    Process process = builder.build(vertx).createProcess().setSession(Session.create()).setTty(pty.slave());
+    process.terminatedHandler(code -> {
+      context.assertEquals(3, chunks.size());
+      for (String chunk : chunks) {
+        context.assertTrue(chunk.length() <= 8 * 1024);
+      }
+      context.assertEquals(data, String.join("", chunks));
+      async.complete();
+    });
+    process.run();
+  }
+
+  @Test
+  public void testBackpressureInBackground(TestContext context) throws Exception {
+    AtomicInteger maxSize = new AtomicInteger();
+    AtomicBoolean full = new AtomicBoolean(true);
+    AtomicReference<Handler<Void>> ttyDrain = new AtomicReference<>();
+    // A tty that drains on demand
+    Tty tty = new Tty() {
+      @Override
+      public String type() {
+        return "vt100";
+      }
+      @Override
+      public int width() {
+        return 80;
+      }
+      @Override
+      public int height() {
+        return 24;
+      }
+      @Override
+      public Tty stdinHandler(Handler<String> handler) {
+        return this;
+      }
+      @Override
+      public Tty write(String data) {
+        return this;
+      }
+      @Override
+      public Tty resizehandler(Handler<Void> handler) {
+        return this;
+      }
+      @Override
+      public boolean writeQueueFull() {
+        return full.get();
+      }
+      @Override
+      public Tty drainHandler(Handler<Void> handler) {
+        ttyDrain.set(handler);
+        return this;
+      }
+      @Override
+      public Tty setWriteQueueMaxSize(int size) {
+        maxSize.set(size);
+        return this;
+      }
+    };
+    CommandBuilder builder = CommandBuilder.command("hello");
+    Async paused = context.async();
+    Async background = context.async();
+    Async drained = context.async();
+    builder.processHandler(process -> {
+      process.setWriteQueueMaxSize(256);
+      context.assertEquals(256, maxSize.get());
+      context.assertTrue(process.writeQueueFull());
+      process.drainHandler(v -> {
+        context.assertFalse(full.get());
+        context.assertFalse(process.writeQueueFull());
+        process.end();
+        drained.complete();
+      });
+      process.backgroundHandler(v -> {
+        // The tty flow control still applies in background
+        context.assertTrue(process.writeQueueFull());
+        background.complete();
+      });
+      paused.complete();
+    });
+    CompletableFuture<Process> fut = new CompletableFuture<>();
+    Command command = builder.build(vertx);
+    vertx.runOnContext(v -> fut.complete(command.createProcess().setSession(Session.create()).setTty(tty)));
+    Process process = fut.get(2000, TimeUnit.MILLISECONDS);
+    process.run();
+    paused.awaitSuccess(5000);
+    process.toBackground();
+    background.awaitSuccess(5000);
+    full.set(false);
+    ttyDrain.get().handle(null);
+  }
+
+  @Test
+  public void testConcurrentTransitionsAndWrites(TestContext context) throws Exception {
+    int numWriters = 4;
+    int numWrites = 20000;
+    int numCycles = 500;
+    List<String> events = Collections.synchronizedList(new ArrayList<>());
+    List<Thread> writers = new ArrayList<>();
+    AtomicInteger written = new AtomicInteger();
+    CountDownLatch running = new CountDownLatch(1);
+    CommandBuilder builder = CommandBuilder.command("hello");
+    builder.processHandler(process -> {
+      process.suspendHandler(v -> events.add("suspend"));
+      process.resumeHandler(v -> events.add("resume"));
+      process.backgroundHandler(v -> events.add("background"));
+      process.foregroundHandler(v -> events.add("foreground"));
+      for (int i = 0;i < numWriters;i++) {
+        Thread writer = new Thread(() -> {
+          for (int j = 0;j < numWrites;j++) {
+            try {
+              process.write("x");
+              written.incrementAndGet();
+            } catch (IllegalStateException ignore) {
+              // Stopped
+            }
+          }
+        });
+        writers.add(writer);
+        writer.start();
+      }
+      running.countDown();
+    });
+    Pty pty = Pty.create();
+    AtomicInteger received = new AtomicInteger();
+    pty.stdoutHandler(data -> received.addAndGet(data.length()));
+    Process process = createProcessInContext(vertx.getOrCreateContext(), builder.build(vertx));
+    process.setTty(pty.slave());
+    process.run();
+    context.assertTrue(running.await(10, TimeUnit.SECONDS));
+    AtomicInteger suspends = new AtomicInteger();
+    AtomicInteger resumes = new AtomicInteger();
+    AtomicInteger backgrounds = new AtomicInteger();
+    AtomicInteger foregrounds = new AtomicInteger();
+    Thread suspender = new Thread(() -> {
+      for (int i = 0;i < numCycles;i++) {
+        try {
+          process.suspend();
+          suspends.incrementAndGet();
+          process.resume();
+          resumes.incrementAndGet();
+        } catch (IllegalStateException ignore) {
+        }
+      }
+    });
+    Thread switcher = new Thread(() -> {
+      for (int i = 0;i < numCycles;i++) {
+        try {
+          process.toBackground();
+          backgrounds.incrementAndGet();
+          process.toForeground();
+          foregrounds.incrementAndGet();
+        } catch (IllegalStateException ignore) {
+        }
+      }
+    });
+    suspender.start();
+    switcher.start();
+    suspender.join(20000);
+    switcher.join(20000);
+    for (Thread writer : writers) {
+      writer.join(20000);
+    }
+    context.assertEquals(ExecStatus.RUNNING, process.status());
+    Async terminated = context.async();
+    process.terminatedHandler(exitCode -> {
+      context.assertEquals(-10, exitCode);
+      terminated.complete();
+    });
+    process.terminate();
+    terminated.awaitSuccess(10000);
+    long now = System.currentTimeMillis();
+    while (received.get() != written.get()) {
+      context.assertTrue(System.currentTimeMillis() - now < 10000, "Was expecting " + written.get() + " chars instead of " + received.get());
+      Thread.sleep(10);
+    }
+    List<String> snapshot;
+    synchronized (events) {
+      snapshot = new ArrayList<>(events);
+    }
+    int suspended = 0;
+    for (String event : snapshot) {
+      if (event.equals("suspend")) {
+        context.assertEquals(0, suspended, "Suspend handler called twice in a row");
+        suspended++;
+      } else if (event.equals("resume")) {
+        context.assertEquals(1, suspended, "Resume handler called before suspend handler");
+        suspended--;
+      }
+    }
+    context.assertEquals(suspends.get(), Collections.frequency(snapshot, "suspend"));
+    context.assertEquals(resumes.get(), Collections.frequency(snapshot, "resume"));
+    // A switch is a no-op when a concurrent resume already applied it, so it may not call the handler
+    int backgroundEvents = Collections.frequency(snapshot, "background");
+    int foregroundEvents = Collections.frequency(snapshot, "foreground");
+    context.assertTrue(backgroundEvents <= backgrounds.get(), "Was expecting at most " + backgrounds.get() + " background events instead of " + backgroundEvents);
+    context.assertTrue(foregroundEvents <= foregrounds.get(), "Was expecting at most " + foregrounds.get() + " foreground events instead of " + foregroundEvents);
+  }
+
+  @Test
+  public void testBlockingProcessHandler(TestContext context) throws Exception {
+    int numProcesses = Math.min(100, BlockingExecutor.MAX_THREADS);
+    CountDownLatch blocked = new CountDownLatch(numProcesses);
+    CountDownLatch release = new CountDownLatch(1);
+    CommandBuilder builder = CommandBuilder.command("hello");
+    builder.blockingProcessHandler(process -> {
+      context.assertFalse(Context.isOnEventLoopThread());
+      context.assertFalse(Context.isOnWorkerThread());
+      blocked.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        context.fail(e);
+      }
+      process.write("done");
+      process.end();
+    });
+    Command command = builder.build(vertx);
+    Async terminated = context.async(numProcesses);
+    for (int i = 0;i < numProcesses;i++) {
+      Pty pty = Pty.create();
+      StringBuilder received = new StringBuilder();
+      pty.stdoutHandler(received::append);
+      Process process = createProcessInContext(vertx.getOrCreateContext(), command);
+      process.setTty(pty.slave());
+      process.terminatedHandler(code -> {
+        context.assertEquals(0, code);
+        context.assertEquals("done", received.toString());
+        terminated.countDown();
+      });
+      process.run();
+    }
+    // More processes than worker threads are blocked at the same time and the worker pool is still available
+    context.assertTrue(blocked.await(10, TimeUnit.SECONDS));
+    Async worker = context.async();
+    vertx.executeBlocking(fut -> fut.complete(), context.asyncAssertSuccess(v -> worker.complete()));
+    worker.awaitSuccess(10000);
+    release.countDown();
+  }
+
 /*
   @Test
   public void testTerminatedDoesNotExecute(TestContext context) throws InterruptedException {
@@ -32,6 +32,7 @@
 
 package io.vertx.ext.shell.command;
 
+import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import io.vertx.ext.shell.command.CommandBuilder;
 import io.vertx.ext.shell.command.CommandRegistry;
@@ -139,6 +140,19 @@ public class CompletionTest {
     });
   }
 
+  @Test
+  public void testCommandAfterPipe(TestContext context) {
+    Async async = context.async();
+    mgr.complete(new TestCompletion(context, "bar | f") {
+      @Override
+      public void complete(String value, boolean terminal) {
+        context.assertTrue(terminal);
+        context.assertEquals("oo", value);
+        async.complete();
+      }
+    });
+  }
+
   @Test
   public void testNotFoundCommand(TestContext context) {
     Async async = context.async();
@@ -200,6 +214,102 @@ public class CompletionTest {
     });
   }
 
+  @Test
+  public void testCompleteAfterRegistration(TestContext context) {
+    Async async = context.async();
+    mgr.complete(new TestCompletion(context, "q") {
+      @Override
+      public void complete(List<String> candidates) {
+        context.assertEquals(Collections.emptyList(), candidates);
+        registry.registerCommand(CommandBuilder.command("qux").processHandler(proc -> {
+        }).build(rule.vertx()), context.asyncAssertSuccess(v -> {
+          mgr.complete(new TestCompletion(context, "q") {
+            @Override
+            public void complete(String value, boolean terminal) {
+              context.assertTrue(terminal);
+              context.assertEquals("ux", value);
+              async.complete();
+            }
+          });
+        }));
+      }
+    });
+  }
+
+  @Test
+  public void testCommandsInPrefixRange(TestContext context) {
+    Async async = context.async();
+    registerCommands(context, Arrays.asList("ab", "abd", "abc", "aa", "b"), v -> {
+      mgr.complete(new TestCompletion(context, "ab") {
+        @Override
+        public void complete(List<String> candidates) {
+          context.assertEquals(Arrays.asList("ab", "abc", "abd"), candidates);
+          async.complete();
+        }
+      });
+    });
+  }
+
+  @Test
+  public void testCommonPrefixInPrefixRange(TestContext context) {
+    Async async = context.async();
+    registerCommands(context, Arrays.asList("quux1", "quux2", "quuz"), v -> {
+      mgr.complete(new TestCompletion(context, "qu") {
+        @Override
+        public void complete(String value, boolean terminal) {
+          context.assertFalse(terminal);
+          context.assertEquals("u", value);
+          async.complete();
+        }
+      });
+    });
+  }
+
+  @Test
+  public void testCommonPrefixDoesNotSplitSurrogatePair(TestContext context) {
+    Async async = context.async();
+    registerCommands(context, Arrays.asList("x\uD83D\uDE00a", "x\uD83D\uDE01b"), v -> {
+      mgr.complete(new TestCompletion(context, "x") {
+        @Override
+        public void complete(List<String> candidates) {
+          context.assertEquals(Arrays.asList("x\uD83D\uDE00a", "x\uD83D\uDE01b"), candidates);
+          async.complete();
+        }
+      });
+    });
+  }
+
+  @Test
+  public void testCommandsWithNonVersionedResolver(TestContext context) {
+    Command foo = CommandBuilder.command("foo").processHandler(proc -> {
+    }).build(rule.vertx());
+    Command bax = CommandBuilder.command("bax").processHandler(proc -> {
+    }).build(rule.vertx());
+    CommandResolver resolver = () -> Arrays.asList(foo, bax);
+    InternalCommandManager mgr = new InternalCommandManager(resolver, registry);
+    context.assertEquals(foo, mgr.getCommand("foo"));
+    context.assertEquals(bax, mgr.getCommand("bax"));
+    context.assertNotNull(mgr.getCommand("bar"));
+    context.assertEquals(Arrays.asList("bar", "bax", "baz", "err", "foo"), mgr.commandNames().stream().sorted().collect(Collectors.toList()));
+    Async async = context.async();
+    mgr.complete(new TestCompletion(context, "ba") {
+      @Override
+      public void complete(List<String> candidates) {
+        context.assertEquals(Arrays.asList("bar", "bax", "baz"), candidates);
+        async.complete();
+      }
+    });
+  }
+
+  private void registerCommands(TestContext context, List<String> names, Handler<Void> done) {
+    if (names.isEmpty()) {
+      done.handle(null);
+    } else {
+      registry.registerCommand(CommandBuilder.command(names.get(0)).processHandler(proc -> {
+      }).build(rule.vertx()), context.asyncAssertSuccess(v -> registerCommands(context, names.subList(1, names.size()), done)));
+    }
+  }
+
   class TestCompletion implements Completion {
     final TestContext context;
     final String line;
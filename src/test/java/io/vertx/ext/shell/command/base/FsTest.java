@@ -32,8 +32,15 @@
 
 package io.vertx.ext.shell.command.base;
 
+import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.ext.shell.cli.CliToken;
+import io.vertx.ext.shell.command.Command;
 import io.vertx.ext.shell.command.CommandRegistry;
+import io.vertx.ext.shell.session.Session;
+import io.vertx.ext.shell.system.Process;
+import io.vertx.ext.shell.term.Pty;
+import io.vertx.ext.shell.term.Tty;
 import io.vertx.ext.unit.TestContext;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
 import org.junit.After;
@@ -44,11 +51,17 @@ import org.junit.runner.RunWith;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
@@ -125,14 +138,132 @@ public class FsTest {
     context.assertTrue(new File(file_E).createNewFile());
     context.assertTrue(new File(file_F).createNewFile());
     context.assertTrue(new File(file_G).createNewFile());
-    helper.ls(vertx, null, ".", context.asyncAssertSuccess(files -> context.assertEquals(new HashSet<>(Arrays.asList(dir_A, dir_C, file_B)), new HashSet<>(files.keySet()))));
-    helper.ls(vertx, null, "dir_C", context.asyncAssertSuccess(files -> context.assertEquals(new HashSet<>(Arrays.asList(dir_D, file_E)), new HashSet<>(files.keySet()))));
-    helper.ls(vertx, null, "./dir_C", context.asyncAssertSuccess(files -> context.assertEquals(new HashSet<>(Arrays.asList(dir_D, file_E)), new HashSet<>(files.keySet()))));
-    helper.ls(vertx, null, "./dir_C/..", context.asyncAssertSuccess(files -> context.assertEquals(new HashSet<>(Arrays.asList(dir_A, dir_C, file_B)), new HashSet<>(files.keySet()))));
-    helper.ls(vertx, root.getAbsolutePath(), ".", context.asyncAssertSuccess(files -> context.assertEquals(new HashSet<>(Arrays.asList(dir_A, dir_C, file_B)), new HashSet<>(files.keySet()))));
-    helper.ls(vertx, root.getAbsolutePath(), dir_C, context.asyncAssertSuccess(files -> context.assertEquals(new HashSet<>(Arrays.asList(dir_D, file_E)), new HashSet<>(files.keySet()))));
-    helper.ls(vertx, root.getAbsolutePath(), "dir_C/dir_D", context.asyncAssertSuccess(files -> context.assertEquals(new HashSet<>(Arrays.asList(file_F, file_G)), new HashSet<>(files.keySet()))));
-    helper.ls(vertx, root.getAbsolutePath(), "./dir_C/dir_D", context.asyncAssertSuccess(files -> context.assertEquals(new HashSet<>(Arrays.asList(file_F, file_G)), new HashSet<>(files.keySet()))));
+    context.assertEquals(new HashSet<>(Arrays.asList(dir_A, dir_C, file_B)), list(null, "."));
+    context.assertEquals(new HashSet<>(Arrays.asList(dir_D, file_E)), list(null, "dir_C"));
+    context.assertEquals(new HashSet<>(Arrays.asList(dir_D, file_E)), list(null, "./dir_C"));
+    context.assertEquals(new HashSet<>(Arrays.asList(dir_A, dir_C, file_B)), list(null, "./dir_C/.."));
+    context.assertEquals(new HashSet<>(Arrays.asList(dir_A, dir_C, file_B)), list(root.getAbsolutePath(), "."));
+    context.assertEquals(new HashSet<>(Arrays.asList(dir_D, file_E)), list(root.getAbsolutePath(), dir_C));
+    context.assertEquals(new HashSet<>(Arrays.asList(file_F, file_G)), list(root.getAbsolutePath(), "dir_C/dir_D"));
+    context.assertEquals(new HashSet<>(Arrays.asList(file_F, file_G)), list(root.getAbsolutePath(), "./dir_C/dir_D"));
+    try {
+      list(null, "file_B");
+      context.fail();
+    } catch (NoSuchFileException ignore) {
+    }
+  }
+
+  private Set<String> list(String currentPath, String pathArg) throws IOException {
+    Set<String> files = new HashSet<>();
+    helper.list(helper.resolve(currentPath, pathArg), (path, attrs) -> {
+      files.add(path.toString());
+      return true;
+    });
+    return files;
+  }
+
+  @Test
+  public void testLsCommand(TestContext context) throws Exception {
+    Files.write(new File(root, "a").toPath(), new byte[3]);
+    Files.write(new File(root, "b").toPath(), new byte[1]);
+    Files.write(new File(root, "c").toPath(), new byte[2]);
+    Files.write(new File(root, ".hidden").toPath(), new byte[0]);
+    context.assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), new HashSet<>(Arrays.asList(ls("").split("\n"))));
+    context.assertEquals("a\nb\nc\n", ls("--sort name"));
+    context.assertEquals("a\nc\nb\n", ls("--sort size"));
+    context.assertEquals("b\nc\n", ls("--sort size -r --limit 2"));
+    context.assertEquals("c\nb\n", ls("--sort name --reverse --limit 2"));
+    context.assertEquals(1, ls("--limit 1").split("\n").length);
+    context.assertEquals("", ls("--limit 0"));
+    context.assertTrue(ls("-l --sort name").matches("(- 3 .* a\n)(- 1 .* b\n)(- 2 .* c\n)"));
+    context.assertTrue(ls("--sort foo").startsWith("ls: invalid sort key foo"));
+    context.assertTrue(ls("does_not_exist").startsWith("ls: "));
+  }
+
+  @Test
+  public void testLsPages(TestContext context) throws Exception {
+    int count = FileSystemLs.PAGE_SIZE * 3 + 1;
+    for (int i = 0;i < count;i++) {
+      context.assertTrue(new File(root, "file_" + i).createNewFile());
+    }
+    context.assertEquals(count, ls("").split("\n").length);
+    context.assertEquals(10, ls("--sort name --limit 10").split("\n").length);
+  }
+
+  @Test
+  public void testLsBackpressure(TestContext context) throws Exception {
+    int count = FileSystemLs.PAGE_SIZE * 2;
+    for (int i = 0;i < count;i++) {
+      context.assertTrue(new File(root, "file_" + i).createNewFile());
+    }
+    AtomicBoolean full = new AtomicBoolean(true);
+    AtomicReference<Handler<Void>> drain = new AtomicReference<>();
+    StringBuffer out = new StringBuffer();
+    Tty tty = new Tty() {
+      @Override
+      public String type() {
+        return "vt100";
+      }
+      @Override
+      public int width() {
+        return 80;
+      }
+      @Override
+      public int height() {
+        return 24;
+      }
+      @Override
+      public Tty stdinHandler(Handler<String> handler) {
+        return this;
+      }
+      @Override
+      public Tty write(String data) {
+        out.append(data);
+        return this;
+      }
+      @Override
+      public Tty resizehandler(Handler<Void> handler) {
+        return this;
+      }
+      @Override
+      public boolean writeQueueFull() {
+        return full.get();
+      }
+      @Override
+      public Tty drainHandler(Handler<Void> handler) {
+        drain.set(handler);
+        return this;
+      }
+    };
+    CompletableFuture<Integer> result = new CompletableFuture<>();
+    Process process = Command.create(vertx, FileSystemLs.class)
+      .createProcess(CliToken.tokenize(""))
+      .setSession(Session.create())
+      .setTty(tty);
+    process.terminatedHandler(result::complete);
+    process.run();
+    // The listing waits for the drain without writing
+    Thread.sleep(200);
+    context.assertFalse(result.isDone());
+    context.assertEquals(0, out.length());
+    full.set(false);
+    drain.get().handle(null);
+    context.assertEquals(0, result.get(10, TimeUnit.SECONDS));
+    context.assertEquals(count, out.toString().split("\n").length);
+  }
+
+  private String ls(String args) throws Exception {
+    Pty pty = Pty.create();
+    StringBuilder out = new StringBuilder();
+    pty.stdoutHandler(out::append);
+    CompletableFuture<String> result = new CompletableFuture<>();
+    Process process = Command.create(vertx, FileSystemLs.class)
+      .createProcess(CliToken.tokenize(args))
+      .setSession(Session.create())
+      .setTty(pty.slave());
+    process.terminatedHandler(code -> result.complete(out.toString()));
+    process.run();
+    return result.get(10, TimeUnit.SECONDS);
   }
 
   @Test
@@ -180,4 +311,80 @@ public class FsTest {
       context.assertEquals(expected, result);
     }));
   }
+
+  @Test
+  public void testCompletionCache(TestContext context) throws Exception {
+    File foo1 = new File(root, "foo1");
+    File foo2 = new File(root, "foo2");
+    context.assertTrue(foo1.createNewFile());
+    context.assertTrue(foo2.createNewFile());
+    DirectoryCache cache = new DirectoryCache(60000, DirectoryCache.DEFAULT_MAX_DIRECTORIES, DirectoryCache.DEFAULT_MAX_ENTRIES);
+    Map<String, Boolean> expected = new HashMap<>();
+    expected.put("foo1", true);
+    expected.put("foo2", true);
+    context.assertEquals(expected, complete(cache, "foo"));
+    // Served from the cache without reading the directory
+    context.assertTrue(foo2.delete());
+    context.assertEquals(expected, complete(cache, "foo"));
+    context.assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void testCompletionFollowsLinks(TestContext context) throws Exception {
+    File dir = new File(root, "dir");
+    File file = new File(root, "file");
+    context.assertTrue(dir.mkdir());
+    context.assertTrue(file.createNewFile());
+    Files.createSymbolicLink(new File(root, "link-dir").toPath(), dir.toPath());
+    Files.createSymbolicLink(new File(root, "link-file").toPath(), file.toPath());
+    DirectoryCache cache = new DirectoryCache(0, DirectoryCache.DEFAULT_MAX_DIRECTORIES, DirectoryCache.DEFAULT_MAX_ENTRIES);
+    context.assertEquals(Collections.singletonMap("ir/", false), complete(cache, "link-d"));
+    context.assertEquals(Collections.singletonMap("ile", true), complete(cache, "link-f"));
+  }
+
+  @Test
+  public void testCompletionCacheRevalidation(TestContext context) throws Exception {
+    context.assertTrue(new File(root, "foo1").createNewFile());
+    DirectoryCache cache = new DirectoryCache(0, DirectoryCache.DEFAULT_MAX_DIRECTORIES, DirectoryCache.DEFAULT_MAX_ENTRIES);
+    context.assertEquals(Collections.singletonMap("1", true), complete(cache, "foo"));
+    context.assertTrue(new File(root, "foo2").createNewFile());
+    Map<String, Boolean> expected = new HashMap<>();
+    expected.put("foo1", true);
+    expected.put("foo2", true);
+    context.assertEquals(expected, complete(cache, "foo"));
+  }
+
+  @Test
+  public void testCompletionCacheEviction(TestContext context) throws Exception {
+    File dir1 = new File(root, "dir1");
+    File dir2 = new File(root, "dir2");
+    context.assertTrue(dir1.mkdir());
+    context.assertTrue(dir2.mkdir());
+    context.assertTrue(new File(dir1, "a").createNewFile());
+    context.assertTrue(new File(dir2, "b").createNewFile());
+    context.assertTrue(new File(dir2, "c").createNewFile());
+    DirectoryCache cache = new DirectoryCache(60000, 1, DirectoryCache.DEFAULT_MAX_ENTRIES);
+    complete(cache, "dir1/");
+    complete(cache, "dir2/");
+    context.assertEquals(1, cache.size());
+    cache = new DirectoryCache(60000, DirectoryCache.DEFAULT_MAX_DIRECTORIES, 2);
+    complete(cache, "dir1/");
+    context.assertEquals(1, cache.size());
+    complete(cache, "dir2/");
+    context.assertEquals(1, cache.size());
+    complete(cache, "");
+    context.assertEquals(1, cache.size());
+  }
+
+  private Map<String, Boolean> complete(DirectoryCache cache, String prefix) throws Exception {
+    CompletableFuture<Map<String, Boolean>> result = new CompletableFuture<>();
+    helper.complete(vertx, cache, null, prefix, ar -> {
+      if (ar.succeeded()) {
+        result.complete(ar.result());
+      } else {
+        result.completeExceptionally(ar.cause());
+      }
+    });
+    return result.get(10, TimeUnit.SECONDS);
+  }
 }
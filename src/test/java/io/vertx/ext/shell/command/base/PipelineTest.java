@@ -0,0 +1,434 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.command.base;
+
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.ext.shell.command.CommandBuilder;
+import io.vertx.ext.shell.command.CommandProcess;
+import io.vertx.ext.shell.command.CommandRegistry;
+import io.vertx.ext.shell.session.Session;
+import io.vertx.ext.shell.system.ExecStatus;
+import io.vertx.ext.shell.system.Process;
+import io.vertx.ext.shell.system.impl.InternalCommandManager;
+import io.vertx.ext.shell.system.impl.PipelineProcess;
+import io.vertx.ext.shell.term.Pty;
+import io.vertx.ext.shell.term.Tty;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+/**
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+@RunWith(VertxUnitRunner.class)
+public class PipelineTest {
+
+  private Vertx vertx;
+  private InternalCommandManager mgr;
+  private AtomicBoolean seqEnded;
+
+  @Before
+  public void before(TestContext context) {
+    vertx = Vertx.vertx();
+    seqEnded = new AtomicBoolean();
+    CommandRegistry registry = CommandRegistry.create(vertx);
+    // seq <count> prints the numbers from 1 to count or forever when count is negative
+    registry.registerCommand(CommandBuilder.command("seq").processHandler(process -> {
+      long count = Long.parseLong(process.args().get(0));
+      AtomicBoolean ended = new AtomicBoolean();
+      process.endHandler(v -> {
+        ended.set(true);
+        seqEnded.set(true);
+      });
+      seq(process, new AtomicLong(1), count, ended);
+    }).build(vertx), context.asyncAssertSuccess());
+    // lines prints each of its arguments on a line
+    registry.registerCommand(CommandBuilder.command("lines").processHandler(process -> {
+      process.args().forEach(arg -> process.write(arg + "\n"));
+      process.end();
+    }).build(vertx), context.asyncAssertSuccess());
+    mgr = new InternalCommandManager(vertx, Arrays.asList(new BaseCommandPack(vertx), registry));
+  }
+
+  private void seq(CommandProcess process, AtomicLong next, long count, AtomicBoolean ended) {
+    while (!ended.get()) {
+      if (count >= 0 && next.get() > count) {
+        process.end();
+        return;
+      }
+      if (process.writeQueueFull()) {
+        process.drainHandler(v -> seq(process, next, count, ended));
+        return;
+      }
+      process.write(next.getAndIncrement() + "\n");
+    }
+  }
+
+  @After
+  public void after(TestContext context) {
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  private void exec(TestContext context, String line, BiConsumer<String, Integer> check) {
+    exec(context, Session.create(), line, check);
+  }
+
+  private void exec(TestContext context, Session session, String line, BiConsumer<String, Integer> check) {
+    Async async = context.async();
+    Pty pty = Pty.create();
+    StringBuffer out = new StringBuffer();
+    pty.stdoutHandler(out::append);
+    Process process = mgr.createProcess(line);
+    process.setSession(session).setTty(pty.slave());
+    process.terminatedHandler(code -> {
+      context.assertEquals(ExecStatus.TERMINATED, process.status());
+      context.assertEquals(code, process.exitCode());
+      check.accept(out.toString(), code);
+      async.complete();
+    });
+    process.run();
+  }
+
+  @Test
+  public void testCreatePipeline(TestContext context) {
+    context.assertTrue(mgr.createProcess("seq 3 | grep 1 | head") instanceof PipelineProcess);
+    context.assertFalse(mgr.createProcess("echo '|'") instanceof PipelineProcess);
+    try {
+      mgr.createProcess("seq 3 | | head");
+      context.fail();
+    } catch (Exception ignore) {
+    }
+    try {
+      mgr.createProcess("seq 3 |");
+      context.fail();
+    } catch (Exception ignore) {
+    }
+  }
+
+  @Test
+  public void testGrep(TestContext context) {
+    exec(context, "seq 20 | grep 1", (out, code) -> {
+      context.assertEquals("1\n10\n11\n12\n13\n14\n15\n16\n17\n18\n19\n", out);
+      context.assertEquals(0, code);
+    });
+  }
+
+  @Test
+  public void testGrepInvert(TestContext context) {
+    exec(context, "seq 12 | grep -v '[0-8]'", (out, code) -> {
+      context.assertEquals("9\n", out);
+      context.assertEquals(0, code);
+    });
+  }
+
+  @Test
+  public void testGrepNoMatch(TestContext context) {
+    exec(context, "seq 5 | grep 6", (out, code) -> {
+      context.assertEquals("", out);
+      context.assertEquals(1, code);
+    });
+  }
+
+  @Test
+  public void testHeadTerminatesUpstream(TestContext context) {
+    exec(context, "seq -1 | head -n 3", (out, code) -> {
+      context.assertEquals("1\n2\n3\n", out);
+      context.assertEquals(0, code);
+      context.assertTrue(seqEnded.get());
+    });
+  }
+
+  @Test
+  public void testHeadCountArgument(TestContext context) {
+    exec(context, "seq -1 | grep 1 | head 3", (out, code) -> {
+      context.assertEquals("1\n10\n11\n", out);
+      context.assertEquals(0, code);
+      context.assertTrue(seqEnded.get());
+    });
+    exec(context, "seq 30 | head 20", (out, code) -> {
+      context.assertEquals(20, out.split("\n").length);
+    });
+  }
+
+  @Test
+  public void testTail(TestContext context) {
+    exec(context, "seq 100000 | tail -n 2", (out, code) -> {
+      context.assertEquals("99999\n100000\n", out);
+    });
+  }
+
+  @Test
+  public void testWordCount(TestContext context) {
+    exec(context, "seq 100000 | wc -l", (out, code) -> {
+      context.assertEquals("100000\n", out);
+    });
+    exec(context, "echo a b  c | wc", (out, code) -> {
+      context.assertEquals("1 3 6\n", out);
+    });
+  }
+
+  @Test
+  public void testUniqCount(TestContext context) {
+    exec(context, "lines a a b a | uniq -c", (out, code) -> {
+      context.assertEquals("      2 a\n      1 b\n      1 a\n", out);
+    });
+    exec(context, "lines a a b b b | uniq", (out, code) -> {
+      context.assertEquals("a\nb\n", out);
+    });
+  }
+
+  @Test
+  public void testChain(TestContext context) {
+    exec(context, "seq 1000 | grep 7 | head -n 5 | tail -n 2", (out, code) -> {
+      context.assertEquals("37\n47\n", out);
+      context.assertEquals(0, code);
+    });
+  }
+
+  @Test
+  public void testTerminalBackpressure(TestContext context) {
+    Async async = context.async();
+    AtomicBoolean full = new AtomicBoolean(true);
+    AtomicReference<Handler<Void>> drainHandler = new AtomicReference<>();
+    StringBuffer out = new StringBuffer();
+    Tty tty = new Tty() {
+      @Override
+      public String type() {
+        return "vt100";
+      }
+      @Override
+      public int width() {
+        return 80;
+      }
+      @Override
+      public int height() {
+        return 24;
+      }
+      @Override
+      public Tty stdinHandler(Handler<String> handler) {
+        return this;
+      }
+      @Override
+      public Tty write(String data) {
+        out.append(data);
+        return this;
+      }
+      @Override
+      public Tty resizehandler(Handler<Void> handler) {
+        return this;
+      }
+      @Override
+      public boolean writeQueueFull() {
+        return full.get();
+      }
+      @Override
+      public Tty drainHandler(Handler<Void> handler) {
+        drainHandler.set(handler);
+        return this;
+      }
+    };
+    Process process = mgr.createProcess("seq 20 | grep 1");
+    process.setSession(Session.create()).setTty(tty);
+    process.terminatedHandler(code -> {
+      context.assertEquals("1\n10\n11\n12\n13\n14\n15\n16\n17\n18\n19\n", out.toString());
+      async.complete();
+    });
+    process.run();
+    vertx.setTimer(100, id -> {
+      // Nothing is delivered to the last process while the terminal is full
+      context.assertEquals("", out.toString());
+      full.set(false);
+      drainHandler.get().handle(null);
+    });
+  }
+
+  @Test
+  public void testRedirect(TestContext context) throws Exception {
+    File dir = Files.createTempDirectory("vertx-shell").toFile();
+    Session session = Session.create().put("cwd", dir.getAbsolutePath());
+    Async async = context.async();
+    exec(context, session, "seq 100000 > out.txt", (out, code) -> {
+      context.assertEquals("", out);
+      context.assertEquals(0, code);
+      try {
+        byte[] content = Files.readAllBytes(new File(dir, "out.txt").toPath());
+        context.assertEquals(100000, new String(content, StandardCharsets.UTF_8).split("\n").length);
+      } catch (Exception e) {
+        context.fail(e);
+      }
+      exec(context, session, "seq 3 | grep 2 >out.txt", (out2, code2) -> {
+        exec(context, session, "lines a b >> out.txt", (out3, code3) -> {
+          try {
+            byte[] content = Files.readAllBytes(new File(dir, "out.txt").toPath());
+            context.assertEquals("2\na\nb\n", new String(content, StandardCharsets.UTF_8));
+          } catch (Exception e) {
+            context.fail(e);
+          }
+          async.complete();
+        });
+      });
+    });
+  }
+
+  @Test
+  public void testRedirectInBackground(TestContext context) throws Exception {
+    File dir = Files.createTempDirectory("vertx-shell").toFile();
+    Session session = Session.create().put("cwd", dir.getAbsolutePath());
+    Async async = context.async();
+    Pty pty = Pty.create();
+    Process process = mgr.createProcess("seq 100000 > out.txt");
+    process.setSession(session).setTty(pty.slave());
+    process.terminatedHandler(code -> {
+      context.assertEquals(0, code);
+      try {
+        byte[] content = Files.readAllBytes(new File(dir, "out.txt").toPath());
+        context.assertEquals(100000, new String(content, StandardCharsets.UTF_8).split("\n").length);
+      } catch (Exception e) {
+        context.fail(e);
+      }
+      async.complete();
+    });
+    process.run(false);
+  }
+
+  @Test
+  public void testTerminateRedirectWhileOpening(TestContext context) throws Exception {
+    File dir = Files.createTempDirectory("vertx-shell").toFile();
+    Session session = Session.create().put("cwd", dir.getAbsolutePath());
+    Async async = context.async(2);
+    Pty pty = Pty.create();
+    Process process = mgr.createProcess("seq -1 > out.txt");
+    process.setSession(session).setTty(pty.slave());
+    process.terminatedHandler(code -> {
+      context.assertEquals(ExecStatus.TERMINATED, process.status());
+      context.assertFalse(seqEnded.get());
+      async.countDown();
+    });
+    vertx.runOnContext(v -> {
+      // The file is opened after this event loop turn
+      process.run();
+      process.interrupt();
+      process.terminate(v2 -> async.countDown());
+    });
+  }
+
+  @Test
+  public void testRedirectFailure(TestContext context) throws Exception {
+    File dir = Files.createTempDirectory("vertx-shell").toFile();
+    Session session = Session.create().put("cwd", dir.getAbsolutePath());
+    exec(context, session, "seq 3 > missing/out.txt", (out, code) -> {
+      context.assertTrue(out.startsWith("missing/out.txt: "));
+      context.assertEquals(1, code);
+    });
+    try {
+      mgr.createProcess("seq 3 >");
+      context.fail();
+    } catch (Exception ignore) {
+    }
+    try {
+      mgr.createProcess("seq 3 > > out.txt");
+      context.fail();
+    } catch (Exception ignore) {
+    }
+  }
+
+  @Test
+  public void testSource(TestContext context) throws Exception {
+    File dir = Files.createTempDirectory("vertx-shell").toFile();
+    Files.write(new File(dir, "script").toPath(), "lines a b\n# comment\n\nseq 3 | grep 2 > out.txt\r\nlines c\n".getBytes(StandardCharsets.UTF_8));
+    Session session = Session.create().put("cwd", dir.getAbsolutePath());
+    exec(context, session, "source script", (out, code) -> {
+      context.assertEquals("a\nb\nc\n", out);
+      context.assertEquals(0, code);
+      try {
+        context.assertEquals("2\n", new String(Files.readAllBytes(new File(dir, "out.txt").toPath()), StandardCharsets.UTF_8));
+      } catch (Exception e) {
+        context.fail(e);
+      }
+    });
+  }
+
+  @Test
+  public void testSourceNestingDepth(TestContext context) throws Exception {
+    File dir = Files.createTempDirectory("vertx-shell").toFile();
+    Files.write(new File(dir, "script").toPath(), "lines a\nsource script\n".getBytes(StandardCharsets.UTF_8));
+    Session session = Session.create().put("cwd", dir.getAbsolutePath());
+    exec(context, session, "source script", (out, code) -> {
+      StringBuilder expected = new StringBuilder();
+      for (int i = 0;i < InternalCommandManager.MAX_SOURCE_DEPTH;i++) {
+        expected.append("a\n");
+      }
+      context.assertTrue(out.startsWith(expected.toString()));
+      context.assertTrue(out.endsWith("source: script: maximum nesting level exceeded\n"));
+      context.assertEquals(1, code);
+    });
+  }
+
+  @Test
+  public void testScriptStopsOnError(TestContext context) {
+    Async async = context.async();
+    Pty pty = Pty.create();
+    StringBuffer out = new StringBuffer();
+    pty.stdoutHandler(out::append);
+    Process process = mgr.createScript("lines a\nseq 2 | grep 3\nlines b\n");
+    process.setSession(Session.create()).setTty(pty.slave());
+    process.terminatedHandler(code -> {
+      context.assertEquals("a\n", out.toString());
+      context.assertEquals(1, code);
+      async.complete();
+    });
+    process.run();
+  }
+
+  @Test
+  public void testSourceMissingFile(TestContext context) {
+    exec(context, "source does-not-exist", (out, code) -> {
+      context.assertTrue(out.startsWith("source: does-not-exist: "));
+      context.assertEquals(1, code);
+    });
+  }
+}
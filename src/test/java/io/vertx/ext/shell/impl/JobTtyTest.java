@@ -0,0 +1,180 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.impl;
+
+import io.vertx.ext.shell.term.Pty;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+public class JobTtyTest {
+
+  @Test
+  public void testForeground() {
+    StringBuilder out = new StringBuilder();
+    Pty pty = Pty.create();
+    pty.stdoutHandler(out::append);
+    JobTty tty = new JobTty(pty.slave(), 16, null);
+    tty.write("abc");
+    assertEquals("abc", out.toString());
+    assertEquals("", tty.retained());
+  }
+
+  @Test
+  public void testBackground() {
+    StringBuilder out = new StringBuilder();
+    Pty pty = Pty.create();
+    pty.stdoutHandler(out::append);
+    JobTty tty = new JobTty(pty.slave(), 16, null);
+    tty.toBackground();
+    tty.write("abc");
+    tty.write("def");
+    assertEquals("", out.toString());
+    assertEquals("abcdef", tty.retained());
+    tty.toForeground();
+    assertEquals("abcdef", out.toString());
+    assertEquals("", tty.retained());
+    tty.write("ghi");
+    assertEquals("abcdefghi", out.toString());
+  }
+
+  @Test
+  public void testBackgroundWithoutBuffer() {
+    StringBuilder out = new StringBuilder();
+    Pty pty = Pty.create();
+    pty.stdoutHandler(out::append);
+    JobTty tty = new JobTty(pty.slave(), 0, null);
+    tty.toBackground();
+    tty.write("abc");
+    assertEquals("abc", out.toString());
+    assertEquals("", tty.retained());
+  }
+
+  @Test
+  public void testRetainMostRecentOutput() {
+    Pty pty = Pty.create();
+    JobTty tty = new JobTty(pty.slave(), 8, null);
+    tty.toBackground();
+    tty.write("0123456");
+    tty.write("789");
+    assertEquals("23456789", tty.retained());
+    tty.write("abcdefghijkl");
+    assertEquals("efghijkl", tty.retained());
+  }
+
+  @Test
+  public void testSkipPartiallyOverwrittenChar() {
+    Pty pty = Pty.create();
+    JobTty tty = new JobTty(pty.slave(), 4, null);
+    tty.toBackground();
+    tty.write("ééé");
+    assertEquals("éé", tty.retained());
+    tty.write("a");
+    assertEquals("éa", tty.retained());
+  }
+
+  @Test
+  public void testDetach() {
+    StringBuilder out = new StringBuilder();
+    Pty pty = Pty.create();
+    pty.stdoutHandler(out::append);
+    JobTty tty = new JobTty(pty.slave(), 16, null);
+    tty.detach();
+    tty.write("abc");
+    assertEquals("", out.toString());
+    StringBuilder out2 = new StringBuilder();
+    Pty pty2 = Pty.create();
+    pty2.stdoutHandler(out2::append);
+    tty.attach(pty2.slave());
+    assertEquals("abc", out2.toString());
+    assertEquals("", out.toString());
+  }
+
+  @Test
+  public void testTerminateInBackground() {
+    StringBuilder out = new StringBuilder();
+    Pty pty = Pty.create();
+    pty.stdoutHandler(out::append);
+    JobTty tty = new JobTty(pty.slave(), 16, null);
+    tty.toBackground();
+    tty.write("abc");
+    assertEquals("", out.toString());
+    assertTrue(tty.terminate());
+    assertEquals("abc", out.toString());
+    assertEquals(0, tty.capacity());
+  }
+
+  @Test
+  public void testTerminateDetached() {
+    Pty pty = Pty.create();
+    JobTty tty = new JobTty(pty.slave(), 16, null);
+    tty.toBackground();
+    tty.detach();
+    tty.write("abc");
+    assertFalse(tty.terminate());
+    StringBuilder out = new StringBuilder();
+    Pty pty2 = Pty.create();
+    pty2.stdoutHandler(out::append);
+    tty.attach(pty2.slave());
+    assertEquals("abc", out.toString());
+    assertEquals(0, tty.capacity());
+  }
+
+  @Test
+  public void testQuota() {
+    OutputBufferQuota server = new OutputBufferQuota(null, 24);
+    OutputBufferQuota session1 = new OutputBufferQuota(server, 16);
+    OutputBufferQuota session2 = new OutputBufferQuota(server, 16);
+    JobTty tty1 = new JobTty(Pty.create().slave(), 8, session1);
+    JobTty tty2 = new JobTty(Pty.create().slave(), 8, session1);
+    JobTty tty3 = new JobTty(Pty.create().slave(), 8, session1);
+    assertEquals(8, tty1.capacity());
+    assertEquals(8, tty2.capacity());
+    assertEquals(0, tty3.capacity());
+    JobTty tty4 = new JobTty(Pty.create().slave(), 8, session2);
+    JobTty tty5 = new JobTty(Pty.create().slave(), 8, session2);
+    assertEquals(8, tty4.capacity());
+    assertEquals(0, tty5.capacity());
+    assertEquals(24, server.used());
+    assertEquals(8, session2.used());
+    tty1.release();
+    tty1.release();
+    assertEquals(8, session1.used());
+    assertEquals(16, server.used());
+    JobTty tty6 = new JobTty(Pty.create().slave(), 8, session2);
+    assertEquals(8, tty6.capacity());
+  }
+}
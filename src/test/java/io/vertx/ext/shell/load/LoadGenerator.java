@@ -0,0 +1,221 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.load;
+
+import com.jcraft.jsch.JSch;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.JksOptions;
+import io.vertx.core.net.NetClient;
+import io.vertx.ext.shell.ShellService;
+import io.vertx.ext.shell.ShellServiceOptions;
+import io.vertx.ext.shell.term.HttpTermOptions;
+import io.vertx.ext.shell.term.SSHTermOptions;
+import io.vertx.ext.shell.term.TelnetTermOptions;
+
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End to end load generator: starts a shell service on localhost with the telnet, SSH and HTTP term servers
+ * and drives concurrent scripted sessions over each protocol, then reports the connect latency, the
+ * command latency percentiles, the throughput and the heap and GC activity of the JVM.<p/>
+ *
+ * Run it with:
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.mainClass=io.vertx.ext.shell.load.LoadGenerator -Dexec.args="--sessions=200 --duration=60"
+ * </pre>
+ *
+ * Options, given as {@code --name=value}:
+ *
+ * <ul>
+ *   <li>{@code sessions}: the number of sessions per protocol, defaults to {@code 100}</li>
+ *   <li>{@code protocols}: the protocols to drive, defaults to {@code telnet,ssh,sockjs}</li>
+ *   <li>{@code duration}: the run duration in seconds, defaults to {@code 30}</li>
+ *   <li>{@code mix}: the weighted command mix, defaults to {@code echo:60,ls:20,bus:15,sleep:5}</li>
+ *   <li>{@code instances}: the number of telnet and HTTP server instances, defaults to {@code 1}</li>
+ *   <li>{@code distributions}: print the full percentile distributions, defaults to {@code false}</li>
+ * </ul>
+ *
+ * The clients and the server share the JVM, so the heap and GC figures account for both.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+public class LoadGenerator {
+
+  private static final String HOST = "localhost";
+  private static final int TELNET_PORT = 5000;
+  private static final int SSH_PORT = 5001;
+  private static final int HTTP_PORT = 8080;
+  private static final String USERNAME = "paulo";
+  private static final String PASSWORD = "secret";
+
+  public static void main(String[] args) throws Exception {
+    Map<String, String> options = new HashMap<>();
+    for (String arg : args) {
+      if (!arg.startsWith("--")) {
+        throw new IllegalArgumentException("Invalid argument " + arg);
+      }
+      int idx = arg.indexOf('=');
+      if (idx == -1) {
+        options.put(arg.substring(2), "true");
+      } else {
+        options.put(arg.substring(2, idx), arg.substring(idx + 1));
+      }
+    }
+    int sessions = Integer.parseInt(options.getOrDefault("sessions", "100"));
+    String[] protocols = options.getOrDefault("protocols", "telnet,ssh,sockjs").split(",");
+    long duration = Long.parseLong(options.getOrDefault("duration", "30"));
+    LoadMix mix = new LoadMix(options.getOrDefault("mix", "echo:60,ls:20,bus:15,sleep:5"));
+    int instances = Integer.parseInt(options.getOrDefault("instances", "1"));
+    boolean distributions = Boolean.parseBoolean(options.getOrDefault("distributions", "false"));
+    new LoadGenerator().run(sessions, protocols, duration, mix, instances, distributions, System.out);
+  }
+
+  private volatile boolean running = true;
+
+  private void run(int sessions, String[] protocols, long duration, LoadMix mix, int instances,
+                   boolean distributions, PrintStream out) throws Exception {
+
+    Vertx vertx = Vertx.vertx();
+    vertx.eventBus().consumer(LoadMix.BUS_ADDRESS, msg -> msg.reply(msg.body()));
+
+    JsonObject authOptions = new JsonObject()
+      .put("provider", "shiro")
+      .put("type", "PROPERTIES")
+      .put("config", new JsonObject().put("properties_path", "classpath:test-auth.properties"));
+    ShellService service = ShellService.create(vertx, new ShellServiceOptions().
+      setWelcomeMessage("").
+      setTelnetOptions(new TelnetTermOptions().setHost(HOST).setPort(TELNET_PORT).setInstances(instances)).
+      setSSHOptions(new SSHTermOptions().setHost(HOST).setPort(SSH_PORT).
+        setKeyPairOptions(new JksOptions().setPath("src/test/resources/server-keystore.jks").setPassword("wibble")).
+        setAuthOptions(authOptions)).
+      setHttpOptions(new HttpTermOptions().setHost(HOST).setPort(HTTP_PORT).setInstances(instances).
+        setAuthOptions(authOptions))
+    );
+    CompletableFuture<Void> started = new CompletableFuture<>();
+    service.start(ar -> {
+      if (ar.succeeded()) {
+        started.complete(null);
+      } else {
+        started.completeExceptionally(ar.cause());
+      }
+    });
+    started.get(30, TimeUnit.SECONDS);
+
+    NetClient netClient = vertx.createNetClient();
+    HttpClient httpClient = vertx.createHttpClient(new HttpClientOptions().setMaxPoolSize(sessions));
+    JSch jsch = new JSch();
+    ExecutorService sshExecutor = Executors.newCachedThreadPool();
+
+    List<LoadStats> stats = new ArrayList<>();
+    List<LoadSession> all = new ArrayList<>();
+    CountDownLatch done = new CountDownLatch(sessions * protocols.length);
+    for (String protocol : protocols) {
+      LoadStats protocolStats = new LoadStats(protocol, mix);
+      stats.add(protocolStats);
+      for (int i = 0;i < sessions;i++) {
+        LoadSession session;
+        switch (protocol) {
+          case "telnet":
+            session = new TelnetLoadSession(protocolStats, () -> running, done, netClient, HOST, TELNET_PORT);
+            break;
+          case "ssh":
+            session = new SSHLoadSession(protocolStats, () -> running, done, jsch, sshExecutor, HOST, SSH_PORT, USERNAME, PASSWORD);
+            break;
+          case "sockjs":
+            session = new SockJSLoadSession(protocolStats, () -> running, done, httpClient, HOST, HTTP_PORT, USERNAME, PASSWORD);
+            break;
+          default:
+            throw new IllegalArgumentException("Unknown protocol " + protocol + ", expected one of telnet, ssh, sockjs");
+        }
+        all.add(session);
+      }
+    }
+
+    MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    long[] gcCounts = new long[collectors.size()];
+    long[] gcTimes = new long[collectors.size()];
+    for (int i = 0;i < collectors.size();i++) {
+      gcCounts[i] = collectors.get(i).getCollectionCount();
+      gcTimes[i] = collectors.get(i).getCollectionTime();
+    }
+    long heapBefore = memory.getHeapMemoryUsage().getUsed();
+    AtomicLong heapPeak = new AtomicLong(heapBefore);
+    long sampler = vertx.setPeriodic(100, id -> heapPeak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max));
+
+    out.format("Starting %d sessions per protocol %s for %ds%n", sessions, String.join(",", protocols), duration);
+    long start = System.nanoTime();
+    all.forEach(LoadSession::start);
+    Thread.sleep(TimeUnit.SECONDS.toMillis(duration));
+    running = false;
+    long elapsed = System.nanoTime() - start;
+    if (!done.await(30, TimeUnit.SECONDS)) {
+      out.format("%d sessions did not terminate%n", done.getCount());
+    }
+    vertx.cancelTimer(sampler);
+    long heapAfter = memory.getHeapMemoryUsage().getUsed();
+
+    out.format("%nElapsed %.1fs%n", elapsed / 1_000_000_000D);
+    for (LoadStats protocolStats : stats) {
+      protocolStats.report(out, elapsed, distributions);
+    }
+    out.format("heap: %d MiB before, %d MiB peak, %d MiB after%n", heapBefore >> 20, heapPeak.get() >> 20, heapAfter >> 20);
+    for (int i = 0;i < collectors.size();i++) {
+      GarbageCollectorMXBean collector = collectors.get(i);
+      out.format("gc %s: %d collections, %dms%n", collector.getName(),
+        collector.getCollectionCount() - gcCounts[i], collector.getCollectionTime() - gcTimes[i]);
+    }
+
+    sshExecutor.shutdownNow();
+    CountDownLatch closed = new CountDownLatch(1);
+    vertx.close(ar -> closed.countDown());
+    closed.await(30, TimeUnit.SECONDS);
+  }
+}
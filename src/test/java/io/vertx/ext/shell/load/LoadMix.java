@@ -0,0 +1,122 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.load;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A weighted mix of command lines, parsed from a spec like {@code echo:60,ls:20,bus:15,sleep:5}.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+class LoadMix {
+
+  static final String BUS_ADDRESS = "load.echo";
+
+  private final String[] names;
+  private final String[] lines;
+  private final int[] cumulative;
+  private final int total;
+
+  LoadMix(String spec) {
+    List<String> names = new ArrayList<>();
+    List<Integer> weights = new ArrayList<>();
+    for (String entry : spec.split(",")) {
+      int idx = entry.indexOf(':');
+      String name = (idx == -1 ? entry : entry.substring(0, idx)).trim();
+      int weight = idx == -1 ? 1 : Integer.parseInt(entry.substring(idx + 1).trim());
+      if (weight < 0) {
+        throw new IllegalArgumentException("Invalid weight for " + name + ": " + weight);
+      }
+      if (weight > 0) {
+        names.add(name);
+        weights.add(weight);
+      }
+    }
+    if (names.isEmpty()) {
+      throw new IllegalArgumentException("Empty command mix: " + spec);
+    }
+    this.names = names.toArray(new String[0]);
+    this.lines = new String[this.names.length];
+    this.cumulative = new int[this.names.length];
+    int sum = 0;
+    for (int i = 0;i < this.names.length;i++) {
+      lines[i] = commandLine(this.names[i]);
+      sum += weights.get(i);
+      cumulative[i] = sum;
+    }
+    this.total = sum;
+  }
+
+  private static String commandLine(String name) {
+    switch (name) {
+      case "echo":
+        return "echo hello from the load generator";
+      case "ls":
+        return "ls";
+      case "bus":
+        return "bus-send --reply " + BUS_ADDRESS + " ping";
+      case "sleep":
+        return "sleep 1";
+      default:
+        throw new IllegalArgumentException("Unknown command " + name + ", expected one of echo, ls, bus, sleep");
+    }
+  }
+
+  String[] names() {
+    return names;
+  }
+
+  /**
+   * @return the index of a randomly picked command, according to the weights
+   */
+  int next() {
+    int value = ThreadLocalRandom.current().nextInt(total);
+    for (int i = 0;i < cumulative.length;i++) {
+      if (value < cumulative[i]) {
+        return i;
+      }
+    }
+    return cumulative.length - 1;
+  }
+
+  String name(int index) {
+    return names[index];
+  }
+
+  String line(int index) {
+    return lines[index];
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.load;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A scripted shell session: each time the {@code "% "} prompt shows up, the latency of the previous command
+ * is recorded and the next command of the mix is sent, until the load generator stops.<p/>
+ *
+ * The connect latency is measured from the connection attempt until the first prompt, so it includes
+ * the protocol handshake and the authentication.<p/>
+ *
+ * Output is always delivered by a single thread for a given session.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+abstract class LoadSession {
+
+  final LoadStats stats;
+  private final BooleanSupplier running;
+  private final CountDownLatch done;
+  private final AtomicBoolean finished = new AtomicBoolean();
+  private long connectStart;
+  private long sentAt;
+  private int command = -1;
+  private int last;
+
+  LoadSession(LoadStats stats, BooleanSupplier running, CountDownLatch done) {
+    this.stats = stats;
+    this.running = running;
+    this.done = done;
+  }
+
+  final void start() {
+    connectStart = System.nanoTime();
+    try {
+      connect();
+    } catch (Exception e) {
+      handleConnectFailure(e);
+    }
+  }
+
+  /**
+   * Open the connection, the implementation must then feed the output to {@link #handleOutput}.
+   */
+  protected abstract void connect() throws Exception;
+
+  protected abstract void send(String line) throws Exception;
+
+  protected abstract void close();
+
+  protected final void handleOutput(byte[] data, int off, int len) {
+    stats.bytes.add(len);
+    for (int i = off;i < off + len;i++) {
+      scan(data[i]);
+    }
+  }
+
+  protected final void handleOutput(String data) {
+    stats.bytes.add(data.length());
+    for (int i = 0;i < data.length();i++) {
+      scan(data.charAt(i));
+    }
+  }
+
+  protected final void handleConnectFailure(Throwable cause) {
+    stats.connectFailures.increment();
+    finish();
+  }
+
+  /**
+   * Signals the connection was closed, it is an error unless the session was finished.
+   */
+  protected final void handleClosed() {
+    if (finished.compareAndSet(false, true)) {
+      stats.disconnects.increment();
+      done.countDown();
+    }
+  }
+
+  private void scan(int c) {
+    if (last == '%' && c == ' ') {
+      handlePrompt();
+      c = 0;
+    }
+    last = c;
+  }
+
+  private void handlePrompt() {
+    long now = System.nanoTime();
+    if (command == -1) {
+      stats.recordConnect(now - connectStart);
+    } else {
+      stats.recordCommand(command, now - sentAt);
+    }
+    if (!running.getAsBoolean()) {
+      finish();
+      return;
+    }
+    command = stats.mix.next();
+    sentAt = System.nanoTime();
+    try {
+      send(stats.mix.line(command) + "\r");
+    } catch (Exception e) {
+      handleClosed();
+    }
+  }
+
+  private void finish() {
+    if (finished.compareAndSet(false, true)) {
+      try {
+        close();
+      } finally {
+        done.countDown();
+      }
+    }
+  }
+}
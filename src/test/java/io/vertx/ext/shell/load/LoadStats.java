@@ -0,0 +1,108 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The statistics collected for a protocol, latencies are recorded in microseconds.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+class LoadStats {
+
+  private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+  final String protocol;
+  final LoadMix mix;
+  final Histogram connectLatency = new ConcurrentHistogram(3);
+  final Histogram[] commandLatency;
+  final LongAdder connected = new LongAdder();
+  final LongAdder connectFailures = new LongAdder();
+  final LongAdder disconnects = new LongAdder();
+  final LongAdder commands = new LongAdder();
+  final LongAdder bytes = new LongAdder();
+
+  LoadStats(String protocol, LoadMix mix) {
+    this.protocol = protocol;
+    this.mix = mix;
+    this.commandLatency = new Histogram[mix.names().length];
+    for (int i = 0;i < commandLatency.length;i++) {
+      commandLatency[i] = new ConcurrentHistogram(3);
+    }
+  }
+
+  void recordConnect(long nanos) {
+    connected.increment();
+    connectLatency.recordValue(TimeUnit.NANOSECONDS.toMicros(nanos));
+  }
+
+  void recordCommand(int index, long nanos) {
+    commands.increment();
+    commandLatency[index].recordValue(TimeUnit.NANOSECONDS.toMicros(nanos));
+  }
+
+  void report(PrintStream out, long elapsedNanos, boolean distributions) {
+    double seconds = elapsedNanos / 1_000_000_000D;
+    out.format("%s: %d connected, %d connect failures, %d unexpected disconnects%n",
+      protocol, connected.sum(), connectFailures.sum(), disconnects.sum());
+    out.format("  throughput: %.1f commands/s, %.1f KiB/s received%n",
+      commands.sum() / seconds, bytes.sum() / 1024D / seconds);
+    out.format("  %-8s %10s %10s %10s %10s %10s %10s%n", "(ms)", "count", "p50", "p90", "p99", "p99.9", "max");
+    row(out, "connect", connectLatency);
+    for (int i = 0;i < commandLatency.length;i++) {
+      row(out, mix.name(i), commandLatency[i]);
+    }
+    if (distributions) {
+      out.format("  connect latency distribution (ms):%n");
+      connectLatency.outputPercentileDistribution(out, 1000D);
+      for (int i = 0;i < commandLatency.length;i++) {
+        out.format("  %s latency distribution (ms):%n", mix.name(i));
+        commandLatency[i].outputPercentileDistribution(out, 1000D);
+      }
+    }
+  }
+
+  private static void row(PrintStream out, String name, Histogram histogram) {
+    out.format("  %-8s %10d", name, histogram.getTotalCount());
+    for (double percentile : PERCENTILES) {
+      out.format(" %10.2f", histogram.getValueAtPercentile(percentile) / 1000D);
+    }
+    out.format(" %10.2f%n", histogram.getMaxValue() / 1000D);
+  }
+}
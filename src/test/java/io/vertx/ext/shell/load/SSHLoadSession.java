@@ -0,0 +1,120 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.load;
+
+import com.jcraft.jsch.Channel;
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.Session;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A JSch shell session, JSch being blocking the session connects and reads its output on a thread
+ * of the provided executor.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+class SSHLoadSession extends LoadSession {
+
+  private final JSch jsch;
+  private final Executor executor;
+  private final String host;
+  private final int port;
+  private final String username;
+  private final String password;
+  private volatile Session session;
+  private OutputStream out;
+
+  SSHLoadSession(LoadStats stats, BooleanSupplier running, CountDownLatch done, JSch jsch, Executor executor,
+                 String host, int port, String username, String password) {
+    super(stats, running, done);
+    this.jsch = jsch;
+    this.executor = executor;
+    this.host = host;
+    this.port = port;
+    this.username = username;
+    this.password = password;
+  }
+
+  @Override
+  protected void connect() {
+    executor.execute(() -> {
+      InputStream in;
+      try {
+        Session session = jsch.getSession(username, host, port);
+        session.setPassword(password);
+        session.setConfig("StrictHostKeyChecking", "no");
+        session.connect();
+        this.session = session;
+        Channel channel = session.openChannel("shell");
+        in = channel.getInputStream();
+        out = channel.getOutputStream();
+        channel.connect();
+      } catch (Exception e) {
+        handleConnectFailure(e);
+        return;
+      }
+      byte[] buffer = new byte[1024];
+      try {
+        while (true) {
+          int len = in.read(buffer);
+          if (len == -1) {
+            break;
+          }
+          handleOutput(buffer, 0, len);
+        }
+      } catch (Exception ignore) {
+      }
+      handleClosed();
+    });
+  }
+
+  @Override
+  protected void send(String line) throws Exception {
+    out.write(line.getBytes(StandardCharsets.UTF_8));
+    out.flush();
+  }
+
+  @Override
+  protected void close() {
+    Session session = this.session;
+    if (session != null) {
+      session.disconnect();
+    }
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.load;
+
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.WebSocket;
+import io.vertx.core.http.WebSocketConnectOptions;
+import io.vertx.core.json.JsonObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A SockJS session using the raw websocket transport of the SockJS handler.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+class SockJSLoadSession extends LoadSession {
+
+  private final HttpClient client;
+  private final WebSocketConnectOptions options;
+  private WebSocket ws;
+
+  SockJSLoadSession(LoadStats stats, BooleanSupplier running, CountDownLatch done, HttpClient client,
+                    String host, int port, String username, String password) {
+    super(stats, running, done);
+    this.client = client;
+    this.options = new WebSocketConnectOptions()
+      .setHost(host)
+      .setPort(port)
+      .setURI("/shell/websocket")
+      .addHeader("Authorization", "Basic " + Base64.getEncoder().encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Override
+  protected void connect() {
+    client.webSocket(options, ar -> {
+      if (ar.succeeded()) {
+        ws = ar.result();
+        ws.textMessageHandler(this::handleOutput);
+        ws.closeHandler(v -> handleClosed());
+      } else {
+        handleConnectFailure(ar.cause());
+      }
+    });
+  }
+
+  @Override
+  protected void send(String line) {
+    ws.writeFinalTextFrame(new JsonObject().put("action", "read").put("data", line).encode());
+  }
+
+  @Override
+  protected void close() {
+    if (ws != null) {
+      ws.close();
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.load;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.net.NetClient;
+import io.vertx.core.net.NetSocket;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A telnet session on a non blocking {@link NetClient}, the option negotiations are not answered and
+ * left in the output, the prompt detection does not care about them.
+ *
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+class TelnetLoadSession extends LoadSession {
+
+  private final NetClient client;
+  private final String host;
+  private final int port;
+  private NetSocket socket;
+
+  TelnetLoadSession(LoadStats stats, BooleanSupplier running, CountDownLatch done, NetClient client, String host, int port) {
+    super(stats, running, done);
+    this.client = client;
+    this.host = host;
+    this.port = port;
+  }
+
+  @Override
+  protected void connect() {
+    client.connect(port, host, ar -> {
+      if (ar.succeeded()) {
+        socket = ar.result();
+        socket.handler(buff -> {
+          byte[] bytes = buff.getBytes();
+          handleOutput(bytes, 0, bytes.length);
+        });
+        socket.closeHandler(v -> handleClosed());
+      } else {
+        handleConnectFailure(ar.cause());
+      }
+    });
+  }
+
+  @Override
+  protected void send(String line) {
+    socket.write(Buffer.buffer(line));
+  }
+
+  @Override
+  protected void close() {
+    if (socket != null) {
+      socket.close();
+    }
+  }
+}
@@ -32,8 +32,6 @@
 
 package io.vertx.ext.shell.support;
 
-import io.termd.core.readline.Keymap;
-import io.termd.core.tty.TtyConnection;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
@@ -41,6 +39,7 @@ import io.vertx.core.Vertx;
 import io.vertx.ext.auth.AuthProvider;
 import io.vertx.ext.shell.term.Term;
 import io.vertx.ext.shell.term.TermServer;
+import io.vertx.ext.shell.term.impl.Helper;
 import io.vertx.ext.shell.term.impl.TermImpl;
 
 /**
@@ -49,23 +48,25 @@ import io.vertx.ext.shell.term.impl.TermImpl;
 public class TestTermServer implements TermServer {
 
   private final Vertx vertx;
-  private Handler<TtyConnection> connectionHandler;
+  private Handler<Term> termHandler;
 
   public TestTermServer(Vertx vertx) {
     this.vertx = vertx;
   }
 
   public TestTtyConnection openConnection() {
+    return openConnection(null);
+  }
+
+  public TestTtyConnection openConnection(String user) {
     TestTtyConnection conn = new TestTtyConnection(vertx);
-    connectionHandler.handle(conn);
+    termHandler.handle(new TermImpl(vertx, Helper.defaultKeymap(), conn, user));
     return conn;
   }
 
   @Override
   public TermServer termHandler(Handler<Term> handler) {
-    connectionHandler = conn -> {
-      handler.handle(new TermImpl(vertx, conn));
-    };
+    termHandler = handler;
     return this;
   }
 
@@ -55,6 +55,9 @@ import org.junit.Test;
 
 import java.io.*;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
@@ -341,6 +344,40 @@ public class SSHServerTest extends SSHTestBase {
     context.assertEquals(63, b);
   }
 
+  @Test
+  public void testDistributeSessions(TestContext context) throws Exception {
+    int count = 4;
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+    CountDownLatch latch = new CountDownLatch(count);
+    termHandler = term -> {
+      term.stdinHandler(s -> {
+        threads.add(Thread.currentThread().getName());
+        latch.countDown();
+      });
+    };
+    startShell(new SSHTermOptions().setEventLoopPoolSize(count).setPort(5000).setHost("localhost").setKeyPairOptions(
+      new JksOptions().setPath("src/test/resources/server-keystore.jks").setPassword("wibble")).
+      setAuthOptions(new JsonObject()
+        .put("provider", "shiro")
+        .put("type", "PROPERTIES")
+        .put("config",
+          new JsonObject().put("properties_path", "classpath:test-auth.properties"))));
+    List<Session> sessions = new ArrayList<>();
+    for (int i = 0;i < count;i++) {
+      Session session = createSession("paulo", "secret", false);
+      session.connect();
+      Channel channel = session.openChannel("shell");
+      channel.connect();
+      OutputStream out = channel.getOutputStream();
+      out.write("hello".getBytes());
+      out.flush();
+      sessions.add(session);
+    }
+    assertTrue(latch.await(10, TimeUnit.SECONDS));
+    context.assertTrue(threads.size() > 1, "Was expecting sessions on several event loops instead of " + threads);
+    sessions.forEach(Session::disconnect);
+  }
+
   @Test
   public void testKeymapFromFilesystem() throws Exception {
     URL url = TermServer.class.getResource(SSHTermOptions.DEFAULT_INPUTRC);
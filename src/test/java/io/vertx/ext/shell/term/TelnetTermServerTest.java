@@ -34,6 +34,7 @@ package io.vertx.ext.shell.term;
 
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
@@ -57,6 +58,10 @@ import java.io.Reader;
 import java.io.Writer;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
@@ -133,6 +138,89 @@ public class TelnetTermServerTest {
     }
   }
 
+  @Test
+  public void testReadBuffer(TestContext context) throws IOException {
+    Async async = context.async(2);
+    startTelnet(context, term -> {
+      Buffer received = Buffer.buffer();
+      term.interruptHandler(key -> {
+        // Ctrl-C is still interpreted
+        context.assertEquals(Buffer.buffer(new byte[]{(byte) 0xC3, 0x28}), received);
+        async.countDown();
+        return true;
+      });
+      term.stdinBufferHandler(buf -> {
+        received.appendBuffer(buf);
+        if (received.length() == 3) {
+          context.assertEquals(Buffer.buffer(new byte[]{(byte) 0xC3, 0x28, 4}), received);
+          async.countDown();
+        }
+      });
+    });
+    client.connect("localhost", server.actualPort());
+    OutputStream out = client.getOutputStream();
+    out.write(new byte[]{(byte) 0xC3, 0x28, 3, 4});
+    out.flush();
+  }
+
+  @Test
+  public void testWriteBuffer(TestContext context) throws IOException {
+    byte[] expected = {1, (byte) 0xFF, (byte) 0x80, (byte) 0xFE, 2};
+    startTelnet(context, term -> {
+      term.write(Buffer.buffer(expected));
+    });
+    client.connect("localhost", server.actualPort());
+    InputStream in = client.getInputStream();
+    for (byte b : expected) {
+      int c = in.read();
+      context.assertNotEquals(-1, c);
+      context.assertEquals(b & 0xFF, c);
+    }
+  }
+
+  @Test
+  public void testInstances(TestContext context) throws Exception {
+    int count = 8;
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+    Async async = context.async(count);
+    startTelnet(context, new TelnetTermOptions().setInstances(4), term -> {
+      threads.add(Thread.currentThread().getName());
+      async.countDown();
+    });
+    List<TelnetClient> clients = new ArrayList<>();
+    try {
+      for (int i = 0;i < count;i++) {
+        TelnetClient client = new TelnetClient();
+        client.connect("localhost", server.actualPort());
+        clients.add(client);
+      }
+      async.awaitSuccess(10000);
+      context.assertTrue(threads.size() > 1, "Was expecting connections on several event loops instead of " + threads);
+    } finally {
+      for (TelnetClient client : clients) {
+        client.disconnect();
+      }
+    }
+  }
+
+  @Test
+  public void testCloseDuringListen(TestContext context) throws Exception {
+    server = TermServer.createTelnetTermServer(vertx, new TelnetTermOptions().setPort(4000).setInstances(4));
+    context.assertEquals(-1, server.actualPort());
+    Async listened = context.async();
+    server.listen(ar -> listened.complete());
+    Async closed = context.async();
+    server.close(context.asyncAssertSuccess(v -> closed.complete()));
+    listened.awaitSuccess(5000);
+    closed.awaitSuccess(5000);
+    context.assertEquals(-1, server.actualPort());
+    try {
+      client.connect("localhost", 4000);
+      context.fail("Was not expecting an instance to be listening");
+    } catch (IOException expected) {
+    }
+  }
+
   @Test
   public void testCloseHandler(TestContext context) throws IOException {
     Async async1 = context.async();
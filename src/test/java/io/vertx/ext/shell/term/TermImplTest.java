@@ -0,0 +1,143 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.term;
+
+import io.termd.core.util.Helper;
+import io.vertx.core.Vertx;
+import io.vertx.ext.shell.support.TestTtyConnection;
+import io.vertx.ext.shell.term.impl.TermImpl;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
+ */
+@RunWith(VertxUnitRunner.class)
+public class TermImplTest {
+
+  private Vertx vertx;
+
+  @Before
+  public void before() {
+    vertx = Vertx.vertx();
+  }
+
+  @After
+  public void after(TestContext context) {
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  static class CountingConnection extends TestTtyConnection {
+
+    int writes;
+    long codePoints;
+    final Consumer<int[]> stdout = data -> {
+      writes++;
+      codePoints += data.length;
+    };
+
+    CountingConnection(Vertx vertx) {
+      super(vertx);
+    }
+
+    @Override
+    public Consumer<int[]> stdoutHandler() {
+      return stdout;
+    }
+  }
+
+  @Test
+  public void testEchoSingleWrite(TestContext context) {
+    CountingConnection conn = new CountingConnection(vertx);
+    TermImpl term = new TermImpl(vertx, conn);
+    term.echo('a', '\b', 3, '\r', 127, 'b');
+    context.assertEquals(1, conn.writes);
+    context.assertEquals(1L + 3 + 2 + 1 + 3 + 1, conn.codePoints);
+  }
+
+  @Test
+  public void testEchoAllocation(TestContext context) {
+    Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+    com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    Assume.assumeTrue(bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled());
+    CountingConnection conn = new CountingConnection(vertx);
+    TermImpl term = new TermImpl(vertx, conn);
+    StringBuilder json = new StringBuilder("{");
+    while (json.length() < 4096) {
+      json.append("\"key").append(json.length()).append("\":\"value\",\n");
+    }
+    int[] paste = Helper.toCodePoints(json.append("}").toString());
+    int[] escapedPaste = Helper.toCodePoints(json.toString().replace('\n', '\r'));
+    for (int i = 0;i < 1000;i++) {
+      term.echo(paste);
+      term.echo(escapedPaste);
+    }
+    long tid = Thread.currentThread().getId();
+    long before = bean.getThreadAllocatedBytes(tid);
+    for (int i = 0;i < 1000;i++) {
+      term.echo(paste);
+    }
+    long verbatim = bean.getThreadAllocatedBytes(tid) - before;
+    context.assertTrue(verbatim < 16 * 1024, "Was expecting no allocation per echo instead of " + verbatim + " bytes");
+    before = bean.getThreadAllocatedBytes(tid);
+    for (int i = 0;i < 1000;i++) {
+      term.echo(escapedPaste);
+    }
+    long escaped = bean.getThreadAllocatedBytes(tid) - before;
+    long max = 1000L * (escapedPaste.length * 4 + 64) + 16 * 1024;
+    context.assertTrue(escaped < max, "Was expecting a single array per echo instead of " + escaped + " bytes");
+    context.assertEquals(4000, conn.writes);
+  }
+
+  @Test
+  public void testDrainPendingInSingleChunk(TestContext context) {
+    CountingConnection conn = new CountingConnection(vertx);
+    TermImpl term = new TermImpl(vertx, conn);
+    conn.getStdinHandler().accept(Helper.toCodePoints("hello"));
+    conn.getStdinHandler().accept(Helper.toCodePoints(" world"));
+    List<String> chunks = new ArrayList<>();
+    term.stdinHandler(chunks::add);
+    context.assertEquals(1, chunks.size());
+    context.assertEquals("hello world", chunks.get(0));
+  }
+}